@@ -36,6 +36,11 @@ tasks.named<JavaCompile>("compileJava") {
     options.javaModuleVersion = provider { version as String }
 }
 
+// Sources are UTF-8, whatever the locale of the machine building them.
+tasks.withType<JavaCompile>().configureEach {
+    options.encoding = "UTF-8"
+}
+
 repositories {
     // Use Maven Central for resolving dependencies.
     mavenCentral()
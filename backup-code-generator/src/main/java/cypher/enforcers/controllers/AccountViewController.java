@@ -161,9 +161,10 @@ public class AccountViewController implements Initializable {
             }
         });
 
-        accounts.setCellFactory(new AccountCellFactory());
+        accounts.setCellFactory(new AccountCellFactory(accountModel::focusAccount));
         accounts.getSelectionModel().setSelectionMode(SelectionMode.MULTIPLE);
         accounts.itemsProperty().bind(accountModel.accountsProperty());
+        accountModel.refreshProperty().addListener((observable, oldValue, newValue) -> accounts.refresh());
 
         if (!Objects.isNull(userModel.getCurrentUser())) {
             accountModel.loadAccounts(userModel.getCurrentUser().id());
@@ -180,6 +181,15 @@ public class AccountViewController implements Initializable {
 
         accountModel.currentAccountProperty().bind(accounts.getSelectionModel().selectedItemProperty());
 
+        // Codes for the account the user is on are read ahead of time,
+        // so they're ready if it's opened.
+        accounts.getSelectionModel().selectedItemProperty().addListener(
+                (observable, oldValue, newValue) -> accountModel.focusAccount(newValue)
+        );
+        accounts.getFocusModel().focusedItemProperty().addListener(
+                (observable, oldValue, newValue) -> accountModel.focusAccount(newValue)
+        );
+
         /*
         This view would break down if the screen went too large or
         small. I'm not good at UI thus I didn't know how to make it look,
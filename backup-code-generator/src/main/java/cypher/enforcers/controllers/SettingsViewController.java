@@ -205,10 +205,7 @@ public class SettingsViewController implements Initializable {
 
         // This is so the list view updates to display the correct
         // icons for the theme.
-        User u = userModel.getCurrentUser();
-        if (!Objects.isNull(u)) {
-            accountModel.loadAccounts(u.id());
-        }
+        accountModel.refresh();
     }
 
     /**
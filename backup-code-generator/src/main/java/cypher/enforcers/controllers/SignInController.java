@@ -7,7 +7,9 @@ import javafx.scene.Node;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import javafx.beans.binding.Bindings;
+import javafx.beans.property.BooleanProperty;
 import javafx.beans.property.DoubleProperty;
+import javafx.beans.property.SimpleBooleanProperty;
 import javafx.beans.property.SimpleDoubleProperty;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
@@ -29,6 +31,7 @@ import java.io.IOException;
 import java.io.UncheckedIOException;
 import java.net.URL;
 import java.util.ResourceBundle;
+import java.util.concurrent.CancellationException;
 
 /**
  * A controller for the Sign-in UI
@@ -91,6 +94,12 @@ public class SignInController implements Initializable {
     @FXML
     private final DoubleProperty delta = new SimpleDoubleProperty();
 
+    /**
+     * True if the last sign-in attempt failed, until the username or
+     * password is changed.
+     */
+    private final BooleanProperty signInFailed = new SimpleBooleanProperty();
+
     /** To interact with the user data. */
     private final UserModel userModel;
 
@@ -187,13 +196,7 @@ public class SignInController implements Initializable {
         signInButton = new Button("Sign In");
         signInButton.setPrefSize(100, 25);
         signInButton.setAlignment(Pos.CENTER);
-        signInButton.setOnAction(event -> {
-            try {
-                signInOnAction(event);
-            } catch (IOException e) {
-                throw new UncheckedIOException(e);
-            }
-        });
+        signInButton.setOnAction(this::signInOnAction);
 
         TooltipWrapper<Button> createAccountWrapper = new TooltipWrapper<>(
                 signInButton,
@@ -203,23 +206,11 @@ public class SignInController implements Initializable {
 
         // Handles the event where the enter key is pressed while the
         // unameInput TextField is selected
-        unameInput.setOnKeyPressed(event -> {
-            try {
-                signInFromEnterKey(event);
-            } catch (IOException e) {
-                throw new UncheckedIOException(e);
-            }
-        });
+        unameInput.setOnKeyPressed(this::signInFromEnterKey);
 
         // Handles the event where the enter key is pressed while the
         // passInput TextField is selected
-        passInput.setOnKeyPressed(event -> {
-            try {
-                signInFromEnterKey(event);
-            } catch (IOException e) {
-                throw new UncheckedIOException(e);
-            }
-        });
+        passInput.setOnKeyPressed(this::signInFromEnterKey);
 
         // No use to send a query to the database if the username or password
         // is empty. The database does have checks to ensure the data is
@@ -245,49 +236,33 @@ public class SignInController implements Initializable {
                 .decorates(passInput)
                 .immediate();
 
+        // Signing in hashes the password, which is far too slow to do
+        // on every keystroke. It's only done once the user asks to sign
+        // in, and the result is shown here when it comes back. Changing
+        // the username or password clears it.
+        unameInput.textProperty().addListener((observable, oldValue, newValue) -> signInFailed.set(false));
+        passInput.textProperty().addListener((observable, oldValue, newValue) -> signInFailed.set(false));
+
         validator.createCheck()
                 .withMethod(c -> {
-                    // This alert should only be shown if the
-                    // username and password are not empty. Since
-                    // Validator FX would override the previous alerts
-                    // with this alert if inputs were empty, and empty
-                    // inputs would trigger a log message from the database
-                    // which the user won't see unless they check the console
-                    // or file. Easier to alter the user here.
-                    if (unameInput.getText().isEmpty() ||
-                        passInput.getText().isEmpty()) {
-                        return;
-                    }
-
-                    if (!userModel.logInUser(unameInput.getText(), passInput.getText())) {
+                    if (signInFailed.get()) {
                         c.error("Wrong username or password, please try again.");
                     }
                 })
-                .dependsOn("uNameInput", unameInput.textProperty())
-                .dependsOn("passInput", passInput.textProperty())
+                .dependsOn("signInFailed", signInFailed)
                 .decorates(unameInput)
                 .decorates(passInput)
                 .immediate();
     }
 
     /**
-     * Sign the user into their account. This function can be triggered through
-     * either pressing the sign-in button or pressing the enter key in one of the
-     * TextFields
+     * Sign the user into their account once the sign-in button is
+     * pressed.
      *
-     * @throws IOException if any errors occur while loading in the
-     * accounts view.
-     * @throws NullPointerException If the accounts view cannot be created
-     * due to missing data, or if the theme for the user cannot be set due
-     * to missing data.
+     * @param actionEvent The event from the button.
      */
-    private void signInOnAction(ActionEvent actionEvent) throws IOException, NullPointerException {
-        View.closeWindow((Node) actionEvent.getSource());
-
-        Utilities.adjustTheme(userModel.getCurrentUser().theme());
-
-        logger.trace("Switching from the HomePageView to the AccountsView.");
-        View.switchSceneTo(HomePageView.getInstance(), AccountView.getInstance());
+    private void signInOnAction(ActionEvent actionEvent) {
+        signIn((Node) actionEvent.getSource());
     }
 
     /**
@@ -296,20 +271,58 @@ public class SignInController implements Initializable {
      * sign button.
      *
      * @param e The key the user clicked.
-     * @throws IOException if any errors occur while loading in the
-     * accounts view.
+     */
+    private void signInFromEnterKey(KeyEvent e) {
+        if (KeyCode.ENTER == e.getCode() && !signInButton.isDisabled()) {
+            signIn((Node) e.getSource());
+        }
+    }
+
+    /**
+     * Sign the user into their account. The password is verified in the
+     * background, and if it's right, the window is closed and the
+     * accounts view is shown. If the user asks to sign in again before
+     * it's done, only the newest attempt is reported.
+     *
+     * @param source The node the user signed in from.
+     * @throws UncheckedIOException if any errors occur while loading in
+     * the accounts view.
      * @throws NullPointerException If the accounts view cannot be created
      * due to missing data, or if the theme for the user cannot be set due
      * to missing data.
      */
-    private void signInFromEnterKey(KeyEvent e) throws IOException, NullPointerException {
-        if (KeyCode.ENTER == e.getCode() && !signInButton.isDisabled()) {
-            View.closeWindow((Node) e.getSource());
+    private void signIn(Node source) {
+        String username = unameInput.getText();
+        String password = passInput.getText();
+
+        logger.trace("Signing in user {}.", username);
+        userModel.logInUserAsync(username, password).whenComplete((loggedIn, e) -> {
+            if (e instanceof CancellationException) {
+                return;
+            }
 
-            Utilities.adjustTheme(userModel.getCurrentUser().theme());
+            if (e != null || !loggedIn) {
+                if (e != null) {
+                    logger.error("Failed to sign in. Cause: ", e);
+                }
 
-            logger.trace("Switching from the HomePageView to the AccountsView.");
-            View.switchSceneTo(HomePageView.getInstance(), AccountView.getInstance());
-        }
+                // Only blame what's typed if it's what was checked.
+                if (username.equals(unameInput.getText()) && password.equals(passInput.getText())) {
+                    signInFailed.set(true);
+                }
+                return;
+            }
+
+            View.closeWindow(source);
+
+            try {
+                Utilities.adjustTheme(userModel.getCurrentUser().theme());
+
+                logger.trace("Switching from the HomePageView to the AccountsView.");
+                View.switchSceneTo(HomePageView.getInstance(), AccountView.getInstance());
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        });
     }
-}
\ No newline at end of file
+}
@@ -28,6 +28,21 @@ public class AccountEntity {
 
     }
 
+    /**
+     * Create an account with every value set.
+     *
+     * @param id ID of this account.
+     * @param userId ID of the user this account belongs to.
+     * @param name Name of this account.
+     * @param socialMediaType Social media type for this account.
+     */
+    public AccountEntity(long id, long userId, String name, String socialMediaType) {
+        this.id = id;
+        this.userId = userId;
+        this.name = name;
+        this.socialMediaType = socialMediaType;
+    }
+
     /**
      * Get the ID of this account.
      *
@@ -36,6 +36,19 @@ public class CodeEntity {
 
     }
 
+    /**
+     * Create a code with every value set.
+     *
+     * @param id ID of the code.
+     * @param accountID ID of the account this code belongs to.
+     * @param code The code.
+     */
+    public CodeEntity(long id, long accountID, String code) {
+        this.id = id;
+        this.accountID = accountID;
+        this.code = code;
+    }
+
     /**
      * Get the ID of this code.
      *
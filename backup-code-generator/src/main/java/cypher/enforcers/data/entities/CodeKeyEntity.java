@@ -0,0 +1,92 @@
+package cypher.enforcers.data.entities;
+
+/**
+ * This class is responsible for storing how the key that encrypts the
+ * codes of a user is derived from their password, when codes are
+ * encrypted.
+ */
+public class CodeKeyEntity {
+
+    /** ID of the user the key belongs to. */
+    private long userId;
+
+    /** Salt the key is derived with, in Base 64. */
+    private String salt;
+
+    /** Number of iterations the key is derived with. */
+    private int iterations;
+
+    /**
+     * Create a code key.
+     */
+    public CodeKeyEntity() {
+
+    }
+
+    /**
+     * Create a code key with every value set.
+     *
+     * @param userId ID of the user the key belongs to.
+     * @param salt Salt the key is derived with, in Base 64.
+     * @param iterations Number of iterations the key is derived with.
+     */
+    public CodeKeyEntity(long userId, String salt, int iterations) {
+        this.userId = userId;
+        this.salt = salt;
+        this.iterations = iterations;
+    }
+
+    /**
+     * Get the ID of the user the key belongs to.
+     *
+     * @return ID of the user.
+     */
+    public long getUserId() {
+        return userId;
+    }
+
+    /**
+     * Set the ID of the user the key belongs to.
+     *
+     * @param userId ID of the user.
+     */
+    public void setUserId(long userId) {
+        this.userId = userId;
+    }
+
+    /**
+     * Get the salt the key is derived with.
+     *
+     * @return The salt, in Base 64.
+     */
+    public String getSalt() {
+        return salt;
+    }
+
+    /**
+     * Set the salt the key is derived with.
+     *
+     * @param salt The salt, in Base 64.
+     */
+    public void setSalt(String salt) {
+        this.salt = salt;
+    }
+
+    /**
+     * Get the number of iterations the key is derived with.
+     *
+     * @return The number of iterations.
+     */
+    public int getIterations() {
+        return iterations;
+    }
+
+    /**
+     * Set the number of iterations the key is derived with.
+     *
+     * @param iterations The number of iterations.
+     */
+    public void setIterations(int iterations) {
+        this.iterations = iterations;
+    }
+}
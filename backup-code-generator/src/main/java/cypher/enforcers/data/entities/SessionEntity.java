@@ -0,0 +1,114 @@
+package cypher.enforcers.data.entities;
+
+/**
+ * This class is responsible for storing data related to a session, which
+ * keeps a user logged in until they log out.
+ */
+public class SessionEntity {
+
+    /** Token that identifies this session. */
+    private String token;
+
+    /** ID of the user this session belongs to. */
+    private long userId;
+
+    /** When this session was created, in milliseconds since the epoch. */
+    private long created;
+
+    /** When this session was last used, in milliseconds since the epoch. */
+    private long lastSeen;
+
+    /**
+     * Create a session.
+     */
+    public SessionEntity() {
+
+    }
+
+    /**
+     * Create a session with every value set.
+     *
+     * @param token Token that identifies the session.
+     * @param userId ID of the user the session belongs to.
+     * @param created When the session was created.
+     * @param lastSeen When the session was last used.
+     */
+    public SessionEntity(String token, long userId, long created, long lastSeen) {
+        this.token = token;
+        this.userId = userId;
+        this.created = created;
+        this.lastSeen = lastSeen;
+    }
+
+    /**
+     * Get the token that identifies this session.
+     *
+     * @return The token.
+     */
+    public String getToken() {
+        return token;
+    }
+
+    /**
+     * Set the token that identifies this session.
+     *
+     * @param token The new token.
+     */
+    public void setToken(String token) {
+        this.token = token;
+    }
+
+    /**
+     * Get the ID of the user this session belongs to.
+     *
+     * @return ID of the user.
+     */
+    public long getUserId() {
+        return userId;
+    }
+
+    /**
+     * Set the ID of the user this session belongs to.
+     *
+     * @param userId ID of the user.
+     */
+    public void setUserId(long userId) {
+        this.userId = userId;
+    }
+
+    /**
+     * Get when this session was created.
+     *
+     * @return Milliseconds since the epoch.
+     */
+    public long getCreated() {
+        return created;
+    }
+
+    /**
+     * Set when this session was created.
+     *
+     * @param created Milliseconds since the epoch.
+     */
+    public void setCreated(long created) {
+        this.created = created;
+    }
+
+    /**
+     * Get when this session was last used.
+     *
+     * @return Milliseconds since the epoch.
+     */
+    public long getLastSeen() {
+        return lastSeen;
+    }
+
+    /**
+     * Set when this session was last used.
+     *
+     * @param lastSeen Milliseconds since the epoch.
+     */
+    public void setLastSeen(long lastSeen) {
+        this.lastSeen = lastSeen;
+    }
+}
@@ -0,0 +1,68 @@
+package cypher.enforcers.data.entities;
+
+/**
+ * This class is responsible for storing which database file the accounts
+ * and codes of a user are kept in, when each user has one of their own.
+ */
+public class ShardEntity {
+
+    /** ID of the user whose data is in the file. */
+    private long userId;
+
+    /** Name of the database file. */
+    private String file;
+
+    /**
+     * Create a shard.
+     */
+    public ShardEntity() {
+
+    }
+
+    /**
+     * Create a shard with every value set.
+     *
+     * @param userId ID of the user whose data is in the file.
+     * @param file Name of the database file.
+     */
+    public ShardEntity(long userId, String file) {
+        this.userId = userId;
+        this.file = file;
+    }
+
+    /**
+     * Get the ID of the user whose data is in the file.
+     *
+     * @return ID of the user.
+     */
+    public long getUserId() {
+        return userId;
+    }
+
+    /**
+     * Set the ID of the user whose data is in the file.
+     *
+     * @param userId ID of the user.
+     */
+    public void setUserId(long userId) {
+        this.userId = userId;
+    }
+
+    /**
+     * Get the name of the database file.
+     *
+     * @return Name of the file.
+     */
+    public String getFile() {
+        return file;
+    }
+
+    /**
+     * Set the name of the database file.
+     *
+     * @param file Name of the file.
+     */
+    public void setFile(String file) {
+        this.file = file;
+    }
+}
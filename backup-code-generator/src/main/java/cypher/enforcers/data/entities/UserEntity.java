@@ -37,6 +37,23 @@ public class UserEntity {
 
     }
 
+    /**
+     * Creates a user with every value set.
+     *
+     * @param id ID of the user.
+     * @param username The user's username.
+     * @param password The user's password.
+     * @param theme Theme for this user.
+     * @param loggedIn True if the user is logged in, false otherwise.
+     */
+    public UserEntity(long id, String username, String password, Theme theme, boolean loggedIn) {
+        this.id = id;
+        this.username = username;
+        this.password = password;
+        this.theme = theme;
+        this.loggedIn = (short) (loggedIn ? 1 : 0);
+    }
+
     /**
      * Get the ID for this user.
      *
@@ -7,6 +7,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.sql.SQLException;
+import java.util.Collection;
 import java.util.List;
 
 /**
@@ -15,20 +16,14 @@ import java.util.List;
  */
 public class AccountDAOImpl implements AccountDAO {
 
-    /** SQLite query to insert an account into the database. */
-    private static final String ADD_ACCOUNT = "INSERT INTO accounts (user_id, name, type) VALUES (?, ?, ?)";
+    /** SQLite query to insert an account into the database and return it. */
+    private static final String ADD_ACCOUNT = "INSERT INTO accounts (user_id, name, type) VALUES (?, ?, ?) RETURNING *";
 
-    /**
-     * SQLite query to select the most recent account that was inserted
-     * into the database.
-     */
-    private static final String GET_ACCOUNT_AFTER_ADDING = "SELECT * FROM accounts WHERE id = last_insert_rowid()";
+    /** SQLite query to delete all accounts for a user and return them. */
+    private static final String DELETE_ACCOUNTS = "DELETE FROM accounts WHERE user_id = ? RETURNING *";
 
-    /** SQLite query to delete all accounts from the database. */
-    private static final String DELETE_ACCOUNTS = "DELETE FROM accounts WHERE user_id = ?";
-
-    /** SQLite query to delete an account by ID from the database. */
-    private static final String DELETE_ACCOUNT = "DELETE FROM accounts WHERE id = ?";
+    /** SQLite query to delete an account by ID and return it. */
+    private static final String DELETE_ACCOUNT = "DELETE FROM accounts WHERE id = ? RETURNING *";
 
     /** SQLite query to select all accounts by ID from the database. */
     private static final String GET_ACCOUNTS = "SELECT * FROM accounts WHERE user_id = ?";
@@ -65,6 +60,7 @@ public class AccountDAOImpl implements AccountDAO {
         try {
             return databaseService.executeMultiSelect(GET_ACCOUNTS, AccountEntity.class, userID);
         } catch (SQLException e) {
+            databaseService.failTransaction(e);
             logger.debug("Failed select query. Cause: ", e);
         }
 
@@ -82,6 +78,7 @@ public class AccountDAOImpl implements AccountDAO {
         try {
             return databaseService.executeSelect(GET_ACCOUNT, AccountEntity.class, accountID);
         } catch (SQLException e) {
+            databaseService.failTransaction(e);
             logger.debug("Failed select query. Cause: ", e);
         }
 
@@ -97,10 +94,9 @@ public class AccountDAOImpl implements AccountDAO {
     @Override
     public AccountEntity addAccount(AccountEntity account) {
         try {
-            databaseService.executeUpdate(ADD_ACCOUNT, account);
-
-            return databaseService.executeSelect(GET_ACCOUNT_AFTER_ADDING, AccountEntity.class);
+            return databaseService.executeUpdateReturning(ADD_ACCOUNT, account, AccountEntity.class);
         } catch (SQLException e) {
+            databaseService.failTransaction(e);
             logger.debug("Failed insert query. Cause: ", e);
         }
 
@@ -116,15 +112,28 @@ public class AccountDAOImpl implements AccountDAO {
     @Override
     public AccountEntity removeAccount(long id) {
         try {
-            AccountEntity account = getAccount(id);
+            return databaseService.executeUpdateReturning(DELETE_ACCOUNT, AccountEntity.class, id);
+        } catch (SQLException e) {
+            databaseService.failTransaction(e);
+            logger.debug("Failed delete query. Cause: ", e);
+        }
 
-            if (account == null) {
-                return null;
-            }
+        return null;
+    }
 
-            databaseService.executeUpdate(DELETE_ACCOUNT, id);
-            return account;
+    /**
+     * Remove many accounts at once. Either all the accounts are
+     * removed, or none of them are.
+     *
+     * @param ids IDs of the accounts to delete.
+     * @return Accounts that were deleted, null otherwise.
+     */
+    @Override
+    public List<AccountEntity> removeAccounts(Collection<Long> ids) {
+        try {
+            return databaseService.executeUpdateReturningEach(DELETE_ACCOUNT, AccountEntity.class, ids);
         } catch (SQLException e) {
+            databaseService.failTransaction(e);
             logger.debug("Failed delete query. Cause: ", e);
         }
 
@@ -140,15 +149,9 @@ public class AccountDAOImpl implements AccountDAO {
     @Override
     public List<AccountEntity> clearAllAccounts(long userID) {
         try {
-            List<AccountEntity> accounts = getAccounts(userID);
-
-            if (accounts == null) {
-                return null;
-            }
-
-            databaseService.executeUpdate(DELETE_ACCOUNTS, userID);
-            return accounts;
+            return databaseService.executeUpdateReturningAll(DELETE_ACCOUNTS, AccountEntity.class, userID);
         } catch (SQLException e) {
+            databaseService.failTransaction(e);
             logger.debug("Failed delete query. Cause: ", e);
         }
 
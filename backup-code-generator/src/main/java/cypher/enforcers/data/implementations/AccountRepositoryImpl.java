@@ -3,10 +3,13 @@ package cypher.enforcers.data.implementations;
 import cypher.enforcers.data.spis.AccountDAO;
 import cypher.enforcers.data.spis.AccountRepository;
 import cypher.enforcers.data.entities.AccountEntity;
+import cypher.enforcers.utilities.CacheStatistics;
+import cypher.enforcers.utilities.LruCache;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.*;
+import java.util.stream.Collectors;
 
 /**
  Implementation for the Account Repository. Behaves as a collection of
@@ -17,17 +20,42 @@ public class AccountRepositoryImpl implements AccountRepository {
     /** Logger for the account repository. */
     private static final Logger logger = LoggerFactory.getLogger(AccountRepositoryImpl.class);
 
+    /** Default number of users to keep the accounts of in memory. */
+    public static final int DEFAULT_CACHED_USERS = 8;
+
+    /** Default limit on the memory used by the cached accounts, in bytes. */
+    public static final long DEFAULT_CACHED_BYTES = 1024 * 1024;
+
     /** To make updates to the database. */
     private final AccountDAO accountDAO;
 
+    /** The accounts of recently read users, by the ID of the user. */
+    private final LruCache<Long, List<AccountEntity>> cache;
+
     /**
      * Create a new Account Repository linked to an Account Data Access
-     * Object to work with the accounts as a collection.
+     * Object to work with the accounts as a collection. Accounts are
+     * always read from the database.
      *
      * @param dao The Account Data Access Object.
      */
     public AccountRepositoryImpl(AccountDAO dao) {
+        this(dao, 0, 0);
+    }
+
+    /**
+     * Create a new Account Repository linked to an Account Data Access
+     * Object to work with the accounts as a collection. The accounts of
+     * recently read users are kept in memory, and kept up to date with
+     * any changes made through this repository.
+     *
+     * @param dao The Account Data Access Object.
+     * @param maxUsers Maximum number of users to keep the accounts of.
+     * @param maxBytes Maximum memory used by the cached accounts, in bytes.
+     */
+    public AccountRepositoryImpl(AccountDAO dao, int maxUsers, long maxBytes) {
         this.accountDAO = dao;
+        this.cache = new LruCache<>(maxUsers, maxBytes, AccountRepositoryImpl::estimateSize);
     }
 
     /**
@@ -45,6 +73,11 @@ public class AccountRepositoryImpl implements AccountRepository {
 
         if (!Objects.isNull(createAccount)) {
             logger.info("Account with name {} and social media type {} created.", createAccount.getName(), createAccount.getSocialMediaType());
+            cache.computeIfPresent(createAccount.getUserId(), accounts -> {
+                List<AccountEntity> result = new ArrayList<>(accounts);
+                result.add(createAccount);
+                return Collections.unmodifiableList(result);
+            });
             return Optional.of(createAccount);
         }
 
@@ -63,11 +96,22 @@ public class AccountRepositoryImpl implements AccountRepository {
     public List<AccountEntity> readAll(long id) {
         logger.trace("Attempting to get all accounts for user with ID {}.", id);
 
+        List<AccountEntity> cached = cache.get(id);
+        if (!Objects.isNull(cached)) {
+            logger.trace("Accounts for user with ID {} found in memory.", id);
+            return cached;
+        }
+
+        // Anything written while the accounts are being read would be
+        // missing from them, so they're only kept if nothing changed.
+        long modifications = cache.modifications();
         List<AccountEntity> result = accountDAO.getAccounts(id);
 
         if (!Objects.isNull(result)) {
             logger.trace("Accounts retrieved for user with ID {}.", id);
-            return result;
+            List<AccountEntity> accounts = List.copyOf(result);
+            cache.putIfUnmodified(id, accounts, modifications);
+            return accounts;
         }
 
         logger.trace("No accounts found for user with ID {}.", id);
@@ -110,6 +154,9 @@ public class AccountRepositoryImpl implements AccountRepository {
 
         if (!Objects.isNull(deleteAccount)) {
             logger.info("Deleted account successfully.");
+            cache.computeIfPresent(deleteAccount.getUserId(), accounts -> accounts.stream()
+                    .filter(account -> account.getID() != id)
+                    .toList());
             return Optional.of(deleteAccount);
         }
 
@@ -132,10 +179,74 @@ public class AccountRepositoryImpl implements AccountRepository {
 
         if (!Objects.isNull(accounts)) {
             logger.info("Deleted all accounts successfully.");
+            cache.put(id, List.of());
             return accounts;
         }
 
         logger.warn("Failed to delete all accounts for user with ID {}.", id);
         return Collections.emptyList();
     }
+
+    /**
+     * Delete many accounts at once, in a single transaction. Either all
+     * the accounts are deleted, or none of them are.
+     *
+     * @param ids IDs of the accounts to delete.
+     * @return List containing the accounts if successfully deleted,
+     * empty list otherwise.
+     */
+    @Override
+    public List<AccountEntity> deleteAll(Collection<Long> ids) {
+        logger.trace("Attempting to delete {} accounts.", ids.size());
+
+        List<AccountEntity> accounts = accountDAO.removeAccounts(ids);
+
+        if (!Objects.isNull(accounts)) {
+            logger.info("Deleted {} accounts successfully.", accounts.size());
+
+            Set<Long> deleted = accounts.stream()
+                    .map(AccountEntity::getID)
+                    .collect(Collectors.toSet());
+            accounts.stream()
+                    .map(AccountEntity::getUserId)
+                    .distinct()
+                    .forEach(userID -> cache.computeIfPresent(userID, cached -> cached.stream()
+                            .filter(account -> !deleted.contains(account.getID()))
+                            .toList()));
+
+            return accounts;
+        }
+
+        logger.warn("Failed to delete {} accounts.", ids.size());
+        return Collections.emptyList();
+    }
+
+    /**
+     * Get how often the accounts for a user were already in memory when
+     * they were read.
+     *
+     * @return The hits and misses so far.
+     */
+    @Override
+    public CacheStatistics getCacheStatistics() {
+        return cache.getStatistics();
+    }
+
+    /**
+     * Estimate the memory used by a list of accounts. Each account is
+     * counted as its object, its two strings and the characters in them.
+     *
+     * @param accounts The accounts.
+     * @return The estimated size, in bytes.
+     */
+    private static long estimateSize(List<AccountEntity> accounts) {
+        long size = 16 + 4L * accounts.size();
+        for (AccountEntity account : accounts) {
+            size += 32 + 2 * 40
+                    + (account.getName() == null ? 0 : 2L * account.getName().length())
+                    + (account.getSocialMediaType() == null ? 0 : 2L * account.getSocialMediaType().length());
+        }
+
+        return size;
+    }
 }
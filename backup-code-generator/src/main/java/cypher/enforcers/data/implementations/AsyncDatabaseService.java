@@ -0,0 +1,94 @@
+package cypher.enforcers.data.implementations;
+
+import cypher.enforcers.data.spis.DatabaseService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ Executor for work that talks to a database service, so the JavaFX
+ Application Thread never has to wait for the database. Each task runs
+ on its own virtual thread. The repositories' async methods take it as
+ the executor their queries run on, and hand back their results through
+ a CompletableFuture.
+ */
+public class AsyncDatabaseService implements Executor {
+
+    /** Logger for the async database service. */
+    private static final Logger logger = LoggerFactory.getLogger(AsyncDatabaseService.class);
+
+    /** How long to wait for running queries when shutting down, in seconds. */
+    private static final long SHUT_DOWN_TIMEOUT = 5;
+
+    /** Service to communicate to the database. */
+    private final DatabaseService service;
+
+    /** Runs the queries. */
+    private final ExecutorService executor;
+
+    /**
+     * Create a new async database service that runs each query on a
+     * new virtual thread.
+     *
+     * @param service The service that provides a connection to the
+     *                database.
+     */
+    public AsyncDatabaseService(DatabaseService service) {
+        this(service, Executors.newVirtualThreadPerTaskExecutor());
+    }
+
+    /**
+     * Create a new async database service.
+     *
+     * @param service The service that provides a connection to the
+     *                database.
+     * @param executor Runs the queries.
+     */
+    public AsyncDatabaseService(DatabaseService service, ExecutorService executor) {
+        this.service = service;
+        this.executor = executor;
+    }
+
+    /**
+     * Get the database service the queries are sent to.
+     *
+     * @return The database service.
+     */
+    public DatabaseService getService() {
+        return service;
+    }
+
+    /**
+     * Run a task in the background.
+     *
+     * @param command The task.
+     */
+    @Override
+    public void execute(Runnable command) {
+        executor.execute(command);
+    }
+
+    /**
+     * Stop accepting new queries and wait for the running ones to
+     * finish.
+     */
+    public void shutDown() {
+        executor.shutdown();
+
+        try {
+            if (!executor.awaitTermination(SHUT_DOWN_TIMEOUT, TimeUnit.SECONDS)) {
+                logger.warn("Queries still running after {} seconds, stopping them.", SHUT_DOWN_TIMEOUT);
+                executor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            executor.shutdownNow();
+        }
+
+        logger.info("Async database service shut down.");
+    }
+}
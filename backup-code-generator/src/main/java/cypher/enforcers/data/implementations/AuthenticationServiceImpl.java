@@ -4,7 +4,11 @@ import cypher.enforcers.data.security.SecurityUtils;
 import cypher.enforcers.data.security.dtos.User;
 import cypher.enforcers.data.security.mappers.UserDTOMapper;
 import cypher.enforcers.data.spis.AuthenticationService;
+import cypher.enforcers.data.spis.KeyRing;
+import cypher.enforcers.data.spis.SessionRepository;
+import cypher.enforcers.data.spis.ShardRouter;
 import cypher.enforcers.data.spis.UserRepository;
+import cypher.enforcers.data.entities.SessionEntity;
 import cypher.enforcers.data.entities.UserEntity;
 import cypher.enforcers.views.themes.Theme;
 import org.slf4j.Logger;
@@ -17,6 +21,18 @@ import java.util.Optional;
  * Implementation for the Authentication Service. This service allows this
  * application to register, authenticate, and logout users. This way,
  * unauthorised actions are prevented.
+ * <br>
+ * A user stays logged in while they have a session. The current user and
+ * their session are kept in memory once they're loaded, so checking who
+ * is logged in doesn't need to go to the database.
+ * <br>
+ * When each user has a database of their own, the database service is
+ * routed to it once the user is authenticated.
+ * <br>
+ * When codes are encrypted, the key of the user is worked out from their
+ * password once they're authenticated. Since the password is needed for
+ * that, a user whose key isn't being held has to log in again instead of
+ * carrying on with their last session.
  */
 public class AuthenticationServiceImpl implements AuthenticationService {
 
@@ -26,24 +42,83 @@ public class AuthenticationServiceImpl implements AuthenticationService {
     /** Used to store information related to the current logged-in user. */
     private final UserRepository userRepository;
 
+    /** Used to start and end the sessions of the users. */
+    private final SessionRepository sessionRepository;
+
     /** Used to hide sensitive information. */
     private final UserDTOMapper mapper;
 
+    /** Points the database service at the database of the current user. */
+    private final ShardRouter router;
+
+    /** Holds the key of the current user, when codes are encrypted. */
+    private final KeyRing keys;
+
+    /** Session of the current logged-in user, null if nobody is. */
+    private SessionEntity currentSession;
+
+    /** The current logged-in user, null if nobody is. */
+    private UserEntity currentUser;
+
+    /** If the current user has been loaded from the database yet. */
+    private boolean loaded;
+
+    /**
+     * Create a new Authentication service linked to a User Repository,
+     * a Session Repository, and a mapper to convert the User object to
+     * a transfer object.
+     *
+     * @param repository The Repository containing the users.
+     * @param sessions   The Repository containing the sessions.
+     * @param mapper     The mapper that converts a user object to be
+     *                   transferred.
+     */
+    public AuthenticationServiceImpl(UserRepository repository, SessionRepository sessions, UserDTOMapper mapper) {
+        this(repository, sessions, mapper, ShardRouter.NONE);
+    }
+
+    /**
+     * Create a new Authentication service linked to a User Repository,
+     * a Session Repository, a mapper to convert the User object to a
+     * transfer object, and a router to the database of each user.
+     *
+     * @param repository The Repository containing the users.
+     * @param sessions   The Repository containing the sessions.
+     * @param mapper     The mapper that converts a user object to be
+     *                   transferred.
+     * @param router     Points the database service at the database of
+     *                   the current user.
+     */
+    public AuthenticationServiceImpl(UserRepository repository, SessionRepository sessions, UserDTOMapper mapper, ShardRouter router) {
+        this(repository, sessions, mapper, router, KeyRing.NONE);
+    }
+
     /**
-     * Create a new Authentication service linked to a User Repository
-     * and a mapper to convert the User object to a transfer object.
+     * Create a new Authentication service linked to a User Repository,
+     * a Session Repository, a mapper to convert the User object to a
+     * transfer object, a router to the database of each user, and a key
+     * ring for the key of each user.
      *
      * @param repository The Repository containing the users.
+     * @param sessions   The Repository containing the sessions.
      * @param mapper     The mapper that converts a user object to be
      *                   transferred.
+     * @param router     Points the database service at the database of
+     *                   the current user.
+     * @param keys       Holds the key of the current user.
      */
-    public AuthenticationServiceImpl(UserRepository repository, UserDTOMapper mapper) {
+    public AuthenticationServiceImpl(UserRepository repository, SessionRepository sessions, UserDTOMapper mapper, ShardRouter router, KeyRing keys) {
         this.userRepository = repository;
+        this.sessionRepository = sessions;
         this.mapper = mapper;
+        this.router = router;
+        this.keys = keys;
     }
 
     /**
-     * Create a new user for this application.
+     * Create a new user for this application and log them in. If they
+     * can't be logged in, the user is removed again so the username is
+     * free to sign up with.
      *
      * @param username Username for the user.
      * @param password Password for the user.
@@ -58,34 +133,43 @@ public class AuthenticationServiceImpl implements AuthenticationService {
             return false;
         }
 
-        String salt = SecurityUtils.createSalt();
-
-        String hashedPassword = SecurityUtils.hashPassword(password + salt, salt.getBytes());
+        String hashedPassword = SecurityUtils.hash(password);
 
         if (Objects.isNull(hashedPassword)) {
             logger.warn("Unable to create user.");
             return false;
         }
 
-        String fullHashedPassword = salt + hashedPassword;
-
         UserEntity user = new UserEntity();
         user.setUsername(username.toLowerCase());
-        user.setPassword(fullHashedPassword);
+        user.setPassword(hashedPassword);
 
         Optional<UserEntity> createdUser = userRepository.create(user);
 
-        if (createdUser.isPresent() && createdUser.get().getLoggedIn() && createdUser.get().getID() >= 1) {
+        if (createdUser.isEmpty() || createdUser.get().getID() < 1) {
+            logger.warn("Unable to create user.");
+            return false;
+        }
+
+        if (startSession(createdUser.get(), password)) {
             logger.info("User created.");
             return true;
         }
 
+        // Without a session the user can't log in to what was set up
+        // for them, so they're removed to let them sign up again.
+        if (userRepository.delete(createdUser.get().getID()).isEmpty()) {
+            logger.error("Unable to remove user with ID {} after failing to start their session.", createdUser.get().getID());
+        }
+
         logger.warn("Unable to create user.");
         return false;
     }
 
     /**
-     * Authenticate an existing user into this application.
+     * Authenticate an existing user into this application. If their
+     * password was hashed in an older format, or with fewer iterations
+     * than are used now, it's hashed again while it's known.
      *
      * @param username Username for the user.
      * @param password Password for the user.
@@ -102,14 +186,18 @@ public class AuthenticationServiceImpl implements AuthenticationService {
         }
 
         UserEntity user = userOptional.get();
-        if (verifyPassword(user.getPassword(), password)) {
-            user.setLoggedIn(true);
-            userOptional = userRepository.update(user);
+        if (!SecurityUtils.verify(user.getPassword(), password)) {
+            logger.warn("Failed to authenticate user with username {}.", username);
+            return false;
+        }
 
-            if (userOptional.isPresent() && userOptional.get().getLoggedIn()) {
-                logger.info("User authenticated.");
-                return true;
-            }
+        if (SecurityUtils.needsRehash(user.getPassword())) {
+            rehashPassword(user, password);
+        }
+
+        if (startSession(user, password)) {
+            logger.info("User authenticated.");
+            return true;
         }
 
         logger.warn("Failed to authenticate user with username {}.", username);
@@ -141,14 +229,25 @@ public class AuthenticationServiceImpl implements AuthenticationService {
             return true;
         }
 
-        user.setLoggedIn(false);
-        optionalUser = userRepository.update(user);
-
-        if (optionalUser.isPresent() && optionalUser.get().getLoggedIn()) {
+        if (!sessionRepository.deleteAll(id)) {
             logger.warn("Failed to logout user.");
             return false;
         }
 
+        boolean wasCurrent;
+        synchronized (this) {
+            wasCurrent = currentUser != null && currentUser.getID() == id;
+            if (wasCurrent) {
+                currentSession = null;
+                currentUser = null;
+            }
+        }
+
+        if (wasCurrent) {
+            keys.lock();
+            router.leave();
+        }
+
         logger.info("User logged out.");
         return true;
     }
@@ -182,6 +281,12 @@ public class AuthenticationServiceImpl implements AuthenticationService {
         optionalUser = userRepository.update(user);
 
         if (optionalUser.isPresent() && optionalUser.get().getTheme().equals(theme)) {
+            synchronized (this) {
+                if (currentUser != null && currentUser.getID() == id) {
+                    currentUser = optionalUser.get();
+                }
+            }
+
             logger.trace("Theme successfully updated to {} for user with ID {}.", theme, id);
             return true;
         }
@@ -223,23 +328,116 @@ public class AuthenticationServiceImpl implements AuthenticationService {
      * otherwise.
      */
     @Override
-    public Optional<User> getLoggedInUser() {
-        return userRepository.findLoggedInUser()
+    public synchronized Optional<User> getLoggedInUser() {
+        if (!loaded) {
+            loadCurrentUser();
+        }
+
+        return Optional.ofNullable(currentUser)
                 .map(mapper);
     }
 
     /**
-     * Verify that the password provided by the user matches the
-     * one in the database.
+     * Unlock the key of a user whose password was just verified, then
+     * start a new session for them. If the session can't be started, the
+     * key is forgotten again.
+     *
+     * @param user The user.
+     * @param password The password of the user.
+     * @return True if the session was started, false otherwise.
+     */
+    private boolean startSession(UserEntity user, String password) {
+        if (!keys.unlock(user.getID(), password)) {
+            logger.warn("Unable to unlock the key of user with ID {}.", user.getID());
+            return false;
+        }
+
+        if (startSession(user)) {
+            return true;
+        }
+
+        keys.lock();
+        return false;
+    }
+
+    /**
+     * Start a new session for a user, making them the current user. Any
+     * sessions they had before are ended, so only the new one is kept.
      *
-     * @param expected The password present in the database.
-     * @param actual   The password provided by the user.
-     * @return True if the passwords match, false otherwise.
+     * @param user The user.
+     * @return True if the session was started, false otherwise.
      */
-    private boolean verifyPassword(String expected, String actual) {
-        String salt = expected.substring(0, SecurityUtils.SALT_LENGTH);
-        String expectedPassword = expected.substring(SecurityUtils.SALT_LENGTH);
+    private boolean startSession(UserEntity user) {
+        if (!router.route(user.getID())) {
+            logger.warn("Unable to open the database of user with ID {}.", user.getID());
+            return false;
+        }
+
+        // Not being able to end them only leaves old rows behind, so the
+        // user can still log in.
+        sessionRepository.deleteAll(user.getID());
+
+        Optional<SessionEntity> session = sessionRepository.create(user.getID());
+        if (session.isEmpty()) {
+            return false;
+        }
+
+        user.setLoggedIn(true);
 
-        return SecurityUtils.verifyPassword(expectedPassword, actual + salt, salt);
+        synchronized (this) {
+            currentSession = session.get();
+            currentUser = user;
+            loaded = true;
+        }
+
+        return true;
+    }
+
+    /**
+     * Load the user with the most recently used session from the
+     * database, marking that session as used. They're only logged in if
+     * their database can be opened, and their key is being held.
+     */
+    private void loadCurrentUser() {
+        logger.trace("Loading current user.");
+
+        Optional<SessionEntity> session = sessionRepository.findLatest();
+        Optional<UserEntity> user = session.flatMap(s -> userRepository.read(s.getUserId()));
+
+        if (user.isPresent() && !keys.isUnlocked(user.get().getID())) {
+            logger.info("User with ID {} has to log in again to unlock their codes.", user.get().getID());
+        } else if (session.isPresent() && user.isPresent() && router.route(user.get().getID())) {
+            currentSession = sessionRepository.touch(session.get().getToken()).orElse(session.get());
+            currentUser = user.get();
+        }
+
+        loaded = true;
+    }
+
+    /**
+     * Hash the password of a user again with the current format and
+     * number of iterations. If it can't be saved, the user keeps the old
+     * one, and it's tried again the next time they log in.
+     *
+     * @param user The user, updated with the new password if saved.
+     * @param password The password of the user.
+     */
+    private void rehashPassword(UserEntity user, String password) {
+        String hashedPassword = SecurityUtils.hash(password);
+        if (Objects.isNull(hashedPassword)) {
+            logger.warn("Unable to hash password again for user with ID {}.", user.getID());
+            return;
+        }
+
+        String oldPassword = user.getPassword();
+        user.setPassword(hashedPassword);
+
+        Optional<UserEntity> updated = userRepository.update(user);
+        if (updated.isPresent() && hashedPassword.equals(updated.get().getPassword())) {
+            logger.info("Password hashed again for user with ID {}.", user.getID());
+        } else {
+            user.setPassword(oldPassword);
+            logger.warn("Unable to save password hashed again for user with ID {}.", user.getID());
+        }
     }
 }
@@ -8,7 +8,6 @@ import org.slf4j.LoggerFactory;
 
 import java.sql.SQLException;
 import java.util.List;
-import java.util.Objects;
 
 /**
  Implementation for the Code Data Access Object (DAO) to communicate to the
@@ -16,23 +15,17 @@ import java.util.Objects;
  */
 public class CodeDAOImpl implements CodeDAO {
 
-    /** SQLite query to insert a code into the database. */
-    private static final String ADD_CODE = "INSERT INTO codes (account_id, code) VALUES (?, ?)";
+    /** SQLite query to insert a code and return it with its new ID. */
+    private static final String ADD_CODE = "INSERT INTO codes (account_id, code) VALUES (?, ?) RETURNING *";
 
-    /**
-     * SQLite query to select the most recent code that was inserted
-     * into the database.
-     */
-    private static final String GET_CODE_AFTER_ADDING = "SELECT * FROM codes WHERE id = last_insert_rowid()";
-
-    /** SQLite query to delete all codes from the database. */
-    private static final String DELETE_CODES = "DELETE FROM codes WHERE account_id = ?";
+    /** SQLite query to delete all codes for an account and return them. */
+    private static final String DELETE_CODES = "DELETE FROM codes WHERE account_id = ? RETURNING *";
 
-    /** SQLite query to delete a code by ID from the database. */
-    private static final String DELETE_CODE = "DELETE FROM codes WHERE id = ?";
+    /** SQLite query to delete a code by ID and return it. */
+    private static final String DELETE_CODE = "DELETE FROM codes WHERE id = ? RETURNING *";
 
     /** SQLite query to update a code from the database. */
-    private static final String UPDATE_CODE = "UPDATE codes SET code = ? WHERE id = ?";
+    private static final String UPDATE_CODE = "UPDATE codes SET code = ? WHERE id = ? RETURNING *";
 
     /** SQLite query to select all codes by ID from the database. */
     private static final String GET_CODES = "SELECT * FROM codes WHERE account_id = ?";
@@ -68,6 +61,7 @@ public class CodeDAOImpl implements CodeDAO {
         try {
             return databaseService.executeMultiSelect(GET_CODES, CodeEntity.class, id);
         } catch (SQLException e) {
+            databaseService.failTransaction(e);
             logger.debug("Failed select query. Cause: ", e);
         }
 
@@ -85,6 +79,7 @@ public class CodeDAOImpl implements CodeDAO {
         try {
             return databaseService.executeSelect(GET_CODE, CodeEntity.class, codeID);
         } catch (SQLException e) {
+            databaseService.failTransaction(e);
             logger.debug("Failed select query. Cause: ", e);
         }
 
@@ -100,16 +95,34 @@ public class CodeDAOImpl implements CodeDAO {
     @Override
     public CodeEntity addCode(CodeEntity code) {
         try {
-            databaseService.executeUpdate(ADD_CODE, code);
-
-            return databaseService.executeSelect(GET_CODE_AFTER_ADDING, CodeEntity.class);
+            return databaseService.executeUpdateReturning(ADD_CODE, code, CodeEntity.class);
         } catch (SQLException e) {
+            databaseService.failTransaction(e);
             logger.debug("Failed insert query. Cause: ", e);
         }
 
         return null;
     }
 
+    /**
+     * Add many codes at once. Either all the codes are added, or none
+     * of them are.
+     *
+     * @param codes The codes to add.
+     * @return The codes that were added, null otherwise.
+     */
+    @Override
+    public List<CodeEntity> addCodes(List<CodeEntity> codes) {
+        try {
+            return databaseService.executeUpdateReturningEach(ADD_CODE, codes, CodeEntity.class);
+        } catch (SQLException e) {
+            databaseService.failTransaction(e);
+            logger.debug("Failed batch insert query. Cause: ", e);
+        }
+
+        return null;
+    }
+
     /**
      * Update a code.
      *
@@ -118,10 +131,9 @@ public class CodeDAOImpl implements CodeDAO {
      */
     public CodeEntity updateCode(CodeEntity code) {
         try {
-            databaseService.executeUpdate(UPDATE_CODE, code.getCode(), code.getId());
-
-            return databaseService.executeSelect(GET_CODE, CodeEntity.class, code.getId());
+            return databaseService.executeUpdateReturning(UPDATE_CODE, CodeEntity.class, code.getCode(), code.getId());
         } catch (SQLException e) {
+            databaseService.failTransaction(e);
             logger.debug("Failed update query. Cause: ", e);
         }
 
@@ -137,14 +149,9 @@ public class CodeDAOImpl implements CodeDAO {
     @Override
     public CodeEntity removeCode(long id) {
         try {
-            CodeEntity result = getCode(id);
-
-            if (!Objects.isNull(result)) {
-                databaseService.executeUpdate(DELETE_CODE, id);
-            }
-
-            return result;
+            return databaseService.executeUpdateReturning(DELETE_CODE, CodeEntity.class, id);
         } catch (SQLException e) {
+            databaseService.failTransaction(e);
             logger.debug("Failed delete query. Cause: ", e);
         }
 
@@ -160,14 +167,9 @@ public class CodeDAOImpl implements CodeDAO {
     @Override
     public List<CodeEntity> clearAllCodes(long id) {
         try {
-            List<CodeEntity> codes = getCodes(id);
-
-            if (!Objects.isNull(codes)) {
-                databaseService.executeUpdate(DELETE_CODES, id);
-            }
-
-            return codes;
+            return databaseService.executeUpdateReturningAll(DELETE_CODES, CodeEntity.class, id);
         } catch (SQLException e) {
+            databaseService.failTransaction(e);
             logger.debug("Failed delete query. Cause: ", e);
         }
 
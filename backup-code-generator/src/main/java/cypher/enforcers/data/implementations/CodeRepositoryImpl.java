@@ -3,10 +3,13 @@ package cypher.enforcers.data.implementations;
 import cypher.enforcers.data.entities.CodeEntity;
 import cypher.enforcers.data.spis.CodeDAO;
 import cypher.enforcers.data.spis.CodeRepository;
+import cypher.enforcers.utilities.CacheStatistics;
+import cypher.enforcers.utilities.LruCache;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.*;
+import java.util.stream.Collectors;
 
 /**
  Implementation for the code Repository. Behaves as a collection of
@@ -17,17 +20,42 @@ public class CodeRepositoryImpl implements CodeRepository {
     /** Logger for the code repository. */
     private static final Logger logger = LoggerFactory.getLogger(CodeRepositoryImpl.class);
 
+    /** Default number of accounts to keep the codes of in memory. */
+    public static final int DEFAULT_CACHED_ACCOUNTS = 64;
+
+    /** Default limit on the memory used by the cached codes, in bytes. */
+    public static final long DEFAULT_CACHED_BYTES = 4L * 1024 * 1024;
+
     /** To make updates to the database. */
     private final CodeDAO codeDAO;
 
+    /** The codes of recently read accounts, by the ID of the account. */
+    private final LruCache<Long, List<CodeEntity>> cache;
+
     /**
      * Create a new Code Repository linked to a Code Data Access Object
-     * to work with the codes as a collection.
+     * to work with the codes as a collection. Codes are always read
+     * from the database.
      *
      * @param dao The Code Data Access Object.
      */
     public CodeRepositoryImpl(CodeDAO dao) {
+        this(dao, 0, 0);
+    }
+
+    /**
+     * Create a new Code Repository linked to a Code Data Access Object
+     * to work with the codes as a collection. The codes of recently read
+     * accounts are kept in memory, and kept up to date with any changes
+     * made through this repository.
+     *
+     * @param dao The Code Data Access Object.
+     * @param maxAccounts Maximum number of accounts to keep the codes of.
+     * @param maxBytes Maximum memory used by the cached codes, in bytes.
+     */
+    public CodeRepositoryImpl(CodeDAO dao, int maxAccounts, long maxBytes) {
         this.codeDAO = dao;
+        this.cache = new LruCache<>(maxAccounts, maxBytes, CodeRepositoryImpl::estimateSize);
     }
 
     /**
@@ -45,6 +73,7 @@ public class CodeRepositoryImpl implements CodeRepository {
 
         if (!Objects.isNull(createCode)) {
             logger.info("Code {} created", createCode.getCode());
+            cache.computeIfPresent(createCode.getAccountID(), codes -> append(codes, List.of(createCode)));
             return Optional.of(createCode);
         }
 
@@ -52,6 +81,37 @@ public class CodeRepositoryImpl implements CodeRepository {
         return Optional.empty();
     }
 
+    /**
+     * Create many codes at once. Either all the codes are created, or
+     * none of them are.
+     *
+     * @param codes The codes to add.
+     * @return List containing the codes if created successfully,
+     * empty list otherwise.
+     */
+    @Override
+    public List<CodeEntity> createAll(List<CodeEntity> codes) {
+        if (codes.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        logger.trace("Attempting to create {} codes.", codes.size());
+
+        List<CodeEntity> createdCodes = codeDAO.addCodes(codes);
+
+        if (!Objects.isNull(createdCodes)) {
+            logger.info("Created {} codes.", createdCodes.size());
+
+            Map<Long, List<CodeEntity>> byAccount = createdCodes.stream()
+                    .collect(Collectors.groupingBy(CodeEntity::getAccountID));
+            byAccount.forEach((id, added) -> cache.computeIfPresent(id, cached -> append(cached, added)));
+            return createdCodes;
+        }
+
+        logger.warn("Unable to create {} codes.", codes.size());
+        return Collections.emptyList();
+    }
+
     /**
      * Read all codes for an account.
      *
@@ -63,11 +123,22 @@ public class CodeRepositoryImpl implements CodeRepository {
     public List<CodeEntity> readAll(long id) {
         logger.trace("Attempting to get all codes for account with ID {}.", id);
 
+        List<CodeEntity> cached = cache.get(id);
+        if (!Objects.isNull(cached)) {
+            logger.trace("Codes for account with ID {} found in memory.", id);
+            return cached;
+        }
+
+        // Anything written while the codes are being read would be
+        // missing from them, so they're only kept if nothing changed.
+        long modifications = cache.modifications();
         List<CodeEntity> result = codeDAO.getCodes(id);
 
         if (!Objects.isNull(result)) {
             logger.trace("Codes retrieved for account with ID {}.", id);
-            return result;
+            List<CodeEntity> codes = List.copyOf(result);
+            cache.putIfUnmodified(id, codes, modifications);
+            return codes;
         }
 
         logger.trace("No codes found for account with ID {}.", id);
@@ -110,6 +181,7 @@ public class CodeRepositoryImpl implements CodeRepository {
 
         if (!Objects.isNull(updatedCode)) {
             logger.trace("Updated code successfully.");
+            cache.replaceAll((id, codes) -> replace(codes, updatedCode.getId(), updatedCode.getCode()));
             return Optional.of(updatedCode);
         }
 
@@ -131,6 +203,7 @@ public class CodeRepositoryImpl implements CodeRepository {
 
         if (!Objects.isNull(deletedCode)) {
             logger.info("Deleted code successfully.");
+            cache.replaceAll((accountID, codes) -> replace(codes, id, null));
             return Optional.of(deletedCode);
         }
 
@@ -153,10 +226,103 @@ public class CodeRepositoryImpl implements CodeRepository {
 
         if (!Objects.isNull(codes)) {
             logger.info("Deleted all codes successfully.");
+            cache.put(id, List.of());
             return codes;
         }
 
         logger.warn("Failed to delete all codes for account with ID {}.", id);
         return Collections.emptyList();
     }
+
+    /**
+     * Forget any codes kept in memory for an account, so they're read
+     * from the database next time. Used when the account is deleted,
+     * since its codes are deleted along with it.
+     *
+     * @param id ID of the account.
+     */
+    @Override
+    public void forget(long id) {
+        cache.invalidate(id);
+    }
+
+    /**
+     * Forget every code kept in memory, so they're all read from the
+     * database next time. Used when switching to a database where the
+     * same account IDs may belong to other accounts.
+     */
+    @Override
+    public void forgetAll() {
+        cache.clear();
+    }
+
+    /**
+     * Get how often the codes for an account were already in memory
+     * when they were read.
+     *
+     * @return The hits and misses so far.
+     */
+    @Override
+    public CacheStatistics getCacheStatistics() {
+        return cache.getStatistics();
+    }
+
+    /**
+     * Add codes to the end of a cached list of codes.
+     *
+     * @param codes The cached codes.
+     * @param added The codes to add.
+     * @return A new list with the codes added.
+     */
+    private static List<CodeEntity> append(List<CodeEntity> codes, List<CodeEntity> added) {
+        List<CodeEntity> result = new ArrayList<>(codes.size() + added.size());
+        result.addAll(codes);
+        result.addAll(added);
+        return Collections.unmodifiableList(result);
+    }
+
+    /**
+     * Change or remove a code in a cached list of codes.
+     *
+     * @param codes The cached codes.
+     * @param id ID of the code to change.
+     * @param code The new code, or null to remove it.
+     * @return A new list with the code changed, or the same list if it
+     * doesn't have the code.
+     */
+    private static List<CodeEntity> replace(List<CodeEntity> codes, long id, String code) {
+        for (int i = 0; i < codes.size(); i++) {
+            CodeEntity c = codes.get(i);
+            if (c.getId() != id) {
+                continue;
+            }
+
+            List<CodeEntity> result = new ArrayList<>(codes);
+            if (code == null) {
+                result.remove(i);
+            } else {
+                result.set(i, new CodeEntity(id, c.getAccountID(), code));
+            }
+
+            return Collections.unmodifiableList(result);
+        }
+
+        return codes;
+    }
+
+    /**
+     * Estimate the memory used by a list of codes. Each code is counted
+     * as its object, its string and the characters in it.
+     *
+     * @param codes The codes.
+     * @return The estimated size, in bytes.
+     */
+    private static long estimateSize(List<CodeEntity> codes) {
+        long size = 16 + 4L * codes.size();
+        for (CodeEntity code : codes) {
+            size += 32 + 40 + (code.getCode() == null ? 0 : 2L * code.getCode().length());
+        }
+
+        return size;
+    }
 }
@@ -0,0 +1,195 @@
+package cypher.enforcers.data.implementations;
+
+import cypher.enforcers.data.entities.CodeEntity;
+import cypher.enforcers.data.security.CodeCipher;
+import cypher.enforcers.data.spis.CodeDAO;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ Code Data Access Object (DAO) that encrypts codes before handing them to
+ another Code DAO, and decrypts the codes it gets back, with the key of
+ the user that's logged in. Nothing is read or written while no key is
+ being held.
+ <br>
+ The codes passed in aren't changed, copies of them are encrypted
+ instead.
+ */
+public class EncryptedCodeDAO implements CodeDAO {
+
+    /** Logger for the encrypted code data access object. */
+    private static final Logger logger = LoggerFactory.getLogger(EncryptedCodeDAO.class);
+
+    /** Stores the encrypted codes. */
+    private final CodeDAO codeDAO;
+
+    /** Encrypts and decrypts the codes. */
+    private final CodeCipher cipher;
+
+    /**
+     * Create a new encrypted Code Data Access Object.
+     *
+     * @param dao The Code Data Access Object that stores the encrypted
+     *            codes.
+     * @param cipher Encrypts and decrypts the codes.
+     */
+    public EncryptedCodeDAO(CodeDAO dao, CodeCipher cipher) {
+        this.codeDAO = dao;
+        this.cipher = cipher;
+    }
+
+    /**
+     * Get all codes for an account.
+     *
+     * @param id ID of the Account to retrieve the codes for.
+     * @return List of codes. Returns null if any errors occur.
+     */
+    @Override
+    public List<CodeEntity> getCodes(long id) {
+        return decrypt(codeDAO.getCodes(id));
+    }
+
+    /**
+     * Get a code by ID.
+     *
+     * @param codeID ID of the code to retrieve.
+     * @return Code if found, null otherwise.
+     */
+    @Override
+    public CodeEntity getCode(long codeID) {
+        return decrypt(codeDAO.getCode(codeID));
+    }
+
+    /**
+     * Add a code.
+     *
+     * @param code The code to add.
+     * @return Code if successfully added, null otherwise.
+     */
+    @Override
+    public CodeEntity addCode(CodeEntity code) {
+        CodeEntity encrypted = encrypt(code);
+        return encrypted == null ? null : decrypt(codeDAO.addCode(encrypted));
+    }
+
+    /**
+     * Add many codes at once. Either all the codes are added, or none
+     * of them are.
+     *
+     * @param codes The codes to add.
+     * @return The codes that were added, null otherwise.
+     */
+    @Override
+    public List<CodeEntity> addCodes(List<CodeEntity> codes) {
+        List<CodeEntity> encrypted = new ArrayList<>(codes.size());
+        for (CodeEntity code : codes) {
+            CodeEntity e = encrypt(code);
+            if (e == null) {
+                return null;
+            }
+
+            encrypted.add(e);
+        }
+
+        return decrypt(codeDAO.addCodes(encrypted));
+    }
+
+    /**
+     * Update a code.
+     *
+     * @param code The code to update.
+     * @return Code with the updated data if successfully updated, null
+     * otherwise.
+     */
+    @Override
+    public CodeEntity updateCode(CodeEntity code) {
+        CodeEntity encrypted = encrypt(code);
+        return encrypted == null ? null : decrypt(codeDAO.updateCode(encrypted));
+    }
+
+    /**
+     * Remove a code.
+     *
+     * @param id ID of the code to remove.
+     * @return Code removed if successful, null otherwise.
+     */
+    @Override
+    public CodeEntity removeCode(long id) {
+        return decrypt(codeDAO.removeCode(id));
+    }
+
+    /**
+     * Remove all codes for an account.
+     *
+     * @param id ID of the account to delete the codes for.
+     * @return The codes deleted, null otherwise.
+     */
+    @Override
+    public List<CodeEntity> clearAllCodes(long id) {
+        return decrypt(codeDAO.clearAllCodes(id));
+    }
+
+    /**
+     * Encrypt a copy of a code.
+     *
+     * @param code The code.
+     * @return The encrypted copy, or null if it could not be encrypted.
+     */
+    private CodeEntity encrypt(CodeEntity code) {
+        if (code.getCode() == null) {
+            return code;
+        }
+
+        String encrypted = cipher.encrypt(code.getCode());
+        if (encrypted == null) {
+            logger.debug("Failed to encrypt code with ID {}.", code.getId());
+            return null;
+        }
+
+        return new CodeEntity(code.getId(), code.getAccountID(), encrypted);
+    }
+
+    /**
+     * Decrypt a code that was read, in place.
+     *
+     * @param code The code, may be null.
+     * @return The code, or null if it could not be decrypted.
+     */
+    private CodeEntity decrypt(CodeEntity code) {
+        if (code == null || code.getCode() == null) {
+            return code;
+        }
+
+        String decrypted = cipher.decrypt(code.getCode());
+        if (decrypted == null) {
+            logger.debug("Failed to decrypt code with ID {}.", code.getId());
+            return null;
+        }
+
+        code.setCode(decrypted);
+        return code;
+    }
+
+    /**
+     * Decrypt codes that were read, in place.
+     *
+     * @param codes The codes, may be null.
+     * @return The codes, or null if any could not be decrypted.
+     */
+    private List<CodeEntity> decrypt(List<CodeEntity> codes) {
+        if (codes == null) {
+            return null;
+        }
+
+        for (CodeEntity code : codes) {
+            if (decrypt(code) == null) {
+                return null;
+            }
+        }
+
+        return codes;
+    }
+}
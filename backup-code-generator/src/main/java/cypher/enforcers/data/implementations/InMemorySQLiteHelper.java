@@ -0,0 +1,218 @@
+package cypher.enforcers.data.implementations;
+
+import cypher.enforcers.utilities.Utilities;
+import cypher.enforcers.utilities.sqliteutilities.ConnectionLease;
+import cypher.enforcers.utilities.sqliteutilities.SchemaMigrator;
+import org.apache.commons.io.FilenameUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ Implementation for the database service that keeps the whole database
+ in memory, nothing is written to disk unless a snapshot is taken. The
+ same queries work as with a database on disk, since it's still SQLite.
+ <br>
+ The database either starts empty, with the schema created from scratch,
+ or as a copy of a database file, such as a snapshot or a database in
+ the resources folder. Either way the schema is brought up to date.
+ <br>
+ Everything in memory is lost once disconnected.
+ */
+public class InMemorySQLiteHelper extends SQLiteHelper {
+
+    /** Logger for the in-memory SQLite helper. */
+    private static final Logger logger = LoggerFactory.getLogger(InMemorySQLiteHelper.class);
+
+    /** Name to connect with to start from an empty database. */
+    public static final String EMPTY = ":memory:";
+
+    /**
+     * Create a new in-memory SQLite helper.
+     * <br>
+     * Mainly here to avoid warnings.
+     */
+    public InMemorySQLiteHelper() {
+
+    }
+
+    /**
+     * Connect to a new, empty database.
+     */
+    @Override
+    public void connect() {
+        connect(EMPTY);
+    }
+
+    /**
+     * Open a database in memory. Unless the name is {@link #EMPTY}, it
+     * starts as a copy of a database file. The name can be the full path
+     * of a file, such as a snapshot. Otherwise, a file in the directory
+     * this application is running in is used if there is one, or else
+     * the file is read from the resources folder without being copied
+     * out of it.
+     *
+     * @param name name of the database to start from.
+     * @return The connection.
+     * @throws SQLException If the database could not be opened, or the
+     * schema could not be brought up to date.
+     * @throws NullPointerException If the database to start from can't
+     * be found.
+     */
+    @Override
+    protected Connection open(String name) throws SQLException, NullPointerException {
+        Connection opened = DriverManager.getConnection("jdbc:sqlite::memory:", createConfiguration().toProperties());
+
+        try {
+            if (!EMPTY.equals(name)) {
+                copyFrom(opened, name);
+            }
+
+            SchemaMigrator.bootstrap(opened);
+        } catch (SQLException | RuntimeException e) {
+            opened.close();
+            throw e;
+        }
+
+        return opened;
+    }
+
+    /**
+     * Write everything in the database to a file. The file can be opened
+     * like any other database, or restored later with
+     * {@link #restore(Path)}.
+     *
+     * @param file The file to write to, replaced if it already exists.
+     * @throws SQLException If the snapshot could not be written.
+     */
+    public void snapshot(Path file) throws SQLException {
+        if (noConnection()) {
+            throw new SQLException("No connection.");
+        }
+
+        try (ConnectionLease lease = leaseWriter();
+             Statement statement = lease.getConnection().createStatement()) {
+            statement.executeUpdate("backup to " + quote(file));
+        }
+
+        logger.info("Database snapshot written to {}.", file);
+    }
+
+    /**
+     * Replace everything in the database with a snapshot, bringing its
+     * schema up to date. Anything cached from the database before it
+     * was restored is out of date.
+     *
+     * @param file The snapshot to restore.
+     * @throws SQLException If the snapshot could not be restored.
+     */
+    public void restore(Path file) throws SQLException {
+        if (noConnection()) {
+            throw new SQLException("No connection.");
+        }
+
+        if (!Files.exists(file)) {
+            throw new SQLException("Snapshot " + file + " does not exist.");
+        }
+
+        try (ConnectionLease lease = leaseWriter()) {
+            try (Statement statement = lease.getConnection().createStatement()) {
+                statement.executeUpdate("restore from " + quote(file));
+            }
+
+            SchemaMigrator.migrate(lease.getConnection());
+        }
+
+        logger.info("Database restored from {}.", file);
+    }
+
+    /**
+     * Copy a database file into a database in memory.
+     *
+     * @param connection Connection to the database in memory.
+     * @param name name of the database file.
+     * @throws SQLException If the file could not be copied.
+     */
+    private static void copyFrom(Connection connection, String name) throws SQLException {
+        File file = new File(name);
+        if (!file.isAbsolute()) {
+            file = new File(Utilities.getParentDirectory(), FilenameUtils.getName(name));
+        }
+
+        if (file.exists()) {
+            restoreInto(connection, file.toPath());
+            return;
+        }
+
+        URL url = Utilities.loadFileByURL(name);
+        if ("file".equals(url.getProtocol())) {
+            try {
+                restoreInto(connection, Path.of(url.toURI()));
+                return;
+            } catch (URISyntaxException e) {
+                throw new SQLException("Invalid location for " + name + ".", e);
+            }
+        }
+
+        // SQLite can only restore from a file, so a database packaged
+        // inside a jar has to be written out first.
+        Path temporary = null;
+        try (InputStream inputStream = Utilities.loadFileByInputStream(name)) {
+            temporary = Files.createTempFile("database", ".db");
+            Files.copy(inputStream, temporary, StandardCopyOption.REPLACE_EXISTING);
+            restoreInto(connection, temporary);
+        } catch (IOException e) {
+            throw new SQLException("Could not read " + name + " from resources.", e);
+        } finally {
+            if (temporary != null) {
+                try {
+                    Files.deleteIfExists(temporary);
+                } catch (IOException e) {
+                    logger.debug("Failed to delete {}. Cause: ", temporary, e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Replace everything in a database with the contents of a file.
+     *
+     * @param connection Connection to the database.
+     * @param file The database file.
+     * @throws SQLException If the file could not be restored.
+     */
+    private static void restoreInto(Connection connection, Path file) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.executeUpdate("restore from " + quote(file));
+        }
+    }
+
+    /**
+     * Quote the path of a file so it can be used in a backup or restore
+     * command.
+     *
+     * @param file The file.
+     * @return The quoted path.
+     * @throws SQLException If the path can't be quoted.
+     */
+    private static String quote(Path file) throws SQLException {
+        String path = file.toAbsolutePath().toString();
+        if (path.contains("\"")) {
+            throw new SQLException("Path " + path + " cannot contain quotes.");
+        }
+
+        return "\"" + path + "\"";
+    }
+}
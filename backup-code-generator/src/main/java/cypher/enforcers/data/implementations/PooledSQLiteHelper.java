@@ -0,0 +1,214 @@
+package cypher.enforcers.data.implementations;
+
+import cypher.enforcers.utilities.CacheStatistics;
+import cypher.enforcers.utilities.sqliteutilities.ConnectionLease;
+import cypher.enforcers.utilities.sqliteutilities.StatementCache;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.sqlite.SQLiteConfig;
+
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ Implementation for the database service that keeps a small pool of
+ connections open. The database is put in write-ahead logging mode so
+ any number of read-only connections can read from it while the one
+ writer connection is making changes.
+ <br>
+ Only one thread can hold the writer at a time, readers are handed out
+ from the pool and wait for one to be returned if they're all in use.
+ */
+public class PooledSQLiteHelper extends SQLiteHelper {
+
+    /** Logger for the pooled SQLite helper. */
+    private static final Logger logger = LoggerFactory.getLogger(PooledSQLiteHelper.class);
+
+    /** Number of read-only connections in the pool. */
+    private final int readers;
+
+    /** Pool for when no read-only connections are open. */
+    private static final Pool EMPTY = new Pool(List.of(), new ArrayBlockingQueue<>(1));
+
+    /**
+     * The read-only connections, replaced as a whole when connecting and
+     * disconnecting so threads borrowing a reader always see a pool whose
+     * connections and idle queue belong together.
+     */
+    private volatile Pool pool = EMPTY;
+
+    /**
+     * The read-only connections of one database.
+     *
+     * @param opened Every read-only connection that was opened, with its
+     *               statements.
+     * @param idle The read-only connections that aren't currently borrowed.
+     */
+    private record Pool(List<StatementCache> opened, BlockingQueue<StatementCache> idle) { }
+
+    /**
+     * Create a new pooled SQLite helper with one reader for each
+     * processor, and at least two.
+     */
+    public PooledSQLiteHelper() {
+        this(Math.max(2, Runtime.getRuntime().availableProcessors()));
+    }
+
+    /**
+     * Create a new pooled SQLite helper.
+     *
+     * @param readers Number of read-only connections to keep open.
+     */
+    public PooledSQLiteHelper(int readers) {
+        if (readers < 1) {
+            throw new IllegalArgumentException("Need at least one reader.");
+        }
+
+        this.readers = readers;
+    }
+
+    /**
+     * Create a connection to the database by providing the name. The
+     * writer is opened first, followed by the read-only connections.
+     *
+     * @param name name of the database to connect to.
+     */
+    @Override
+    public void connect(String name) {
+        super.connect(name);
+
+        if (getConnection() == null) {
+            return;
+        }
+
+        List<StatementCache> opened = new ArrayList<>(readers);
+        SQLiteConfig configurations = createConfiguration();
+        configurations.setReadOnly(true);
+
+        try {
+            for (int i = 0; i < readers; i++) {
+                opened.add(new StatementCache(openConnection(name, configurations)));
+            }
+        } catch (SQLException e) {
+            logger.warn("Failed to open read-only connections, reads will share the writer. Cause: ", e);
+            close(opened);
+            return;
+        }
+
+        pool = new Pool(List.copyOf(opened), new ArrayBlockingQueue<>(readers, false, opened));
+        logger.info("Opened {} read-only connection(s).", readers);
+    }
+
+    /**
+     * Create the configurations used for every connection made to
+     * the database. Turns on write-ahead logging and waits on locks
+     * instead of failing right away. Commits are still synced to disk
+     * in full, so none are lost if the power goes out.
+     *
+     * @return The configurations.
+     */
+    @Override
+    protected SQLiteConfig createConfiguration() {
+        SQLiteConfig configurations = super.createConfiguration();
+        configurations.setJournalMode(SQLiteConfig.JournalMode.WAL);
+        configurations.setBusyTimeout((int) TIMEOUT);
+        return configurations;
+    }
+
+    /**
+     * Borrow one of the read-only connections. If none of them could be
+     * opened, the writer is borrowed instead.
+     *
+     * @return A lease on a connection that can be used for reading.
+     * @throws SQLException If no reader was returned to the pool in time.
+     */
+    @Override
+    public ConnectionLease leaseReader() throws SQLException {
+        Pool current = pool;
+        if (current.opened().isEmpty()) {
+            return leaseWriter();
+        }
+
+        BlockingQueue<StatementCache> idle = current.idle();
+        StatementCache reader;
+        try {
+            reader = idle.poll(TIMEOUT, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a reader.", e);
+        }
+
+        if (reader == null) {
+            throw new SQLException("Timed out waiting for a reader.");
+        }
+
+        return new ConnectionLease(reader, () -> idle.offer(reader));
+    }
+
+    /**
+     * Get how often queries were found in the prepared statement caches
+     * of the writer and every reader.
+     *
+     * @return The hits and misses so far.
+     */
+    @Override
+    public CacheStatistics getStatementCacheStatistics() {
+        CacheStatistics statistics = super.getStatementCacheStatistics();
+        for (StatementCache reader : pool.opened()) {
+            statistics = statistics.plus(reader.getStatistics());
+        }
+
+        return statistics;
+    }
+
+    /**
+     * Disconnect from the current database, closing the read-only
+     * connections before the writer. Anything left in the write-ahead
+     * log is copied back into the database first.
+     */
+    @Override
+    public void disconnect() {
+        closeReaders();
+
+        try (ConnectionLease lease = leaseWriter();
+             Statement statement = lease.getConnection().createStatement()) {
+            statement.execute("PRAGMA wal_checkpoint(TRUNCATE)");
+        } catch (SQLException e) {
+            logger.warn("Failed to checkpoint the write-ahead log. Cause: ", e);
+        }
+
+        super.disconnect();
+    }
+
+    /**
+     * Close every read-only connection that was opened, after taking
+     * them out of the pool so no more of them are borrowed.
+     */
+    private void closeReaders() {
+        Pool closing = pool;
+        pool = EMPTY;
+        close(closing.opened());
+    }
+
+    /**
+     * Close read-only connections along with their statements.
+     *
+     * @param readers The connections.
+     */
+    private static void close(List<StatementCache> readers) {
+        for (StatementCache reader : readers) {
+            reader.clear();
+
+            try {
+                reader.getConnection().close();
+            } catch (SQLException e) {
+                logger.error("Failed to close read-only connection. Cause: ", e);
+            }
+        }
+    }
+}
@@ -1,7 +1,11 @@
 package cypher.enforcers.data.implementations;
 
 import cypher.enforcers.data.spis.DatabaseService;
+import cypher.enforcers.utilities.CacheStatistics;
 import cypher.enforcers.utilities.Utilities;
+import cypher.enforcers.utilities.sqliteutilities.ConnectionLease;
+import cypher.enforcers.utilities.sqliteutilities.SchemaMigrator;
+import cypher.enforcers.utilities.sqliteutilities.StatementCache;
 import org.apache.commons.io.FilenameUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -9,6 +13,8 @@ import org.sqlite.SQLiteConfig;
 
 import java.io.File;
 import java.sql.*;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
  Implementation for the database service. This service acts as a way to
@@ -23,9 +29,18 @@ public class SQLiteHelper implements DatabaseService {
     /** Default name of the database. */
     private static final String DEFAULT_NAME = "database/database.db";
 
+    /** How long to wait for a connection before giving up, in milliseconds. */
+    protected static final long TIMEOUT = 5000;
+
     /** Connection to the database. */
     private Connection connection;
 
+    /** Prepared statements for the connection. */
+    private StatementCache statementCache;
+
+    /** Makes sure only one thread is using the connection at a time. */
+    private final ReentrantLock lock = new ReentrantLock();
+
     /**
      * Create a new SQLite helper to interact with an SQLite database.
      * <br>
@@ -43,17 +58,8 @@ public class SQLiteHelper implements DatabaseService {
     @Override
     public void connect(String name) {
         try {
-            Utilities.copyResourceFileIf(name);
-
-            SQLiteConfig configurations = new SQLiteConfig();
-            configurations.enforceForeignKeys(true);
-            connection = DriverManager.getConnection(
-                    "jdbc:sqlite:" +
-                            Utilities.getParentDirectory() +
-                            File.separator +
-                            FilenameUtils.getName(name),
-                    configurations.toProperties()
-            );
+            connection = open(name);
+            statementCache = new StatementCache(connection);
         } catch (SQLException | NullPointerException e) {
             logger.warn("Connection to database failed. No new changes will be saved. Cause: ", e);
             return;
@@ -62,6 +68,69 @@ public class SQLiteHelper implements DatabaseService {
         logger.info("Database connected.");
     }
 
+    /**
+     * Open the connection used to make changes to a database, with its
+     * schema up to date. The database is copied out of the resources
+     * folder first if it isn't there already.
+     *
+     * @param name name of the database to connect to.
+     * @return The connection.
+     * @throws SQLException If the connection could not be made, or the
+     * schema could not be brought up to date.
+     * @throws NullPointerException If the database doesn't exist and
+     * can't be found in the resources folder either.
+     */
+    protected Connection open(String name) throws SQLException, NullPointerException {
+        // Databases that already exist (such as ones created outside
+        // of this application) don't need to be in the resources folder.
+        File file = new File(Utilities.getParentDirectory(), FilenameUtils.getName(name));
+        if (!file.exists()) {
+            Utilities.copyResourceFileIf(name);
+        }
+
+        Connection opened = openConnection(name, createConfiguration());
+
+        try {
+            SchemaMigrator.migrate(opened);
+        } catch (SQLException e) {
+            opened.close();
+            throw e;
+        }
+
+        return opened;
+    }
+
+    /**
+     * Create the configurations used for every connection made to
+     * the database.
+     *
+     * @return The configurations.
+     */
+    protected SQLiteConfig createConfiguration() {
+        SQLiteConfig configurations = new SQLiteConfig();
+        configurations.enforceForeignKeys(true);
+        return configurations;
+    }
+
+    /**
+     * Open a new connection to a database that has already been copied
+     * out of the resources folder.
+     *
+     * @param name name of the database to connect to.
+     * @param configurations The configurations for the connection.
+     * @return The connection.
+     * @throws SQLException If the connection could not be made.
+     */
+    protected Connection openConnection(String name, SQLiteConfig configurations) throws SQLException {
+        return DriverManager.getConnection(
+                "jdbc:sqlite:" +
+                        Utilities.getParentDirectory() +
+                        File.separator +
+                        FilenameUtils.getName(name),
+                configurations.toProperties()
+        );
+    }
+
     /**
      * Connect to the database with the default properties.
      */
@@ -79,11 +148,67 @@ public class SQLiteHelper implements DatabaseService {
         return this.connection;
     }
 
+    /**
+     * Borrow the connection to read from the database, waiting if
+     * another thread has it.
+     *
+     * @return A lease on the connection.
+     * @throws SQLException If the connection was not returned in time.
+     */
+    @Override
+    public ConnectionLease leaseReader() throws SQLException {
+        return leaseWriter();
+    }
+
+    /**
+     * Borrow the connection to make changes to the database, waiting if
+     * another thread has it.
+     *
+     * @return A lease on the connection.
+     * @throws SQLException If the connection was not returned in time.
+     */
+    @Override
+    public ConnectionLease leaseWriter() throws SQLException {
+        try {
+            if (!lock.tryLock(TIMEOUT, TimeUnit.MILLISECONDS)) {
+                throw new SQLException("Timed out waiting for the connection.");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for the connection.", e);
+        }
+
+        if (statementCache == null) {
+            return new ConnectionLease(connection, lock::unlock);
+        }
+
+        return new ConnectionLease(statementCache, lock::unlock);
+    }
+
+    /**
+     * Get how often queries were found in the prepared statement cache
+     * of the connection.
+     *
+     * @return The hits and misses so far.
+     */
+    @Override
+    public CacheStatistics getStatementCacheStatistics() {
+        if (statementCache == null) {
+            return new CacheStatistics(0, 0);
+        }
+
+        return statementCache.getStatistics();
+    }
+
     /**
      * Disconnect from the current database.
      */
     @Override
     public void disconnect() {
+        if (statementCache != null) {
+            statementCache.clear();
+        }
+
         try {
             connection.close();
         } catch (SQLException e) {
@@ -0,0 +1,128 @@
+package cypher.enforcers.data.implementations;
+
+import cypher.enforcers.data.entities.SessionEntity;
+import cypher.enforcers.data.spis.DatabaseService;
+import cypher.enforcers.data.spis.SessionDAO;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.SQLException;
+
+/**
+ * Implementation for the Session Data Access Object (DAO) to communicate
+ * to the database and make changes to any information related to the
+ * sessions.
+ */
+public class SessionDAOImpl implements SessionDAO {
+
+    /** SQLite query to insert a session into the database and return it. */
+    private static final String ADD_SESSION = "INSERT INTO sessions (token, user_id, created, last_seen) VALUES (?, ?, ?, ?) RETURNING *";
+
+    /** SQLite query to select the most recently used session. */
+    private static final String GET_LATEST_SESSION = "SELECT * FROM sessions ORDER BY last_seen DESC LIMIT 1";
+
+    /** SQLite query to update when a session was last used. */
+    private static final String UPDATE_LAST_SEEN = "UPDATE sessions SET last_seen = ? WHERE token = ? RETURNING *";
+
+    /** SQLite query to delete every session for a user. */
+    private static final String DELETE_SESSIONS = "DELETE FROM sessions WHERE user_id = ?";
+
+    /** Logger for the session data access object. */
+    private static final Logger logger = LoggerFactory.getLogger(SessionDAOImpl.class);
+
+    /** Service to communicate to the database. */
+    private final DatabaseService databaseService;
+
+    /**
+     * Create a new Session Data Access Object to load sessions from a
+     * database.
+     *
+     * @param service The service that provides a connection to the
+     *                database.
+     */
+    public SessionDAOImpl(DatabaseService service) {
+        this.databaseService = service;
+    }
+
+    /**
+     * Insert a new session into the database.
+     *
+     * @param session The session to insert.
+     * @return The session if it was added, null otherwise.
+     */
+    @Override
+    public SessionEntity addSession(SessionEntity session) {
+        logger.trace("Adding session for user with ID {}.", session.getUserId());
+
+        try {
+            return databaseService.executeUpdateReturning(ADD_SESSION, SessionEntity.class,
+                    session.getToken(), session.getUserId(), session.getCreated(), session.getLastSeen());
+        } catch (SQLException e) {
+            databaseService.failTransaction(e);
+            logger.debug("Failed insert query. Cause: ", e);
+        }
+
+        return null;
+    }
+
+    /**
+     * Get the session that was used most recently.
+     *
+     * @return The session if any exist, null otherwise.
+     */
+    @Override
+    public SessionEntity getLatestSession() {
+        logger.trace("Getting latest session.");
+
+        try {
+            return databaseService.executeSelect(GET_LATEST_SESSION, SessionEntity.class);
+        } catch (SQLException e) {
+            databaseService.failTransaction(e);
+            logger.debug("Failed select query. Cause: ", e);
+        }
+
+        return null;
+    }
+
+    /**
+     * Update when a session was last used.
+     *
+     * @param token Token of the session.
+     * @param lastSeen When the session was last used, in milliseconds
+     *                 since the epoch.
+     * @return The session with the updated data if found, null otherwise.
+     */
+    @Override
+    public SessionEntity updateLastSeen(String token, long lastSeen) {
+        try {
+            return databaseService.executeUpdateReturning(UPDATE_LAST_SEEN, SessionEntity.class, lastSeen, token);
+        } catch (SQLException e) {
+            databaseService.failTransaction(e);
+            logger.debug("Failed update query. Cause: ", e);
+        }
+
+        return null;
+    }
+
+    /**
+     * Remove every session for a user.
+     *
+     * @param userID ID of the user.
+     * @return True if the sessions were removed, or if there were none,
+     * false otherwise.
+     */
+    @Override
+    public boolean removeSessions(long userID) {
+        logger.trace("Removing sessions for user with ID {}.", userID);
+
+        try {
+            databaseService.executeUpdate(DELETE_SESSIONS, userID);
+            return true;
+        } catch (SQLException e) {
+            databaseService.failTransaction(e);
+            logger.debug("Failed delete query. Cause: ", e);
+        }
+
+        return false;
+    }
+}
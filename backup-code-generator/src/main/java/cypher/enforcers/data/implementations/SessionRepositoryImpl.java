@@ -0,0 +1,107 @@
+package cypher.enforcers.data.implementations;
+
+import cypher.enforcers.data.entities.SessionEntity;
+import cypher.enforcers.data.spis.SessionDAO;
+import cypher.enforcers.data.spis.SessionRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.security.SecureRandom;
+import java.util.HexFormat;
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * Implementation for the Session Repository to work with the sessions
+ * as a collection.
+ */
+public class SessionRepositoryImpl implements SessionRepository {
+
+    /** Number of random bytes in a session token. */
+    private static final int TOKEN_LENGTH = 32;
+
+    /** Logger for the session repository. */
+    private static final Logger logger = LoggerFactory.getLogger(SessionRepositoryImpl.class);
+
+    /** Generates the session tokens. */
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    /** To make updates to the database. */
+    private final SessionDAO sessionDAO;
+
+    /**
+     * Create a new Session Repository linked to a Session Data Access
+     * Object to work with the sessions as a collection.
+     *
+     * @param dao The Session Data Access Object.
+     */
+    public SessionRepositoryImpl(SessionDAO dao) {
+        this.sessionDAO = dao;
+    }
+
+    /**
+     * Start a new session for a user.
+     *
+     * @param userID ID of the user.
+     * @return An Optional containing the session if created successfully,
+     * null otherwise.
+     */
+    @Override
+    public Optional<SessionEntity> create(long userID) {
+        byte[] token = new byte[TOKEN_LENGTH];
+        RANDOM.nextBytes(token);
+
+        long now = System.currentTimeMillis();
+        SessionEntity session = sessionDAO.addSession(
+                new SessionEntity(HexFormat.of().formatHex(token), userID, now, now)
+        );
+
+        if (Objects.isNull(session)) {
+            logger.warn("Failed to create session for user with ID {}.", userID);
+            return Optional.empty();
+        }
+
+        logger.trace("Session created for user with ID {}.", userID);
+        return Optional.of(session);
+    }
+
+    /**
+     * Find the session that was used most recently, which belongs to
+     * the current user.
+     *
+     * @return An Optional containing the session if found, null otherwise.
+     */
+    @Override
+    public Optional<SessionEntity> findLatest() {
+        return Optional.ofNullable(sessionDAO.getLatestSession());
+    }
+
+    /**
+     * Mark a session as used right now.
+     *
+     * @param token Token of the session.
+     * @return An Optional containing the session if updated, null
+     * otherwise.
+     */
+    @Override
+    public Optional<SessionEntity> touch(String token) {
+        return Optional.ofNullable(sessionDAO.updateLastSeen(token, System.currentTimeMillis()));
+    }
+
+    /**
+     * End every session for a user.
+     *
+     * @param userID ID of the user.
+     * @return True if the sessions were ended, false otherwise.
+     */
+    @Override
+    public boolean deleteAll(long userID) {
+        if (sessionDAO.removeSessions(userID)) {
+            logger.trace("Sessions ended for user with ID {}.", userID);
+            return true;
+        }
+
+        logger.warn("Failed to end sessions for user with ID {}.", userID);
+        return false;
+    }
+}
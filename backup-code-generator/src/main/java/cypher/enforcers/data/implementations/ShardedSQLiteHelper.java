@@ -0,0 +1,386 @@
+package cypher.enforcers.data.implementations;
+
+import cypher.enforcers.data.entities.ShardEntity;
+import cypher.enforcers.data.entities.UserEntity;
+import cypher.enforcers.data.spis.DatabaseService;
+import cypher.enforcers.data.spis.ShardRouter;
+import cypher.enforcers.utilities.CacheStatistics;
+import cypher.enforcers.utilities.Utilities;
+import cypher.enforcers.utilities.sqliteutilities.ConnectionLease;
+import cypher.enforcers.utilities.sqliteutilities.SchemaMigrator;
+import cypher.enforcers.utilities.sqliteutilities.UncheckedSQLException;
+import org.apache.commons.io.FilenameUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Objects;
+import java.util.function.Supplier;
+
+/**
+ Implementation for the database service that keeps the accounts and
+ codes of each user in a database file of their own, so one user making
+ lots of changes never locks the database of another.
+ <br>
+ The users and their sessions stay in a directory database, along with
+ which file belongs to which user. Every query sent to this service goes
+ to the database of the user it was last routed to, which is done once
+ they've been authenticated. Until then, there's no connection.
+ <br>
+ Each user's database also has a row for them in its users table, only
+ so the accounts in it have a user to belong to. Their username, password
+ and theme are only kept up to date in the directory.
+ */
+public class ShardedSQLiteHelper implements DatabaseService, ShardRouter {
+
+    /** Logger for the sharded SQLite helper. */
+    private static final Logger logger = LoggerFactory.getLogger(ShardedSQLiteHelper.class);
+
+    /** Query to find the database of a user. */
+    private static final String GET_SHARD = "SELECT * FROM shards WHERE user_id = ?";
+
+    /** Query to record the database of a user. */
+    private static final String ADD_SHARD = "INSERT INTO shards (user_id, file) VALUES (?, ?) RETURNING *";
+
+    /** Query to read a user. */
+    private static final String GET_USER = "SELECT * FROM users WHERE id = ?";
+
+    /**
+     * Query to add a user to their own database. The password is never
+     * checked there, so it's left out.
+     */
+    private static final String ADD_USER = "INSERT OR IGNORE INTO users (id, username, password) VALUES (?, ?, '*')";
+
+    /** Name used for databases when the directory isn't a file. */
+    private static final String DEFAULT_PREFIX = "database";
+
+    /** The database with the users, their sessions, and their databases. */
+    private final DatabaseService directory;
+
+    /** Creates the service for the database of a user. */
+    private final Supplier<DatabaseService> shards;
+
+    /** Start of the file name of each user's database. */
+    private String prefix = DEFAULT_PREFIX;
+
+    /** Database of the user this service is routed to, null if none. */
+    private volatile DatabaseService shard;
+
+    /** ID of the user this service is routed to. */
+    private long shardUserID = -1;
+
+    /** Runs before switching to the database of another user. */
+    private Runnable beforeSwitch = () -> { };
+
+    /**
+     * Create a new sharded SQLite helper, using a single connection to
+     * the database of each user.
+     *
+     * @param directory The database service for the directory, which is
+     *                  connected when this service is.
+     */
+    public ShardedSQLiteHelper(DatabaseService directory) {
+        this(directory, SQLiteHelper::new);
+    }
+
+    /**
+     * Create a new sharded SQLite helper.
+     *
+     * @param directory The database service for the directory, which is
+     *                  connected when this service is.
+     * @param shards Creates the database service used for the database
+     *               of each user.
+     */
+    public ShardedSQLiteHelper(DatabaseService directory, Supplier<DatabaseService> shards) {
+        this.directory = directory;
+        this.shards = shards;
+    }
+
+    /**
+     * Get the database service for the directory, which has the users
+     * and their sessions.
+     *
+     * @return The directory.
+     */
+    public DatabaseService getDirectory() {
+        return directory;
+    }
+
+    /**
+     * Get the path of the file the directory is kept in.
+     *
+     * @return The path, empty if the directory isn't kept in a file.
+     * @throws SQLException If the path could not be found.
+     */
+    public String getDirectoryFile() throws SQLException {
+        if (directory.noConnection()) {
+            throw new SQLException("No connection.");
+        }
+
+        try (ConnectionLease lease = directory.leaseReader();
+             Statement statement = lease.getConnection().createStatement();
+             ResultSet resultSet = statement.executeQuery("PRAGMA database_list")) {
+            while (resultSet.next()) {
+                if ("main".equals(resultSet.getString("name"))) {
+                    String file = resultSet.getString("file");
+                    return file == null ? "" : file;
+                }
+            }
+        }
+
+        return "";
+    }
+
+    /**
+     * Set what to do before switching to the database of another user,
+     * such as writing any changes still waiting to be written. If it
+     * throws an UncheckedSQLException, the switch doesn't happen.
+     *
+     * @param beforeSwitch What to do.
+     */
+    public synchronized void setBeforeSwitch(Runnable beforeSwitch) {
+        this.beforeSwitch = Objects.requireNonNull(beforeSwitch);
+    }
+
+    /**
+     * Connect to the directory by providing the name. The database of
+     * each user is kept next to it.
+     *
+     * @param name name of the directory to connect to.
+     */
+    @Override
+    public void connect(String name) {
+        directory.connect(name);
+        prefix = findPrefix();
+    }
+
+    /**
+     * Connect to the directory with the default properties.
+     */
+    @Override
+    public void connect() {
+        directory.connect();
+        prefix = findPrefix();
+    }
+
+    /**
+     * Point this service at the database of a user, creating it if they
+     * don't have one yet.
+     *
+     * @param userID ID of the user.
+     * @return True if the database of the user is ready, false otherwise.
+     */
+    @Override
+    public synchronized boolean route(long userID) {
+        if (shard != null && shardUserID == userID) {
+            return true;
+        }
+
+        DatabaseService opened = null;
+        try {
+            opened = open(userID);
+            beforeSwitch.run();
+        } catch (SQLException | UncheckedSQLException e) {
+            logger.warn("Unable to switch to the database of user with ID {}. Cause: ", userID, e);
+            if (opened != null) {
+                opened.disconnect();
+            }
+
+            return false;
+        }
+
+        DatabaseService previous = shard;
+        shard = opened;
+        shardUserID = userID;
+
+        if (previous != null) {
+            previous.disconnect();
+        }
+
+        logger.info("Switched to the database of user with ID {}.", userID);
+        return true;
+    }
+
+    /**
+     * Stop using the database of the current user, if any.
+     */
+    @Override
+    public synchronized void leave() {
+        if (shard == null) {
+            return;
+        }
+
+        try {
+            beforeSwitch.run();
+        } catch (UncheckedSQLException e) {
+            logger.warn("Failed to finish with the database of user with ID {}. Cause: ", shardUserID, e);
+        }
+
+        shard.disconnect();
+        shard = null;
+        shardUserID = -1;
+    }
+
+    /**
+     * Get the connection to the database of the current user.
+     *
+     * @return The connection, null if not routed to any user.
+     */
+    @Override
+    public Connection getConnection() {
+        DatabaseService current = shard;
+        return current == null ? null : current.getConnection();
+    }
+
+    /**
+     * Borrow a connection that can be used to read from the database of
+     * the current user.
+     *
+     * @return A lease on a connection that can be used for reading.
+     * @throws SQLException If not routed to any user, or no connection
+     * could be borrowed.
+     */
+    @Override
+    public ConnectionLease leaseReader() throws SQLException {
+        return current().leaseReader();
+    }
+
+    /**
+     * Borrow the connection that's used to make changes to the database
+     * of the current user.
+     *
+     * @return A lease on the connection that can be used for writing.
+     * @throws SQLException If not routed to any user, or the connection
+     * could not be borrowed.
+     */
+    @Override
+    public ConnectionLease leaseWriter() throws SQLException {
+        return current().leaseWriter();
+    }
+
+    /**
+     * Get how often queries were found in the prepared statement cache
+     * of the database of the current user.
+     *
+     * @return The hits and misses so far.
+     */
+    @Override
+    public CacheStatistics getStatementCacheStatistics() {
+        DatabaseService current = shard;
+        return current == null ? new CacheStatistics(0, 0) : current.getStatementCacheStatistics();
+    }
+
+    /**
+     * Disconnect from the database of the current user, and then the
+     * directory.
+     */
+    @Override
+    public void disconnect() {
+        leave();
+        directory.disconnect();
+    }
+
+    /**
+     * Get the database of the current user.
+     *
+     * @return The database service.
+     * @throws SQLException If not routed to any user.
+     */
+    private DatabaseService current() throws SQLException {
+        DatabaseService current = shard;
+        if (current == null) {
+            throw new SQLException("No user to route to.");
+        }
+
+        return current;
+    }
+
+    /**
+     * Connect to the database of a user, creating it and adding it to
+     * the directory if they don't have one yet.
+     *
+     * @param userID ID of the user.
+     * @return The database service, connected.
+     * @throws SQLException If the database could not be found, created or
+     * connected to.
+     */
+    private DatabaseService open(long userID) throws SQLException {
+        UserEntity user = directory.executeSelect(GET_USER, UserEntity.class, userID);
+        if (user == null) {
+            throw new SQLException("User with ID " + userID + " does not exist.");
+        }
+
+        ShardEntity entry = directory.executeSelect(GET_SHARD, ShardEntity.class, userID);
+        if (entry == null) {
+            String file = prefix + "_user_" + userID + ".db";
+            create(file);
+
+            entry = directory.executeUpdateReturning(ADD_SHARD, ShardEntity.class, userID, file);
+            if (entry == null) {
+                throw new SQLException("Unable to add the database of user with ID " + userID + " to the directory.");
+            }
+
+            logger.info("Created database {} for user with ID {}.", file, userID);
+        }
+
+        DatabaseService service = shards.get();
+        service.connect(entry.getFile());
+
+        try {
+            if (service.noConnection()) {
+                throw new SQLException("Unable to connect to " + entry.getFile() + ".");
+            }
+
+            service.executeUpdate(ADD_USER, userID, user.getUsername());
+            if (service.executeSelect(GET_USER, UserEntity.class, userID) == null) {
+                throw new SQLException("Unable to add user with ID " + userID + " to " + entry.getFile() + ".");
+            }
+        } catch (SQLException e) {
+            if (service.getConnection() != null) {
+                service.disconnect();
+            }
+
+            throw e;
+        }
+
+        return service;
+    }
+
+    /**
+     * Create an empty database next to the directory, with the latest
+     * schema. Nothing happens if it already exists.
+     *
+     * @param file Name of the database.
+     * @throws SQLException If the database could not be created.
+     */
+    private static void create(String file) throws SQLException {
+        try (Connection connection = DriverManager.getConnection(
+                "jdbc:sqlite:" + Utilities.getParentDirectory() + File.separator + file)) {
+            SchemaMigrator.bootstrap(connection);
+        }
+    }
+
+    /**
+     * Work out how the database of each user should be named, from the
+     * name of the directory.
+     *
+     * @return The start of the name.
+     */
+    private String findPrefix() {
+        try {
+            String file = getDirectoryFile();
+            if (!file.isEmpty()) {
+                return FilenameUtils.getBaseName(file);
+            }
+        } catch (SQLException e) {
+            logger.warn("Unable to find the directory file. Cause: ", e);
+        }
+
+        return DEFAULT_PREFIX;
+    }
+}
@@ -14,29 +14,36 @@ import java.sql.SQLException;
  */
 public class UserDAOImpl implements UserDAO {
 
-    /** SQLite query to insert a user into the database. */
-    private static final String ADD_USER = "INSERT INTO users (username, password) VALUES (?, ?)";
-
     /**
-     * SQLite query to select the most recent user that was added
-     * into the database.
+     * Column that's 1 if a user has a session, 0 otherwise. A user is
+     * logged in while they have a session.
      */
-    private static final String GET_USER_AFTER_ADDING = "SELECT * FROM users WHERE id = last_insert_rowid()";
+    private static final String LOGGED_IN = "EXISTS (SELECT 1 FROM sessions WHERE sessions.user_id = users.id) AS logged_in";
+
+    /** SQLite query to insert a user into the database and return it. */
+    private static final String ADD_USER = "INSERT INTO users (username, password) VALUES (?, ?) RETURNING *, " + LOGGED_IN;
 
     /** SQLite query to update a user in the database. */
-    private static final String UPDATE_USER = "UPDATE users SET theme_value = ?, logged_in = ? WHERE id = ?";
+    private static final String UPDATE_USER = "UPDATE users SET theme_value = ?, password = ? WHERE id = ? RETURNING *, " + LOGGED_IN;
+
+    /**
+     * SQLite query to delete a user from the database, their sessions
+     * go with them.
+     */
+    private static final String DELETE_USER = "DELETE FROM users WHERE id = ? RETURNING *, 0 AS logged_in";
 
     /** SQLite query to select a user by ID from the database. */
-    private static final String GET_USER_BY_ID = "SELECT * FROM users WHERE id = ?";
+    private static final String GET_USER_BY_ID = "SELECT *, " + LOGGED_IN + " FROM users WHERE id = ?";
 
     /** SQLite query to select a user by their username in this database. */
-    private static final String GET_USER_BY_NAME = "SELECT * FROM users WHERE username = ?";
+    private static final String GET_USER_BY_NAME = "SELECT *, " + LOGGED_IN + " FROM users WHERE username = ?";
 
     /**
-     * SQLite query to select the user that's currently logged in, in this
-     * database.
+     * SQLite query to select the user with the most recently used
+     * session, in this database.
      */
-    private static final String GET_LOGGED_IN_USER = "SELECT * FROM users WHERE logged_in = 1";
+    private static final String GET_LOGGED_IN_USER = "SELECT users.*, 1 AS logged_in FROM sessions "
+            + "JOIN users ON users.id = sessions.user_id ORDER BY sessions.last_seen DESC LIMIT 1";
 
     /** Logger for the user data access object. */
     private static final Logger logger = LoggerFactory.getLogger(UserDAOImpl.class);
@@ -66,10 +73,9 @@ public class UserDAOImpl implements UserDAO {
         logger.trace("Now making update to the users table.");
 
         try {
-            databaseService.executeUpdate(ADD_USER, user);
-
-            return databaseService.executeSelect(GET_USER_AFTER_ADDING, UserEntity.class);
+            return databaseService.executeUpdateReturning(ADD_USER, user, UserEntity.class);
         } catch (SQLException e) {
+            databaseService.failTransaction(e);
             logger.debug("Failed insert query. Cause: ", e);
             return null;
         }
@@ -88,6 +94,7 @@ public class UserDAOImpl implements UserDAO {
         try {
             return databaseService.executeSelect(GET_USER_BY_ID, UserEntity.class, id);
         } catch (SQLException e) {
+            databaseService.failTransaction(e);
             logger.debug("Failed select query. Cause: ", e);
         }
 
@@ -107,6 +114,7 @@ public class UserDAOImpl implements UserDAO {
         try {
             return databaseService.executeSelect(GET_USER_BY_NAME, UserEntity.class, username);
         } catch (SQLException e) {
+            databaseService.failTransaction(e);
             logger.debug("Failed select query. Cause: ", e);
         }
 
@@ -114,7 +122,7 @@ public class UserDAOImpl implements UserDAO {
     }
 
     /**
-     * Get the data for the user that has a login status of true.
+     * Get the data for the user with the most recently used session.
      *
      * @return The user if any user is logged in, null otherwise.
      */
@@ -125,6 +133,7 @@ public class UserDAOImpl implements UserDAO {
         try {
             return databaseService.executeSelect(GET_LOGGED_IN_USER, UserEntity.class);
         } catch (SQLException e) {
+            databaseService.failTransaction(e);
             logger.debug("Failed select query. Cause: ", e);
         }
 
@@ -132,7 +141,8 @@ public class UserDAOImpl implements UserDAO {
     }
 
     /**
-     * Update a user in the database.
+     * Update a user in the database. Only the theme and password are
+     * changed, whether the user is logged in depends on their sessions.
      *
      * @param user The user to update.
      * @return User object with the updated data if successfully found,
@@ -141,14 +151,31 @@ public class UserDAOImpl implements UserDAO {
     @Override
     public UserEntity updateUser(UserEntity user) {
         try {
-            int status = user.getLoggedIn() ? 1 : 0;
-            databaseService.executeUpdate(UPDATE_USER, user.getTheme().ordinal(), status, user.getID());
-
-            return databaseService.executeSelect(GET_USER_BY_ID, UserEntity.class, user.getID());
+            return databaseService.executeUpdateReturning(UPDATE_USER, UserEntity.class, user.getTheme().ordinal(), user.getPassword(), user.getID());
         } catch (SQLException e) {
+            databaseService.failTransaction(e);
             logger.debug("Failed update query. Cause: ", e);
             return null;
         }
 
     }
+
+    /**
+     * Remove a user from the database. Their sessions are removed along
+     * with them.
+     *
+     * @param id ID of the user to remove.
+     * @return User if removed, null otherwise.
+     */
+    @Override
+    public UserEntity removeUser(long id) {
+        try {
+            return databaseService.executeUpdateReturning(DELETE_USER, UserEntity.class, id);
+        } catch (SQLException e) {
+            databaseService.failTransaction(e);
+            logger.debug("Failed delete query. Cause: ", e);
+        }
+
+        return null;
+    }
 }
\ No newline at end of file
@@ -135,4 +135,25 @@ public class UserRepositoryImpl implements UserRepository {
         return Optional.empty();
     }
 
+    /**
+     * Delete a user, along with their sessions.
+     *
+     * @param id ID of the user to delete.
+     * @return An Optional containing the user if deleted, null otherwise.
+     */
+    @Override
+    public Optional<UserEntity> delete(long id) {
+        logger.trace("Attempting to delete user with ID {}.", id);
+
+        UserEntity deletedUser = userDAO.removeUser(id);
+
+        if (!Objects.isNull(deletedUser)) {
+            logger.trace("User deleted successfully.");
+            return Optional.of(deletedUser);
+        }
+
+        logger.warn("Unable to delete user with ID {}.", id);
+        return Optional.empty();
+    }
+
 }
\ No newline at end of file
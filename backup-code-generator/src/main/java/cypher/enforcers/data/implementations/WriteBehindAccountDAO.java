@@ -0,0 +1,137 @@
+package cypher.enforcers.data.implementations;
+
+import cypher.enforcers.data.entities.AccountEntity;
+import cypher.enforcers.data.spis.AccountDAO;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.SQLException;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ Account Data Access Object (DAO) that adds accounts through a
+ write-behind queue, so a new account is committed together with any
+ edits still waiting in the queue.
+ <br>
+ Everything else is handed to another Account DAO, after the queue has
+ been flushed so it always sees the latest changes.
+ */
+public class WriteBehindAccountDAO implements AccountDAO {
+
+    /** SQLite query to insert an account into the database and return it. */
+    private static final String ADD_ACCOUNT = "INSERT INTO accounts (user_id, name, type) VALUES (?, ?, ?) RETURNING *";
+
+    /** Logger for the write-behind account data access object. */
+    private static final Logger logger = LoggerFactory.getLogger(WriteBehindAccountDAO.class);
+
+    /** Handles everything that isn't queued. */
+    private final AccountDAO accountDAO;
+
+    /** Holds the edits until they're written. */
+    private final WriteBehindQueue queue;
+
+    /**
+     * Create a new write-behind Account Data Access Object.
+     *
+     * @param dao The Account Data Access Object that handles everything
+     *            that isn't queued.
+     * @param queue The queue new accounts are written with.
+     */
+    public WriteBehindAccountDAO(AccountDAO dao, WriteBehindQueue queue) {
+        this.accountDAO = dao;
+        this.queue = queue;
+    }
+
+    /**
+     * Get all accounts for a user.
+     *
+     * @param userID The ID of the user.
+     * @return List of accounts. Returns null if no accounts
+     * are found.
+     */
+    @Override
+    public List<AccountEntity> getAccounts(long userID) {
+        return flush() ? accountDAO.getAccounts(userID) : null;
+    }
+
+    /**
+     * Get an account by ID.
+     *
+     * @param accountID ID of the account to retrieve.
+     * @return Account if found, null otherwise.
+     */
+    @Override
+    public AccountEntity getAccount(long accountID) {
+        return flush() ? accountDAO.getAccount(accountID) : null;
+    }
+
+    /**
+     * Add an account in the same transaction as the pending changes.
+     * The account is needed right away for its ID, so it isn't queued.
+     *
+     * @param account Account to add.
+     * @return Account if added, null otherwise.
+     */
+    @Override
+    public AccountEntity addAccount(AccountEntity account) {
+        try {
+            return queue.write(ADD_ACCOUNT, AccountEntity.class,
+                    account.getUserId(), account.getName(), account.getSocialMediaType());
+        } catch (SQLException e) {
+            logger.debug("Failed insert query. Cause: ", e);
+        }
+
+        return null;
+    }
+
+    /**
+     * Remove an account.
+     *
+     * @param id ID of the account to delete.
+     * @return Account if deleted, null otherwise.
+     */
+    @Override
+    public AccountEntity removeAccount(long id) {
+        return flush() ? accountDAO.removeAccount(id) : null;
+    }
+
+    /**
+     * Remove many accounts at once. Either all the accounts are
+     * removed, or none of them are.
+     *
+     * @param ids IDs of the accounts to delete.
+     * @return Accounts that were deleted, null otherwise.
+     */
+    @Override
+    public List<AccountEntity> removeAccounts(Collection<Long> ids) {
+        return flush() ? accountDAO.removeAccounts(ids) : null;
+    }
+
+    /**
+     * Remove all accounts for a user given the ID.
+     *
+     * @param userID ID of the user.
+     * @return Accounts that we deleted, null otherwise.
+     */
+    @Override
+    public List<AccountEntity> clearAllAccounts(long userID) {
+        return flush() ? accountDAO.clearAllAccounts(userID) : null;
+    }
+
+    /**
+     * Write every pending change before going to the database.
+     *
+     * @return True if the pending changes were written, false otherwise.
+     */
+    private boolean flush() {
+        try {
+            queue.flush();
+            return true;
+        } catch (SQLException e) {
+            logger.debug("Failed to write pending changes. Cause: ", e);
+        }
+
+        return false;
+    }
+}
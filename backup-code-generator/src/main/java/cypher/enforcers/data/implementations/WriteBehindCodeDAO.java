@@ -0,0 +1,248 @@
+package cypher.enforcers.data.implementations;
+
+import cypher.enforcers.data.entities.CodeEntity;
+import cypher.enforcers.data.spis.CodeDAO;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ Code Data Access Object (DAO) that queues edits and deletes of single
+ codes in a write-behind queue instead of writing them right away. The
+ edits show up in the database the next time the queue is flushed.
+ <br>
+ Everything else is handed to another Code DAO, after the queue has been
+ flushed so it always sees the latest changes.
+ <br>
+ Since an edit is only written later, whether the code exists is checked
+ before queueing it instead. Codes read or added through this DAO are
+ remembered so they don't have to be looked up again, and codes queued to
+ be removed are known to be gone.
+ */
+public class WriteBehindCodeDAO implements CodeDAO {
+
+    /** SQLite query to delete a code by ID from the database. */
+    private static final String DELETE_CODE = "DELETE FROM codes WHERE id = ?";
+
+    /** SQLite query to update a code from the database. */
+    private static final String UPDATE_CODE = "UPDATE codes SET code = ? WHERE id = ?";
+
+    /** Logger for the write-behind code data access object. */
+    private static final Logger logger = LoggerFactory.getLogger(WriteBehindCodeDAO.class);
+
+    /** Handles everything that isn't queued. */
+    private final CodeDAO codeDAO;
+
+    /** Holds the edits until they're written. */
+    private final WriteBehindQueue queue;
+
+    /** IDs of the codes known to exist. */
+    private final Set<Long> existing = ConcurrentHashMap.newKeySet();
+
+    /** IDs of the codes queued to be removed. */
+    private final Set<Long> removed = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Create a new write-behind Code Data Access Object.
+     *
+     * @param dao The Code Data Access Object that handles everything
+     *            that isn't queued.
+     * @param queue The queue edits are added to.
+     */
+    public WriteBehindCodeDAO(CodeDAO dao, WriteBehindQueue queue) {
+        this.codeDAO = dao;
+        this.queue = queue;
+    }
+
+    /**
+     * Get all codes for an account.
+     *
+     * @param id ID of the Account to retrieve the codes for.
+     * @return List of codes. Returns null if any errors occur.
+     */
+    @Override
+    public List<CodeEntity> getCodes(long id) {
+        List<CodeEntity> codes = flush() ? codeDAO.getCodes(id) : null;
+        remember(codes);
+        return codes;
+    }
+
+    /**
+     * Get a code by ID.
+     *
+     * @param codeID ID of the code to retrieve.
+     * @return Code if found, null otherwise.
+     */
+    @Override
+    public CodeEntity getCode(long codeID) {
+        CodeEntity code = flush() ? codeDAO.getCode(codeID) : null;
+        remember(code);
+        return code;
+    }
+
+    /**
+     * Add a code.
+     *
+     * @param code The code to add.
+     * @return Code if successfully added, null otherwise.
+     */
+    @Override
+    public CodeEntity addCode(CodeEntity code) {
+        CodeEntity added = flush() ? codeDAO.addCode(code) : null;
+        remember(added);
+        return added;
+    }
+
+    /**
+     * Add many codes at once. Either all the codes are added, or none
+     * of them are.
+     *
+     * @param codes The codes to add.
+     * @return The codes that were added, null otherwise.
+     */
+    @Override
+    public List<CodeEntity> addCodes(List<CodeEntity> codes) {
+        List<CodeEntity> added = flush() ? codeDAO.addCodes(codes) : null;
+        remember(added);
+        return added;
+    }
+
+    /**
+     * Queue an update to a code. A pending update to the same code is
+     * replaced by this one.
+     *
+     * @param code The code to update.
+     * @return The code with the update data, as it will be once the
+     * queue is flushed. Null if the code doesn't exist or is queued to
+     * be removed.
+     */
+    @Override
+    public CodeEntity updateCode(CodeEntity code) {
+        if (!exists(code.getId())) {
+            return null;
+        }
+
+        queue.update(key(code.getId()), UPDATE_CODE, code.getCode(), code.getId());
+        return code;
+    }
+
+    /**
+     * Queue the removal of a code.
+     *
+     * @param id ID of the code to remove.
+     * @return Code with only its ID set, since the rest of it is not
+     * read before it's removed. Null if the code doesn't exist or is
+     * already queued to be removed.
+     */
+    @Override
+    public CodeEntity removeCode(long id) {
+        if (!exists(id)) {
+            return null;
+        }
+
+        removed.add(id);
+        existing.remove(id);
+        queue.delete(key(id), DELETE_CODE, id);
+
+        CodeEntity code = new CodeEntity();
+        code.setId(id);
+        return code;
+    }
+
+    /**
+     * Remove all codes for an account.
+     *
+     * @param id ID of the account to delete the codes for.
+     * @return The codes deleted, null otherwise.
+     */
+    @Override
+    public List<CodeEntity> clearAllCodes(long id) {
+        List<CodeEntity> codes = flush() ? codeDAO.clearAllCodes(id) : null;
+        if (codes != null) {
+            codes.forEach(code -> existing.remove(code.getId()));
+        }
+
+        return codes;
+    }
+
+    /**
+     * Check if a code exists before queueing a change to it, looking it
+     * up if it wasn't read or added through this DAO.
+     *
+     * @param id ID of the code.
+     * @return True if the code exists and isn't queued to be removed,
+     * false otherwise.
+     */
+    private boolean exists(long id) {
+        if (removed.contains(id)) {
+            return false;
+        }
+
+        if (existing.contains(id)) {
+            return true;
+        }
+
+        // Pending updates don't change whether a code exists, and
+        // pending removals were checked above, so the database can be
+        // asked without writing the queue first.
+        CodeEntity code = codeDAO.getCode(id);
+        remember(code);
+        return code != null;
+    }
+
+    /**
+     * Remember codes that were read or added, so changes to them can be
+     * queued without looking them up.
+     *
+     * @param codes The codes, may be null.
+     */
+    private void remember(List<CodeEntity> codes) {
+        if (codes != null) {
+            codes.forEach(this::remember);
+        }
+    }
+
+    /**
+     * Remember a code that was read or added, so changes to it can be
+     * queued without looking it up. An ID given to a new code may have
+     * belonged to one that was removed.
+     *
+     * @param code The code, may be null.
+     */
+    private void remember(CodeEntity code) {
+        if (code != null) {
+            removed.remove(code.getId());
+            existing.add(code.getId());
+        }
+    }
+
+    /**
+     * Write every pending change before going to the database.
+     *
+     * @return True if the pending changes were written, false otherwise.
+     */
+    private boolean flush() {
+        try {
+            queue.flush();
+            return true;
+        } catch (SQLException e) {
+            logger.debug("Failed to write pending changes. Cause: ", e);
+        }
+
+        return false;
+    }
+
+    /**
+     * Get the key a code is queued under.
+     *
+     * @param id ID of the code.
+     * @return The key.
+     */
+    private static String key(long id) {
+        return "codes/" + id;
+    }
+}
@@ -0,0 +1,530 @@
+package cypher.enforcers.data.implementations;
+
+import cypher.enforcers.data.spis.DatabaseService;
+import cypher.enforcers.utilities.sqliteutilities.ArgumentSetters;
+import cypher.enforcers.utilities.sqliteutilities.Retrievers;
+import cypher.enforcers.utilities.sqliteutilities.SQLFunction;
+import cypher.enforcers.utilities.sqliteutilities.Transaction;
+import cypher.enforcers.utilities.sqliteutilities.TriConsumer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ Holds on to changes made to the database and writes them later, all at
+ once, in a single transaction. Changes to the same row are merged so
+ only the last one is written, for example editing the same code three
+ times in a row only writes the last edit.
+ <br>
+ Pending changes are written on a short interval, before anything else
+ talks to the database through {@link #flush()} or
+ {@link #write(String, Class, Object...)}, and one last time when the
+ queue is shut down.
+ <br>
+ If a group of changes fails to be written, each change is tried again on
+ its own, so one bad change doesn't hold back the rest. Changes that
+ still fail go back in the queue and are tried again with the next group,
+ unless the same row was changed again in the meantime. Changes that keep failing are eventually dropped, and whoever
+ listens through {@link #setOnFailure(Consumer)} is told so they can undo
+ them.
+ */
+public class WriteBehindQueue {
+
+    /** Logger for the write-behind queue. */
+    private static final Logger logger = LoggerFactory.getLogger(WriteBehindQueue.class);
+
+    /** How often pending changes are written by default, in milliseconds. */
+    public static final long DEFAULT_INTERVAL = 200;
+
+    /** Most times a change is tried before it's dropped. */
+    public static final int MAX_ATTEMPTS = 5;
+
+    /**
+     * A change waiting to be written.
+     *
+     * @param query The query that makes the change.
+     * @param arguments The values to be used as placeholders.
+     * @param deletes If this change deletes the row.
+     * @param done Completes once the change has been committed.
+     * @param attempts How many times writing the change has failed.
+     */
+    private record Mutation(String query, Object[] arguments, boolean deletes, CompletableFuture<Void> done, int attempts) { }
+
+    /** Service to communicate to the database. */
+    private final DatabaseService service;
+
+    /** Pending changes by the row they change, oldest first. */
+    private final Map<String, Mutation> pending = new LinkedHashMap<>();
+
+    /** Only one group of changes can be written at a time. */
+    private final ReentrantLock flushLock = new ReentrantLock();
+
+    /** Gives changes without a row of their own a unique key. */
+    private final AtomicLong unkeyed = new AtomicLong();
+
+    /** Writes the pending changes on an interval. */
+    private final ScheduledExecutorService scheduler;
+
+    /** If the queue has been shut down. */
+    private volatile boolean shutDown;
+
+    /** Called with the cause when changes are dropped without being written. */
+    private volatile Consumer<Exception> onFailure = e -> { };
+
+    /**
+     * Create a new write-behind queue that writes pending changes every
+     * {@link #DEFAULT_INTERVAL} milliseconds.
+     *
+     * @param service The service that provides a connection to the
+     *                database.
+     */
+    public WriteBehindQueue(DatabaseService service) {
+        this(service, DEFAULT_INTERVAL);
+    }
+
+    /**
+     * Create a new write-behind queue.
+     *
+     * @param service The service that provides a connection to the
+     *                database.
+     * @param interval How often pending changes are written, in
+     *                 milliseconds.
+     */
+    public WriteBehindQueue(DatabaseService service, long interval) {
+        if (interval < 1) {
+            throw new IllegalArgumentException("Interval must be positive.");
+        }
+
+        this.service = service;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(
+                Thread.ofPlatform().name("write-behind").daemon().factory()
+        );
+        this.scheduler.scheduleWithFixedDelay(this::flushQuietly, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Queue a change to a row. A pending change to the same row is
+     * replaced by this one, unless that row is already waiting to be
+     * deleted.
+     *
+     * @param key Identifies the row being changed, such as "codes/12".
+     * @param query The query that makes the change.
+     * @param arguments The values to be used as placeholders.
+     * @return A future that completes once the change is committed.
+     */
+    public CompletableFuture<Void> update(String key, String query, Object ... arguments) {
+        return enqueue(key, new Mutation(query, arguments, false, new CompletableFuture<>(), 0));
+    }
+
+    /**
+     * Queue the deletion of a row. Any pending change to the same row
+     * is dropped, since the row won't be around to change.
+     *
+     * @param key Identifies the row being deleted, such as "codes/12".
+     * @param query The query that deletes the row.
+     * @param arguments The values to be used as placeholders.
+     * @return A future that completes once the deletion is committed.
+     */
+    public CompletableFuture<Void> delete(String key, String query, Object ... arguments) {
+        return enqueue(key, new Mutation(query, arguments, true, new CompletableFuture<>(), 0));
+    }
+
+    /**
+     * Queue a change that isn't tied to a single row, so it's never
+     * merged with another change.
+     *
+     * @param query The query that makes the change.
+     * @param arguments The values to be used as placeholders.
+     * @return A future that completes once the change is committed.
+     */
+    public CompletableFuture<Void> append(String query, Object ... arguments) {
+        String key = "#" + unkeyed.incrementAndGet();
+        return enqueue(key, new Mutation(query, arguments, false, new CompletableFuture<>(), 0));
+    }
+
+    /**
+     * Get the number of changes waiting to be written.
+     *
+     * @return The number of pending changes.
+     */
+    public int size() {
+        synchronized (pending) {
+            return pending.size();
+        }
+    }
+
+    /**
+     * Set what happens when changes are dropped because they failed to
+     * be written too many times. The changes were already shown to the
+     * user, so this is the chance to undo them. Called on the thread
+     * that tried to write them.
+     *
+     * @param onFailure Called with the cause of the last failure.
+     */
+    public void setOnFailure(Consumer<Exception> onFailure) {
+        this.onFailure = onFailure;
+    }
+
+    /**
+     * Write every pending change in a single transaction. Once this
+     * returns, everything queued before it was called is in the database.
+     *
+     * @throws SQLException If any of the changes could not be written,
+     * in which case the ones that failed stay in the queue.
+     */
+    public void flush() throws SQLException {
+        flushLock.lock();
+        try {
+            if (size() == 0) {
+                return;
+            }
+
+            commit(transaction -> null, true);
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    /**
+     * Write every pending change along with a query that returns the row
+     * it changed, in the same transaction. Used when the caller needs
+     * the result right away, such as the ID of a new row.
+     *
+     * @param query The query to execute, with a RETURNING clause.
+     * @param type The class type of the row being returned.
+     * @param arguments The values to be used as placeholders.
+     * @param <T> The type of value that should be returned.
+     * @return The row that was changed, null if no row was changed.
+     * @throws SQLException If the query fails. Pending changes that fail
+     * stay in the queue without failing the query.
+     */
+    public <T> T write(String query, Class<T> type, Object ... arguments) throws SQLException {
+        flushLock.lock();
+        try {
+            return commit(transaction -> {
+                PreparedStatement statement = transaction.prepare(query);
+                setArguments(statement, arguments);
+
+                try (ResultSet resultSet = statement.executeQuery()) {
+                    return Retrievers.get(type).apply(resultSet);
+                }
+            }, false);
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    /**
+     * Stop writing on an interval and write whatever is still pending,
+     * trying up to {@link #MAX_ATTEMPTS} times. Anything queued after
+     * this is written right away.
+     */
+    public void shutDown() {
+        shutDown = true;
+        scheduler.shutdown();
+
+        try {
+            if (!scheduler.awaitTermination(DEFAULT_INTERVAL * 10, TimeUnit.MILLISECONDS)) {
+                logger.warn("Write-behind queue still flushing, writing pending changes anyway.");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        // Every failed attempt counts against the changes that failed,
+        // so they're dropped by the last one at the latest.
+        for (int attempt = 1; attempt <= MAX_ATTEMPTS; attempt++) {
+            try {
+                flush();
+                logger.info("Write-behind queue shut down.");
+                return;
+            } catch (SQLException e) {
+                logger.warn("Failed to write pending changes on shut down, attempt {} of {}. Cause: ",
+                        attempt, MAX_ATTEMPTS, e);
+            }
+        }
+
+        logger.error("Write-behind queue shut down with {} change(s) not written.", size());
+    }
+
+    /**
+     * Add a change to the queue, merging it with a pending change to the
+     * same row.
+     *
+     * @param key Identifies the row being changed.
+     * @param mutation The change.
+     * @return A future that completes once the change is committed.
+     */
+    private CompletableFuture<Void> enqueue(String key, Mutation mutation) {
+        CompletableFuture<Void> done;
+        synchronized (pending) {
+            done = merge(key, mutation);
+        }
+
+        if (shutDown) {
+            flushQuietly();
+        }
+
+        return done;
+    }
+
+    /**
+     * Put a change in the queue after any pending change to the same
+     * row, which it replaces unless that row is waiting to be deleted.
+     * Must be called while holding the lock on the pending changes.
+     *
+     * @param key Identifies the row being changed.
+     * @param mutation The change.
+     * @return A future that completes once whichever change is kept is
+     * committed.
+     */
+    private CompletableFuture<Void> merge(String key, Mutation mutation) {
+        Mutation previous = pending.get(key);
+
+        if (previous != null && previous.deletes() && !mutation.deletes()) {
+            // The row is going away, so the change would have nothing
+            // to update.
+            chain(previous.done(), mutation.done());
+            return previous.done();
+        }
+
+        // Moved to the end, so the change is written after anything
+        // that was queued before it.
+        pending.remove(key);
+        pending.put(key, mutation);
+
+        if (previous != null) {
+            chain(mutation.done(), previous.done());
+        }
+
+        return mutation.done();
+    }
+
+    /**
+     * Complete a future the same way as another once it completes.
+     *
+     * @param source The future to follow.
+     * @param target The future completed along with it.
+     */
+    private static void chain(CompletableFuture<Void> source, CompletableFuture<Void> target) {
+        source.whenComplete((ignored, e) -> {
+            if (e == null) {
+                target.complete(null);
+            } else {
+                target.completeExceptionally(e);
+            }
+        });
+    }
+
+    /**
+     * Take every pending change out of the queue.
+     *
+     * @return The pending changes by the row they change, oldest first.
+     */
+    private Map<String, Mutation> drain() {
+        synchronized (pending) {
+            Map<String, Mutation> mutations = new LinkedHashMap<>(pending);
+            pending.clear();
+            return mutations;
+        }
+    }
+
+    /**
+     * Put changes that failed to be written back at the front of the
+     * queue. Changes queued since they were taken out are newer, so they
+     * are merged on top and win over them. Changes that already failed
+     * {@link #MAX_ATTEMPTS} times are dropped instead.
+     *
+     * @param failed The changes that failed, by the row they change.
+     * @param cause Why they failed.
+     */
+    private void requeue(Map<String, Mutation> failed, Exception cause) {
+        List<Mutation> dropped = new ArrayList<>();
+
+        synchronized (pending) {
+            Map<String, Mutation> newer = new LinkedHashMap<>(pending);
+            pending.clear();
+
+            failed.forEach((key, mutation) -> {
+                int attempts = mutation.attempts() + 1;
+                if (attempts >= MAX_ATTEMPTS) {
+                    dropped.add(mutation);
+                } else {
+                    pending.put(key, new Mutation(mutation.query(), mutation.arguments(),
+                            mutation.deletes(), mutation.done(), attempts));
+                }
+            });
+
+            newer.forEach(this::merge);
+        }
+
+        if (!dropped.isEmpty()) {
+            logger.error("Dropped {} change(s) that could not be written.", dropped.size());
+            dropped.forEach(mutation -> mutation.done().completeExceptionally(cause));
+            onFailure.accept(cause);
+        }
+    }
+
+    /**
+     * Take every pending change out of the queue and execute them
+     * followed by one more statement in a single transaction. Consecutive
+     * changes that use the same query are sent together as a batch.
+     * <br>
+     * Changes are only taken out of the queue once the transaction has
+     * the writer, so they aren't lost if it can't be borrowed. If the
+     * transaction fails, each change is written in a transaction of its
+     * own, followed by the last statement, and the changes that still
+     * fail are put back. If a transaction is already running on this
+     * thread, the changes join it and are committed along with it.
+     *
+     * @param last The last statement to execute before committing.
+     * @param all If it's an error for any change to fail, otherwise only
+     *            the last statement failing is.
+     * @param <T> The type of value returned by the last statement.
+     * @return The value returned by the last statement.
+     * @throws SQLException If the last statement fails, or any change
+     * fails when they all have to be written.
+     */
+    private <T> T commit(SQLFunction<Transaction, T> last, boolean all) throws SQLException {
+        Map<String, Mutation> mutations = new LinkedHashMap<>();
+
+        T result;
+        try {
+            result = service.inTransaction(transaction -> {
+                mutations.putAll(drain());
+                execute(transaction, mutations.values());
+                return last.apply(transaction);
+            });
+        } catch (SQLException | RuntimeException e) {
+            if (mutations.isEmpty()) {
+                // Nothing was taken out of the queue, the writer could
+                // not be borrowed.
+                throw e;
+            }
+
+            logger.warn("Failed to write {} pending change(s) together, writing them one at a time. Cause: ",
+                    mutations.size(), e);
+            return commitEach(mutations, last, all);
+        }
+
+        logger.debug("Wrote {} pending change(s) in one transaction.", mutations.size());
+        mutations.values().forEach(mutation -> mutation.done().complete(null));
+        return result;
+    }
+
+    /**
+     * Write changes that failed to be written together in a transaction
+     * each, followed by the last statement on its own. The changes that
+     * still fail are put back in the queue.
+     *
+     * @param mutations The changes, by the row they change.
+     * @param last The last statement to execute.
+     * @param all If it's an error for any change to fail.
+     * @param <T> The type of value returned by the last statement.
+     * @return The value returned by the last statement.
+     * @throws SQLException If the last statement fails, or any change
+     * fails when they all have to be written.
+     */
+    private <T> T commitEach(Map<String, Mutation> mutations, SQLFunction<Transaction, T> last, boolean all)
+            throws SQLException {
+        Map<String, Mutation> failed = new LinkedHashMap<>();
+        SQLException cause = null;
+
+        for (Map.Entry<String, Mutation> entry : mutations.entrySet()) {
+            Mutation mutation = entry.getValue();
+            try {
+                service.inTransaction(transaction -> {
+                    execute(transaction, List.of(mutation));
+                    return null;
+                });
+                mutation.done().complete(null);
+            } catch (SQLException | RuntimeException e) {
+                logger.warn("Failed to write change to {}. Cause: ", entry.getKey(), e);
+                failed.put(entry.getKey(), mutation);
+                cause = e instanceof SQLException sqlException ? sqlException : new SQLException(e);
+            }
+        }
+
+        if (!failed.isEmpty()) {
+            requeue(failed, cause);
+        }
+
+        T result = service.inTransaction(last);
+        if (all && cause != null) {
+            throw cause;
+        }
+
+        return result;
+    }
+
+    /**
+     * Execute changes in a transaction. Consecutive changes that use the
+     * same query are sent together as a batch.
+     *
+     * @param transaction The transaction.
+     * @param mutations The changes, oldest first.
+     * @throws SQLException If any of the changes fail.
+     */
+    private static void execute(Transaction transaction, Collection<Mutation> mutations) throws SQLException {
+        PreparedStatement statement = null;
+        String query = null;
+        for (Mutation mutation : mutations) {
+            if (!mutation.query().equals(query)) {
+                if (statement != null) {
+                    statement.executeBatch();
+                }
+
+                query = mutation.query();
+                statement = transaction.prepare(query);
+            }
+
+            setArguments(statement, mutation.arguments());
+            statement.addBatch();
+        }
+
+        if (statement != null) {
+            statement.executeBatch();
+        }
+    }
+
+    /**
+     * Set the values of the placeholders for a statement.
+     *
+     * @param statement The statement.
+     * @param arguments The values to be used as placeholders.
+     */
+    private static void setArguments(PreparedStatement statement, Object[] arguments) {
+        for (int i = 0; i < arguments.length; i++) {
+            TriConsumer<PreparedStatement, Integer, Object> setter
+                    = ArgumentSetters.getSetter(arguments[i].getClass());
+            setter.accept(statement, i + 1, arguments[i]);
+        }
+    }
+
+    /**
+     * Write the pending changes, logging any errors instead of throwing
+     * them. Used by the scheduler, which stops running a task that throws.
+     */
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (SQLException | RuntimeException e) {
+            logger.warn("Pending changes were not written. Cause: ", e);
+        }
+    }
+}
@@ -0,0 +1,278 @@
+package cypher.enforcers.data.security;
+
+import cypher.enforcers.data.entities.CodeKeyEntity;
+import cypher.enforcers.data.spis.DatabaseService;
+import cypher.enforcers.data.spis.KeyRing;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.crypto.Cipher;
+import javax.crypto.NoSuchPaddingException;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.Base64;
+
+/**
+ * This class is used to encrypt codes before they're stored, and decrypt
+ * them once they're read, with AES-GCM.
+ * <br>
+ * Each user has a key of their own, derived from their password when
+ * they log in and held until they log out, so the password itself is
+ * never kept. How the key is derived is stored in the database the
+ * users are in.
+ * <br>
+ * Encrypted codes are stored as {@code $aes-gcm$<data>}, where the data
+ * is the IV followed by the encrypted code, in Base 64. Codes stored
+ * before they were encrypted are read as they are, and are encrypted
+ * the next time they're saved.
+ * <br>
+ * Each thread keeps a Cipher of its own, so only the key and IV are set
+ * for each code instead of creating a new Cipher each time.
+ */
+public class CodeCipher implements KeyRing {
+
+    /** Logger for the code cipher. */
+    private static final Logger logger = LoggerFactory.getLogger(CodeCipher.class);
+
+    /** Algorithm being used to encrypt codes. */
+    public static final String TRANSFORMATION = "AES/GCM/NoPadding";
+
+    /** Algorithm being used to derive the keys. */
+    private static final String KEY_ALGORITHM = "PBKDF2WithHmacSHA512";
+
+    /** Start of every encrypted code. */
+    private static final String PREFIX = "$aes-gcm$";
+
+    /** Length of the keys, in bits. */
+    private static final int KEY_LENGTH = 256;
+
+    /** Length of the IVs, in bytes. */
+    private static final int IV_LENGTH = 12;
+
+    /** Length of the authentication tags, in bits. */
+    private static final int TAG_LENGTH = 128;
+
+    /** SQLite query to read how the key of a user is derived. */
+    private static final String GET_KEY = "SELECT * FROM code_keys WHERE user_id = ?";
+
+    /** SQLite query to store how the key of a user is derived. */
+    private static final String ADD_KEY = "INSERT INTO code_keys (user_id, salt, iterations) VALUES (?, ?, ?) RETURNING *";
+
+    /** Object to generate new salts and IVs. */
+    private static final SecureRandom random = new SecureRandom();
+
+    /** Derives the keys from the passwords. */
+    private static final HashingEngine engine = new HashingEngine(KEY_ALGORITHM);
+
+    /** The database the users are in. */
+    private final DatabaseService users;
+
+    /** The Cipher of each thread, null if it could not be created. */
+    private final ThreadLocal<Cipher> ciphers = ThreadLocal.withInitial(CodeCipher::createCipher);
+
+    /** The key being held, null if the key ring is locked. */
+    private volatile Session session;
+
+    /**
+     * Create a new code cipher, locked until a user logs in.
+     *
+     * @param users The database service for the database the users are
+     *              in.
+     */
+    public CodeCipher(DatabaseService users) {
+        this.users = users;
+    }
+
+    /**
+     * Derive the key of a user from their password and hold on to it.
+     * A user logging in for the first time since codes were encrypted
+     * gets a new salt, derived with the current number of iterations.
+     *
+     * @param userID ID of the user.
+     * @param password Password of the user.
+     * @return True if the key is ready, false otherwise.
+     */
+    @Override
+    public boolean unlock(long userID, String password) {
+        CodeKeyEntity key;
+        try {
+            key = users.executeSelect(GET_KEY, CodeKeyEntity.class, userID);
+            if (key == null) {
+                byte[] salt = new byte[16];
+                random.nextBytes(salt);
+                key = users.executeUpdateReturning(ADD_KEY, CodeKeyEntity.class,
+                        userID, Base64.getEncoder().encodeToString(salt), SecurityUtils.getIterations());
+            }
+        } catch (SQLException e) {
+            logger.warn("Unable to read the key of user with ID {}. Cause: ", userID, e);
+            return false;
+        }
+
+        if (key == null) {
+            return false;
+        }
+
+        byte[] derived = engine.hash(password, Base64.getDecoder().decode(key.getSalt()), key.getIterations(), KEY_LENGTH);
+        if (derived == null) {
+            logger.warn("Unable to derive the key of user with ID {}.", userID);
+            return false;
+        }
+
+        try {
+            session = new Session(userID, new SecretKeySpec(derived, "AES"));
+        } finally {
+            Arrays.fill(derived, (byte) 0);
+        }
+
+        logger.trace("Key of user with ID {} is ready.", userID);
+        return true;
+    }
+
+    /**
+     * Check if the key of a user is being held.
+     *
+     * @param userID ID of the user.
+     * @return True if it is, false otherwise.
+     */
+    @Override
+    public boolean isUnlocked(long userID) {
+        Session current = session;
+        return current != null && current.userID() == userID;
+    }
+
+    /**
+     * Forget the key being held, if any.
+     */
+    @Override
+    public void lock() {
+        session = null;
+    }
+
+    /**
+     * Encrypt a code with the key being held.
+     *
+     * @param code The code.
+     * @return The encrypted code if successfully encrypted, otherwise
+     * null.
+     */
+    public String encrypt(String code) {
+        Session current = session;
+        Cipher cipher = cipher();
+        if (current == null || cipher == null) {
+            logger.warn("Unable to encrypt code, no key is being held.");
+            return null;
+        }
+
+        byte[] plain = code.getBytes(StandardCharsets.UTF_8);
+        byte[] iv = new byte[IV_LENGTH];
+        random.nextBytes(iv);
+
+        byte[] data;
+        try {
+            // A GCM cipher refuses to encrypt twice with the same IV, so
+            // it's set again with a new one each time.
+            cipher.init(Cipher.ENCRYPT_MODE, current.key(), new GCMParameterSpec(TAG_LENGTH, iv));
+            data = Arrays.copyOf(iv, IV_LENGTH + cipher.getOutputSize(plain.length));
+            cipher.doFinal(plain, 0, plain.length, data, IV_LENGTH);
+        } catch (GeneralSecurityException e) {
+            logger.warn("Failed to encrypt code. Cause: ", e);
+            return null;
+        } finally {
+            Arrays.fill(plain, (byte) 0);
+        }
+
+        return PREFIX + Base64.getEncoder().encodeToString(data);
+    }
+
+    /**
+     * Decrypt a code with the key being held. Codes that aren't
+     * encrypted are returned as they are.
+     *
+     * @param code The code, as it's stored.
+     * @return The decrypted code if successfully decrypted, otherwise
+     * null.
+     */
+    public String decrypt(String code) {
+        if (code == null || !code.startsWith(PREFIX)) {
+            return code;
+        }
+
+        Session current = session;
+        Cipher cipher = cipher();
+        if (current == null || cipher == null) {
+            logger.warn("Unable to decrypt code, no key is being held.");
+            return null;
+        }
+
+        byte[] data;
+        try {
+            data = Base64.getDecoder().decode(code.substring(PREFIX.length()));
+        } catch (IllegalArgumentException e) {
+            logger.warn("Encrypted code is not in a known format.");
+            return null;
+        }
+
+        if (data.length < IV_LENGTH) {
+            logger.warn("Encrypted code is not in a known format.");
+            return null;
+        }
+
+        byte[] plain = null;
+        try {
+            cipher.init(Cipher.DECRYPT_MODE, current.key(), new GCMParameterSpec(TAG_LENGTH, data, 0, IV_LENGTH));
+            plain = cipher.doFinal(data, IV_LENGTH, data.length - IV_LENGTH);
+            return new String(plain, StandardCharsets.UTF_8);
+        } catch (GeneralSecurityException e) {
+            logger.warn("Failed to decrypt code. Cause: ", e);
+            return null;
+        } finally {
+            if (plain != null) {
+                Arrays.fill(plain, (byte) 0);
+            }
+        }
+    }
+
+    /**
+     * Get the Cipher of this thread.
+     *
+     * @return The Cipher, or null if it could not be created.
+     */
+    private Cipher cipher() {
+        Cipher cipher = ciphers.get();
+        if (cipher == null) {
+            // Try again the next time instead of failing forever.
+            ciphers.remove();
+        }
+
+        return cipher;
+    }
+
+    /**
+     * Create the Cipher for the thread using the code cipher.
+     *
+     * @return The Cipher, or null if it could not be created.
+     */
+    private static Cipher createCipher() {
+        try {
+            return Cipher.getInstance(TRANSFORMATION);
+        } catch (NoSuchAlgorithmException | NoSuchPaddingException e) {
+            logger.warn("Unable to create Cipher. Cause: ", e);
+            return null;
+        }
+    }
+
+    /**
+     * The key of the user that's logged in.
+     *
+     * @param userID ID of the user.
+     * @param key The key.
+     */
+    private record Session(long userID, SecretKey key) { }
+}
@@ -0,0 +1,145 @@
+package cypher.enforcers.data.security;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.PBEKeySpec;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.spec.InvalidKeySpecException;
+import java.util.Arrays;
+
+/**
+ * This class is used to hash passwords with a password-based key
+ * derivation algorithm, from many threads at once.
+ * <br>
+ * A SecretKeyFactory can't be shared between threads, so each thread
+ * using the engine gets one of its own the first time it hashes a
+ * password, and keeps it for the next. Threads never wait on each other,
+ * so hashing many passwords at once scales with the number of cores.
+ * Verifying a password compares the hashes in constant time and zeroes
+ * the hash it worked out once it's done.
+ */
+public class HashingEngine {
+
+    /** Logger for the hashing engine. */
+    private static final Logger logger = LoggerFactory.getLogger(HashingEngine.class);
+
+    /** Algorithm being used to hash passwords. */
+    private final String algorithm;
+
+    /** The factory of each thread, null if it could not be created. */
+    private final ThreadLocal<SecretKeyFactory> factories;
+
+    /**
+     * Create a new hashing engine for an algorithm.
+     *
+     * @param algorithm Name of the algorithm, such as
+     *                  PBKDF2WithHmacSHA512.
+     */
+    public HashingEngine(String algorithm) {
+        this.algorithm = algorithm;
+        this.factories = ThreadLocal.withInitial(this::createFactory);
+    }
+
+    /**
+     * Get the algorithm being used to hash passwords.
+     *
+     * @return Name of the algorithm.
+     */
+    public String getAlgorithm() {
+        return algorithm;
+    }
+
+    /**
+     * Hash a password.
+     *
+     * @param password The password.
+     * @param salt The salt, at least 16 bytes long.
+     * @param iterations The number of iterations.
+     * @param keyLength Length of the hash, in bits.
+     * @return The hash if successfully hashed, otherwise null.
+     */
+    public byte[] hash(String password, byte[] salt, int iterations, int keyLength) {
+        char[] chars = password.toCharArray();
+        try {
+            return derive(chars, salt, iterations, keyLength);
+        } finally {
+            Arrays.fill(chars, '\0');
+        }
+    }
+
+    /**
+     * Verify a password against its expected hash, in constant time.
+     * The hash worked out from the password is zeroed afterwards.
+     *
+     * @param password The password, which isn't changed.
+     * @param salt The salt, at least 16 bytes long.
+     * @param iterations The number of iterations.
+     * @param expected The expected hash.
+     * @return True if the password matches the hash, false otherwise.
+     */
+    public boolean verify(char[] password, byte[] salt, int iterations, byte[] expected) {
+        if (expected.length == 0) {
+            return false;
+        }
+
+        byte[] hash = derive(password, salt, iterations, expected.length * 8);
+        if (hash == null) {
+            return false;
+        }
+
+        try {
+            return MessageDigest.isEqual(hash, expected);
+        } finally {
+            Arrays.fill(hash, (byte) 0);
+        }
+    }
+
+    /**
+     * Work out the hash of a password with the factory of this thread.
+     *
+     * @param password The password, which isn't changed.
+     * @param salt The salt, at least 16 bytes long.
+     * @param iterations The number of iterations.
+     * @param keyLength Length of the hash, in bits.
+     * @return The hash if successfully hashed, otherwise null.
+     */
+    private byte[] derive(char[] password, byte[] salt, int iterations, int keyLength) {
+        if (salt.length < 16) {
+            return null;
+        }
+
+        SecretKeyFactory factory = factories.get();
+        if (factory == null) {
+            // Try again the next time instead of failing forever.
+            factories.remove();
+            return null;
+        }
+
+        PBEKeySpec key = new PBEKeySpec(password, salt, iterations, keyLength);
+        try {
+            return factory.generateSecret(key).getEncoded();
+        } catch (InvalidKeySpecException | IllegalArgumentException e) {
+            logger.warn("Failed to hash password, returning null. Cause: ", e);
+            return null;
+        } finally {
+            key.clearPassword();
+        }
+    }
+
+    /**
+     * Create the SecretKeyFactory for the thread using the engine.
+     *
+     * @return The factory, or null if it could not be created.
+     */
+    private SecretKeyFactory createFactory() {
+        try {
+            return SecretKeyFactory.getInstance(algorithm);
+        } catch (NoSuchAlgorithmException e) {
+            logger.warn("Unable to create SecretKeyFactory. Cause: ", e);
+            return null;
+        }
+    }
+}
@@ -3,18 +3,24 @@ package cypher.enforcers.data.security;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import javax.crypto.SecretKeyFactory;
-import javax.crypto.spec.PBEKeySpec;
-import java.security.NoSuchAlgorithmException;
+import java.nio.charset.StandardCharsets;
 import java.security.SecureRandom;
-import java.security.spec.InvalidKeySpecException;
-import java.security.spec.KeySpec;
+import java.time.Duration;
+import java.util.Arrays;
 import java.util.Base64;
-import java.util.Objects;
 
 /**
  * This class is responsible for ensuring passwords are stored in
  * a safe format.
+ * <br>
+ * Passwords are stored as
+ * {@code $pbkdf2-sha512$i=<iterations>$<salt>$<hash>}, with the salt and
+ * hash in Base 64, so the number of iterations can be raised without
+ * breaking the passwords that are already stored. Passwords stored
+ * before this format, as the salt followed by the hash, can still be
+ * verified, and should be hashed again the next time they're known.
+ * <br>
+ * Passwords can be hashed and verified from many threads at once.
  */
 public class SecurityUtils {
 
@@ -35,8 +41,31 @@ public class SecurityUtils {
     /** Algorithm being used to hash passwords. */
     private static final String ALGORITHM = "PBKDF2WithHmacSHA512";
 
-    /** Number of iterations to apply for this algorithm. */
-    private static final int NUMBER_OF_ITERATIONS = 1000;
+    /** Name of the algorithm in the stored format. */
+    private static final String FORMAT_ID = "pbkdf2-sha512";
+
+    /** Number of iterations applied to passwords stored before the format. */
+    private static final int LEGACY_ITERATIONS = 1000;
+
+    /** Number of iterations to apply if they haven't been calibrated. */
+    public static final int DEFAULT_ITERATIONS = 210_000;
+
+    /** Calibrating never picks fewer iterations than this. */
+    public static final int MIN_ITERATIONS = 100_000;
+
+    /**
+     * Stored passwords are only hashed again once their number of
+     * iterations falls below this share of the current number, so
+     * calibrating to a slightly different number on every launch doesn't
+     * rewrite every password.
+     */
+    private static final double REHASH_RATIO = 0.8;
+
+    /** Number of iterations used to time the algorithm when calibrating. */
+    private static final int CALIBRATION_ITERATIONS = 10_000;
+
+    /** Number of iterations to apply for new passwords. */
+    private static volatile int iterations = DEFAULT_ITERATIONS;
 
     /** Length of the key being used to hash passwords. */
     private static final int KEY_LENGTH = 512;
@@ -47,85 +76,221 @@ public class SecurityUtils {
     /** Object to generate a new salt. */
     private static final SecureRandom saltGenerator = new SecureRandom();
 
-    /** Factory to generate secure keys for a specific algorithm. */
-    private static SecretKeyFactory keyFactory;
+    /** Hashes passwords, safely from many threads at once. */
+    private static final HashingEngine engine = new HashingEngine(ALGORITHM);
 
     /**
-     * Create the SecretKeyFactory if it does not already exist.
+     * Generate a salt which can be used for hashing algorithms.
      *
-     * @return True if the factory already exists, false otherwise.
+     * @return String version of the salt in Base 64
      */
-    private static boolean createFactory() {
-        try {
-            keyFactory = SecretKeyFactory.getInstance(ALGORITHM);
-            return true;
-        } catch (NoSuchAlgorithmException e) {
-            logger.warn("Unable to create SecretKeyFactory. Cause: ", e);
-            keyFactory = null;
-            return false;
+    public static String createSalt() {
+        byte[] salt = new byte[16];
+        saltGenerator.nextBytes(salt);
+        return Base64.getEncoder().encodeToString(salt);
+    }
+
+    /**
+     * Get the number of iterations applied to new passwords.
+     *
+     * @return The number of iterations.
+     */
+    public static int getIterations() {
+        return iterations;
+    }
+
+    /**
+     * Set the number of iterations applied to new passwords.
+     *
+     * @param n The number of iterations.
+     * @throws IllegalArgumentException If the number isn't positive.
+     */
+    public static void setIterations(int n) {
+        if (n < 1) {
+            throw new IllegalArgumentException("Number of iterations must be positive.");
         }
+
+        iterations = n;
     }
 
     /**
-     * Generate a salt which can be used for hashing algorithms.
+     * Time the algorithm on this machine and pick the number of
+     * iterations that takes about as long as the target to hash a
+     * password, but no fewer than {@link #MIN_ITERATIONS}. The number is
+     * used for new passwords from now on.
      *
-     * @return String version of the salt in Base 64
+     * @param target How long hashing a password should take.
+     * @return The number of iterations picked.
      */
-    public static String createSalt() {
+    public static int calibrate(Duration target) {
         byte[] salt = new byte[16];
         saltGenerator.nextBytes(salt);
-        return Base64.getEncoder().encodeToString(salt);
+
+        // The first runs are slower until the JIT compiler catches up,
+        // so only the fastest run is used.
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < 5; i++) {
+            long start = System.nanoTime();
+            if (pbkdf2("calibration", salt, CALIBRATION_ITERATIONS) == null) {
+                logger.warn("Unable to calibrate, keeping {} iterations.", iterations);
+                return iterations;
+            }
+            best = Math.min(best, System.nanoTime() - start);
+        }
+
+        long picked = target.toNanos() * CALIBRATION_ITERATIONS / Math.max(best, 1);
+        int n = (int) Math.min(Integer.MAX_VALUE, Math.max(MIN_ITERATIONS, picked / 1000 * 1000));
+
+        iterations = n;
+        logger.info("Calibrated password hashing to {} iterations for {} ms.", n, target.toMillis());
+        return n;
     }
 
     /**
-     * Hash a given password so that its secure if the file
-     * is compromised. For extra security purposes.
+     * Hash a password in the stored format, with a new salt and the
+     * current number of iterations.
      *
-     * @param s The password
-     * @param salt The salt being used to hash the password
-     * @return String version of the hashed password in Base 64 if
-     * successfully hashed, otherwise null.
+     * @param password The password.
+     * @return The hashed password in the stored format if successfully
+     * hashed, otherwise null.
      */
-    public static String hashPassword(String s, byte[] salt) {
-        if (Objects.isNull(keyFactory) && !createFactory()) {
+    public static String hash(String password) {
+        byte[] salt = new byte[16];
+        saltGenerator.nextBytes(salt);
+
+        int n = iterations;
+        byte[] hash = pbkdf2(password, salt, n);
+        if (hash == null) {
             return null;
         }
 
-        if (salt.length < 16) {
-            return null;
+        Base64.Encoder encoder = Base64.getEncoder().withoutPadding();
+        return "$" + FORMAT_ID + "$i=" + n + "$" + encoder.encodeToString(salt) + "$" + encoder.encodeToString(hash);
+    }
+
+    /**
+     * Verify a password against the one stored for a user, in either
+     * the stored format or the format used before it. The hashes are
+     * compared in constant time, and the copies of the password made to
+     * hash it are zeroed afterwards.
+     *
+     * @param stored The password stored for the user.
+     * @param password The password which the user enters.
+     * @return True if the passwords match, false otherwise.
+     */
+    public static boolean verify(String stored, String password) {
+        char[] chars = password.toCharArray();
+        try {
+            return stored.startsWith("$") ? verifyCurrent(stored, chars) : verifyLegacy(stored, chars);
+        } finally {
+            Arrays.fill(chars, '\0');
         }
+    }
 
-        // Object to make the key needed for the hashing algorithm.
-        KeySpec key = new PBEKeySpec(s.toCharArray(), salt, NUMBER_OF_ITERATIONS, KEY_LENGTH);
+    /**
+     * Verify a password against one stored in the stored format.
+     *
+     * @param stored The password stored for the user.
+     * @param password The password which the user enters.
+     * @return True if the passwords match, false otherwise.
+     */
+    private static boolean verifyCurrent(String stored, char[] password) {
+        String[] parts = stored.split("\\$");
+        int n = parseIterations(parts);
+        if (n < 1) {
+            logger.warn("Stored password is not in a known format.");
+            return false;
+        }
 
-        byte[] hash;
+        byte[] salt;
+        byte[] expected;
         try {
-            hash = keyFactory.generateSecret(key).getEncoded();
-        } catch (InvalidKeySpecException e) {
-            logger.warn("Failed to hash password, returning null. Cause: ", e);
-            return null;
+            salt = Base64.getDecoder().decode(parts[3]);
+            expected = Base64.getDecoder().decode(parts[4]);
+        } catch (IllegalArgumentException e) {
+            logger.warn("Stored password is not in a known format.");
+            return false;
         }
 
-        return Base64.getEncoder().encodeToString(hash);
+        return engine.verify(password, salt, n, expected);
     }
 
     /**
-     * Verify a password after applying the hashing algorithm
-     * with the salt based on the password the user types in.
+     * Verify a password against one stored in the format used before
+     * the stored format, as the salt followed by the hash. The salt was
+     * added to the end of the password before hashing it.
      *
-     * @param expectedPassword The expected password after applying
-     *                         the algorithm.
+     * @param stored The password stored for the user.
      * @param password The password which the user enters.
-     * @param salt The salt used for the original password which
-     *             is saved in locally.
      * @return True if the passwords match, false otherwise.
      */
-    public static boolean verifyPassword(String expectedPassword, String password, String salt) {
-        String result = hashPassword(password, salt.getBytes());
-        if (result == null) {
+    private static boolean verifyLegacy(String stored, char[] password) {
+        if (stored.length() <= SALT_LENGTH) {
             return false;
         }
 
-        return result.equals(expectedPassword);
+        byte[] expected;
+        try {
+            expected = Base64.getDecoder().decode(stored.substring(SALT_LENGTH));
+        } catch (IllegalArgumentException e) {
+            logger.warn("Stored password is not in a known format.");
+            return false;
+        }
+
+        char[] salted = Arrays.copyOf(password, password.length + SALT_LENGTH);
+        stored.getChars(0, SALT_LENGTH, salted, password.length);
+        try {
+            byte[] salt = stored.substring(0, SALT_LENGTH).getBytes(StandardCharsets.UTF_8);
+            return engine.verify(salted, salt, LEGACY_ITERATIONS, expected);
+        } finally {
+            Arrays.fill(salted, '\0');
+        }
+    }
+
+    /**
+     * Check if a stored password should be hashed again, because it's in
+     * the format used before the current one, or it was hashed with
+     * fewer than {@link #MIN_ITERATIONS} iterations or well under the
+     * number used now.
+     *
+     * @param stored The password stored for the user.
+     * @return True if it should be hashed again, false otherwise.
+     */
+    public static boolean needsRehash(String stored) {
+        int n = parseIterations(stored.split("\\$"));
+        return n < MIN_ITERATIONS || n < iterations * REHASH_RATIO;
+    }
+
+    /**
+     * Get the number of iterations out of a password in the stored
+     * format, split on its dollar signs.
+     *
+     * @param parts The parts of the stored password.
+     * @return The number of iterations, or 0 if the password isn't in
+     * the stored format.
+     */
+    private static int parseIterations(String[] parts) {
+        if (parts.length != 5 || !parts[0].isEmpty() || !parts[1].equals(FORMAT_ID)
+                || !parts[2].startsWith("i=")) {
+            return 0;
+        }
+
+        try {
+            return Integer.parseInt(parts[2].substring(2));
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    /**
+     * Apply the hashing algorithm to a password.
+     *
+     * @param password The password.
+     * @param salt The salt, at least 16 bytes long.
+     * @param n The number of iterations.
+     * @return The hash if successfully hashed, otherwise null.
+     */
+    private static byte[] pbkdf2(String password, byte[] salt, int n) {
+        return engine.hash(password, salt, n, KEY_LENGTH);
     }
 }
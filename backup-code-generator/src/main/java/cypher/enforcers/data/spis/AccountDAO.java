@@ -2,6 +2,7 @@ package cypher.enforcers.data.spis;
 
 import cypher.enforcers.data.entities.AccountEntity;
 
+import java.util.Collection;
 import java.util.List;
 
 /**
@@ -43,6 +44,15 @@ public interface AccountDAO {
      */
     AccountEntity removeAccount(long id);
 
+    /**
+     * Remove many accounts at once. Either all the accounts are
+     * removed, or none of them are.
+     *
+     * @param ids IDs of the accounts to delete.
+     * @return Accounts that were deleted, null otherwise.
+     */
+    List<AccountEntity> removeAccounts(Collection<Long> ids);
+
     /**
      * Remove all accounts for a user given the ID.
      *
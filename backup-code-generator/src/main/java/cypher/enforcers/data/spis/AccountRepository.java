@@ -1,9 +1,13 @@
 package cypher.enforcers.data.spis;
 
 import cypher.enforcers.data.entities.AccountEntity;
+import cypher.enforcers.utilities.CacheStatistics;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 
 /**
  Interface for the Account Repository. Behaves as a collection of
@@ -54,4 +58,36 @@ public interface AccountRepository {
      * empty list otherwise.
      */
     List<AccountEntity> deleteAll(long id);
+
+    /**
+     * Delete many accounts at once, in a single transaction. Either all
+     * the accounts are deleted, or none of them are.
+     *
+     * @param ids IDs of the accounts to delete.
+     * @return List containing the accounts if successfully deleted,
+     * empty list otherwise.
+     */
+    List<AccountEntity> deleteAll(Collection<Long> ids);
+
+    /**
+     * Read all accounts for a user in the background.
+     *
+     * @param id ID of the user.
+     * @param executor Runs the read.
+     * @return A future that completes with the list of accounts.
+     */
+    default CompletableFuture<List<AccountEntity>> readAllAsync(long id, Executor executor) {
+        return CompletableFuture.supplyAsync(() -> readAll(id), executor);
+    }
+
+    /**
+     * Get how often the accounts for a user were already in memory when
+     * they were read. By default, accounts are not kept in memory.
+     *
+     * @return The hits and misses so far.
+     */
+    default CacheStatistics getCacheStatistics() {
+        return new CacheStatistics(0, 0);
+    }
+
 }
@@ -7,6 +7,11 @@ import java.util.List;
 /**
  Interface for the Code Data Access Object (DAO) to communicate to the
  database and make changes to any information related to the accounts.
+ <br>
+ Implementations may hold on to changes and write them later, in which
+ case a change that is returned is one that has been accepted rather than
+ one that is already in the database. They must still check that the code
+ being changed exists, and return null if it doesn't.
  */
 public interface CodeDAO {
 
@@ -34,11 +39,21 @@ public interface CodeDAO {
      */
     CodeEntity addCode(CodeEntity code);
 
+    /**
+     * Add many codes at once. Either all the codes are added, or none
+     * of them are.
+     *
+     * @param codes The codes to add.
+     * @return The codes that were added, null otherwise.
+     */
+    List<CodeEntity> addCodes(List<CodeEntity> codes);
+
     /**
      * Update a code.
      *
      * @param code The code to update.
      * @return Code object with the update data if found, null otherwise.
+     * The update may not be written yet, see {@link CodeDAO}.
      */
     CodeEntity updateCode(CodeEntity code);
 
@@ -46,7 +61,8 @@ public interface CodeDAO {
      * Remove a code.
      *
      * @param id ID of the code to remove.
-     * @return Code if deleted, null otherwise.
+     * @return Code if deleted, null otherwise. The code may not be
+     * deleted yet, see {@link CodeDAO}.
      */
     CodeEntity removeCode(long id);
 
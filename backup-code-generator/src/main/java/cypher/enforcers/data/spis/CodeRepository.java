@@ -1,9 +1,12 @@
 package cypher.enforcers.data.spis;
 
 import cypher.enforcers.data.entities.CodeEntity;
+import cypher.enforcers.utilities.CacheStatistics;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 
 /**
  Interface for the code Repository. Behaves as a collection of
@@ -20,6 +23,16 @@ public interface CodeRepository {
      */
     Optional<CodeEntity> create(CodeEntity code);
 
+    /**
+     * Create many codes at once. Either all the codes are created, or
+     * none of them are.
+     *
+     * @param codes The codes to add.
+     * @return List containing the codes if created successfully,
+     * empty list otherwise.
+     */
+    List<CodeEntity> createAll(List<CodeEntity> codes);
+
     /**
      * Read all codes for an account.
      *
@@ -63,4 +76,56 @@ public interface CodeRepository {
      */
     List<CodeEntity> deleteAll(long id);
 
+    /**
+     * Read all codes for an account in the background.
+     *
+     * @param id ID of the Account to retrieve the codes for.
+     * @param executor Runs the read.
+     * @return A future that completes with the list of codes.
+     */
+    default CompletableFuture<List<CodeEntity>> readAllAsync(long id, Executor executor) {
+        return CompletableFuture.supplyAsync(() -> readAll(id), executor);
+    }
+
+    /**
+     * Create many codes at once in the background.
+     *
+     * @param codes The codes to add.
+     * @param executor Runs the insert.
+     * @return A future that completes with the codes that were created.
+     */
+    default CompletableFuture<List<CodeEntity>> createAllAsync(List<CodeEntity> codes, Executor executor) {
+        return CompletableFuture.supplyAsync(() -> createAll(codes), executor);
+    }
+
+    /**
+     * Forget any codes kept in memory for an account, so they're read
+     * from the database next time. Used when the account is deleted,
+     * since its codes are deleted along with it.
+     *
+     * @param id ID of the account.
+     */
+    default void forget(long id) {
+
+    }
+
+    /**
+     * Forget every code kept in memory, so they're all read from the
+     * database next time. Used when switching to a database where the
+     * same account IDs may belong to other accounts.
+     */
+    default void forgetAll() {
+
+    }
+
+    /**
+     * Get how often the codes for an account were already in memory
+     * when they were read. By default, codes are not kept in memory.
+     *
+     * @return The hits and misses so far.
+     */
+    default CacheStatistics getCacheStatistics() {
+        return new CacheStatistics(0, 0);
+    }
+
 }
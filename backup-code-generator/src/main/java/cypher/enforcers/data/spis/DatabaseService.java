@@ -1,18 +1,30 @@
 package cypher.enforcers.data.spis;
 
+import cypher.enforcers.utilities.CacheStatistics;
 import cypher.enforcers.utilities.sqliteutilities.ArgumentSetters;
+import cypher.enforcers.utilities.sqliteutilities.ConnectionLease;
+import cypher.enforcers.utilities.sqliteutilities.SQLFunction;
+import cypher.enforcers.utilities.sqliteutilities.Transaction;
 import cypher.enforcers.utilities.sqliteutilities.TriConsumer;
 import cypher.enforcers.utilities.sqliteutilities.Retrievers;
+import cypher.enforcers.utilities.sqliteutilities.UncheckedSQLException;
 
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Objects;
+import java.util.Spliterator;
+import java.util.Spliterators;
 import java.util.function.BiConsumer;
+import java.util.function.Consumer;
 import java.util.function.Function;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  Interface for the database service. This service acts as a way to
@@ -40,6 +52,53 @@ public interface DatabaseService {
      */
     Connection getConnection();
 
+    /**
+     * Borrow a connection that can be used to read from the database.
+     * The lease must be closed once the read is complete so the
+     * connection can be handed to someone else.
+     * <br>
+     * By default, the one connection from {@link #getConnection()} is
+     * shared between every reader and writer.
+     *
+     * @return A lease on a connection that can be used for reading.
+     * @throws SQLException If no connection could be borrowed.
+     */
+    default ConnectionLease leaseReader() throws SQLException {
+        return new ConnectionLease(getConnection(), () -> { });
+    }
+
+    /**
+     * Borrow the connection that's used to make changes to the database.
+     * The lease must be closed once the changes have been committed or
+     * rolled back so the connection can be handed to someone else.
+     * <br>
+     * By default, the one connection from {@link #getConnection()} is
+     * shared between every reader and writer.
+     *
+     * @return A lease on the connection that can be used for writing.
+     * @throws SQLException If no connection could be borrowed.
+     */
+    default ConnectionLease leaseWriter() throws SQLException {
+        return new ConnectionLease(getConnection(), () -> { });
+    }
+
+    /**
+     * Borrow a connection to read from the database. If a transaction is
+     * running on this thread, its connection is shared so the read sees
+     * what the transaction has changed so far.
+     *
+     * @return A lease on a connection that can be used for reading.
+     * @throws SQLException If no connection could be borrowed.
+     */
+    private ConnectionLease leaseForReading() throws SQLException {
+        Transaction transaction = Transaction.current(this);
+        if (transaction != null) {
+            return transaction.share();
+        }
+
+        return leaseReader();
+    }
+
     /**
      * Check if this database service is not connected.
      *
@@ -52,6 +111,53 @@ public interface DatabaseService {
         return Objects.isNull(con) || con.isClosed();
     }
 
+    /**
+     * Run work in a transaction, committing everything it does at once.
+     * Queries sent to this service from the same thread while the work
+     * runs, such as the ones made by a DAO or repository, join the
+     * transaction instead of committing on their own.
+     * <br>
+     * If a transaction is already running on this thread, the work joins
+     * it inside a savepoint. A failure then only rolls back the changes
+     * made by the work, and it's up to whoever started the transaction
+     * to carry on or let the error roll back the rest.
+     *
+     * @param work The work to run.
+     * @param <R> The type of value returned by the work.
+     * @return The value returned by the work.
+     * @throws SQLException If the work fails, in which case its changes
+     * are rolled back. This includes a query made by a DAO that failed
+     * while the work ran.
+     */
+    default <R> R inTransaction(SQLFunction<Transaction, R> work) throws SQLException {
+        if (noConnection()) {
+            throw new SQLException("No connection.");
+        }
+
+        try {
+            return Transaction.run(this, work);
+        } catch (UncheckedSQLException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Pass on an error caught by a DAO or repository if a transaction is
+     * running for this service on this thread. The transaction is then
+     * rolled back instead of committing without the work that failed.
+     * Outside a transaction nothing happens, and the caller handles the
+     * error itself.
+     *
+     * @param e The error.
+     * @throws UncheckedSQLException Wrapping the error, if a transaction
+     * is running.
+     */
+    default void failTransaction(SQLException e) {
+        if (Transaction.current(this) != null) {
+            throw new UncheckedSQLException(e);
+        }
+    }
+
     /**
      * Execute an update query with placeholders for an object.
      *
@@ -64,19 +170,13 @@ public interface DatabaseService {
      */
     @SuppressWarnings("unchecked")
     default <T> void executeUpdate(String query, T object) throws SQLException {
-        if (noConnection()) {
-            throw new SQLException("No connection.");
-        }
-
-        try (PreparedStatement statement = getConnection().prepareStatement(query)) {
-            getConnection().setAutoCommit(false);
+        inTransaction(transaction -> {
+            PreparedStatement statement = transaction.prepare(query);
             BiConsumer<PreparedStatement, T> consumer = (BiConsumer<PreparedStatement, T>) ArgumentSetters.getObjectSetter(object.getClass());
             consumer.accept(statement, object);
             statement.executeUpdate();
-            getConnection().commit();
-        } catch (SQLException e) {
-            getConnection().rollback();
-        }
+            return null;
+        });
     }
 
     /**
@@ -88,28 +188,202 @@ public interface DatabaseService {
      * will be rolled back.
      */
     default void executeUpdate(String query, Object ... objects) throws SQLException {
-        if (noConnection()) {
-            throw new SQLException("No connection.");
+        if (noMatch(query, objects.length)) {
+            throw new SQLException("Number of arguments does not match number of place holders.");
         }
 
+        inTransaction(transaction -> {
+            PreparedStatement statement = transaction.prepare(query);
+            setArguments(statement, objects);
+            statement.executeUpdate();
+            return null;
+        });
+    }
+
+    /**
+     * Execute an update query with placeholders for an object, that
+     * returns the row it changed with a RETURNING clause.
+     *
+     * @param query The query to execute.
+     * @param object The object data being updated.
+     * @param type The class type of the row being returned.
+     * @param <T> The type of object, this will be used to determine
+     *           how to set the object.
+     * @param <R> The type of value that should be returned.
+     * @return The row that was changed, null if no row was changed.
+     * @throws SQLException If anything goes wrong in the update. In which
+     * case, the table will be rolled back.
+     */
+    @SuppressWarnings("unchecked")
+    default <T, R> R executeUpdateReturning(String query, T object, Class<R> type) throws SQLException {
+        return inTransaction(transaction -> {
+            PreparedStatement statement = transaction.prepare(query);
+            BiConsumer<PreparedStatement, T> consumer = (BiConsumer<PreparedStatement, T>) ArgumentSetters.getObjectSetter(object.getClass());
+            consumer.accept(statement, object);
+
+            try (ResultSet resultSet = statement.executeQuery()) {
+                return Retrievers.get(type).apply(resultSet);
+            }
+        });
+    }
+
+    /**
+     * Execute an update statement with multiple placeholders, that
+     * returns the row it changed with a RETURNING clause.
+     *
+     * @param query The query to execute.
+     * @param type The class type of the row being returned.
+     * @param objects The values to be used as placeholders.
+     * @param <T> The type of value that should be returned.
+     * @return The row that was changed, null if no row was changed.
+     * @throws SQLException If anything goes wrong. In which the table
+     * will be rolled back.
+     */
+    default <T> T executeUpdateReturning(String query, Class<T> type, Object ... objects) throws SQLException {
         if (noMatch(query, objects.length)) {
             throw new SQLException("Number of arguments does not match number of place holders.");
         }
 
-        try (PreparedStatement statement = getConnection().prepareStatement(query)) {
-            getConnection().setAutoCommit(false);
+        return inTransaction(transaction -> {
+            PreparedStatement statement = transaction.prepare(query);
+            setArguments(statement, objects);
 
-            for (int i = 0; i < objects.length; i++) {
-                TriConsumer<PreparedStatement, Integer, Object> setter
-                        = ArgumentSetters.getSetter(objects[i].getClass());
-                setter.accept(statement, i + 1, objects[i]);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                return Retrievers.get(type).apply(resultSet);
             }
+        });
+    }
 
-            statement.executeUpdate();
-            getConnection().commit();
-        } catch (SQLException e) {
-            getConnection().rollback();
+    /**
+     * Execute an update or delete statement with multiple placeholders,
+     * that returns every row it changed with a RETURNING clause. The rows
+     * are changed and read back in one pass, so nothing can change them
+     * in between.
+     *
+     * @param query The query to execute.
+     * @param type The class type of the rows being returned.
+     * @param objects The values to be used as placeholders.
+     * @param <T> The type of value that should be in the list.
+     * @return The rows that were changed, null if no rows were changed.
+     * @throws SQLException If anything goes wrong. In which the table
+     * will be rolled back.
+     */
+    default <T> List<T> executeUpdateReturningAll(String query, Class<T> type, Object ... objects) throws SQLException {
+        if (noMatch(query, objects.length)) {
+            throw new SQLException("Number of arguments does not match number of place holders.");
+        }
+
+        return inTransaction(transaction -> {
+            PreparedStatement statement = transaction.prepare(query);
+            setArguments(statement, objects);
+
+            List<T> results = null;
+            try (ResultSet resultSet = statement.executeQuery()) {
+                Function<ResultSet, T> function = Retrievers.get(type);
+                while (resultSet.next()) {
+                    if (results == null) {
+                        results = new ArrayList<>();
+                    }
+
+                    results.add(function.apply(resultSet));
+                }
+            }
+
+            return results;
+        });
+    }
+
+    /**
+     * Execute an update or delete statement with one placeholder once
+     * for each argument, all inside one transaction, collecting the rows
+     * returned by its RETURNING clause.
+     *
+     * @param query The query to execute.
+     * @param type The class type of the rows being returned.
+     * @param arguments The value used as the placeholder each time the
+     *                  query is executed.
+     * @param <T> The type of value that should be in the list.
+     * @return The rows that were changed, which may be empty.
+     * @throws SQLException If anything goes wrong. In which none of the
+     * rows are changed.
+     */
+    default <T> List<T> executeUpdateReturningEach(String query, Class<T> type, Collection<?> arguments) throws SQLException {
+        if (noConnection()) {
+            throw new SQLException("No connection.");
         }
+
+        if (noMatch(query, 1)) {
+            throw new SQLException("Query must have exactly one place holder.");
+        }
+
+        List<T> results = new ArrayList<>();
+        if (arguments.isEmpty()) {
+            return results;
+        }
+
+        return inTransaction(transaction -> {
+            PreparedStatement statement = transaction.prepare(query);
+
+            Function<ResultSet, T> function = Retrievers.get(type);
+            for (Object argument : arguments) {
+                ArgumentSetters.getSetter(argument.getClass()).accept(statement, 1, argument);
+
+                try (ResultSet resultSet = statement.executeQuery()) {
+                    while (resultSet.next()) {
+                        results.add(function.apply(resultSet));
+                    }
+                }
+            }
+
+            return results;
+        });
+    }
+
+    /**
+     * Execute an insert or update query with placeholders once for each
+     * object, all inside one transaction, collecting the rows returned
+     * by its RETURNING clause.
+     *
+     * @param query The query to execute.
+     * @param objects The objects being inserted or updated, all of the
+     *                same type.
+     * @param type The class type of the rows being returned.
+     * @param <T> The type of object, this will be used to determine
+     *           how to set each object.
+     * @param <R> The type of value that should be in the list.
+     * @return The rows that were changed, in the order of the objects,
+     * which may be empty.
+     * @throws SQLException If anything goes wrong. In which none of the
+     * rows are changed.
+     */
+    @SuppressWarnings("unchecked")
+    default <T, R> List<R> executeUpdateReturningEach(String query, List<T> objects, Class<R> type) throws SQLException {
+        if (noConnection()) {
+            throw new SQLException("No connection.");
+        }
+
+        List<R> results = new ArrayList<>(objects.size());
+        if (objects.isEmpty()) {
+            return results;
+        }
+
+        return inTransaction(transaction -> {
+            PreparedStatement statement = transaction.prepare(query);
+            BiConsumer<PreparedStatement, T> consumer = (BiConsumer<PreparedStatement, T>) ArgumentSetters.getObjectSetter(objects.get(0).getClass());
+
+            Function<ResultSet, R> function = Retrievers.get(type);
+            for (T object : objects) {
+                consumer.accept(statement, object);
+
+                try (ResultSet resultSet = statement.executeQuery()) {
+                    while (resultSet.next()) {
+                        results.add(function.apply(resultSet));
+                    }
+                }
+            }
+
+            return results;
+        });
     }
 
     /**
@@ -132,14 +406,13 @@ public interface DatabaseService {
             throw new SQLException("Number of arguments does not match number of place holders.");
         }
 
-        try (PreparedStatement statement = getConnection().prepareStatement(query)) {
-            for (int i = 0; i < objects.length; i++) {
-                TriConsumer<PreparedStatement, Integer, Object> setter
-                        = ArgumentSetters.getSetter(objects[i].getClass());
-                setter.accept(statement, i + 1, objects[i]);
-            }
+        try (ConnectionLease lease = leaseForReading()) {
+            PreparedStatement statement = lease.prepare(query);
+            setArguments(statement, objects);
 
-            return Retrievers.get(type).apply(statement.executeQuery());
+            try (ResultSet resultSet = statement.executeQuery()) {
+                return Retrievers.get(type).apply(resultSet);
+            }
         }
     }
 
@@ -164,27 +437,168 @@ public interface DatabaseService {
             throw new SQLException("Number of arguments does not match number of place holders.");
         }
 
-        try (PreparedStatement statement = getConnection().prepareStatement(query)) {
-            for (int i = 0; i < objects.length; i++) {
-                TriConsumer<PreparedStatement, Integer, Object> setter
-                        = ArgumentSetters.getSetter(objects[i].getClass());
-                setter.accept(statement, i + 1, objects[i]);
+        try (ConnectionLease lease = leaseForReading()) {
+            PreparedStatement statement = lease.prepare(query);
+            setArguments(statement, objects);
+
+            try (ResultSet resultSet = statement.executeQuery()) {
+                if (!resultSet.next()) {
+                    return null;
+                }
+
+                List<T> results = new ArrayList<>();
+                Function<ResultSet, T> function = Retrievers.get(type);
+
+                do {
+                    results.add(function.apply(resultSet));
+                } while (resultSet.next());
+
+                return results;
             }
+        }
+    }
+
+    /**
+     * Execute a select statement and lazily map each row as the stream
+     * is consumed. The cursor stays open, and the connection stays
+     * leased, until the stream is closed, so the stream must be used in
+     * a try-with-resources block.
+     * <br>
+     * The statement is not taken from the statement cache, so other
+     * queries can be run while the stream is open.
+     *
+     * @param query The query to execute.
+     * @param type The class type of the object for each row.
+     * @param objects The arguments that need to be set for the placeholder.
+     * @param <T> The type of value for each row.
+     * @return A stream of the rows, which is empty if no results are found.
+     * @throws SQLException If anything goes wrong while running the query.
+     * Errors while reading rows are thrown as an UncheckedSQLException.
+     */
+    default <T> Stream<T> executeStream(String query, Class<T> type, Object ... objects) throws SQLException {
+        if (noConnection()) {
+            throw new SQLException("No connection.");
+        }
 
-            ResultSet resultSet = statement.executeQuery();
-            if (!resultSet.next()) {
-                return null;
+        if (noMatch(query, objects.length)) {
+            throw new SQLException("Number of arguments does not match number of place holders.");
+        }
+
+        ConnectionLease lease = leaseForReading();
+        PreparedStatement statement = null;
+        ResultSet resultSet;
+        try {
+            statement = lease.getConnection().prepareStatement(query);
+            setArguments(statement, objects);
+
+            resultSet = statement.executeQuery();
+        } catch (SQLException | RuntimeException e) {
+            try (lease; PreparedStatement ignored = statement) {
+                throw e;
             }
+        }
 
-            List<T> results = new ArrayList<>();
-            Function<ResultSet, T> function = Retrievers.get(type);
+        PreparedStatement openStatement = statement;
+        Function<ResultSet, T> function = Retrievers.get(type);
+        Spliterator<T> rows = new Spliterators.AbstractSpliterator<>(Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL) {
+            @Override
+            public boolean tryAdvance(Consumer<? super T> action) {
+                try {
+                    if (!resultSet.next()) {
+                        return false;
+                    }
+                } catch (SQLException e) {
+                    throw new UncheckedSQLException(e);
+                }
 
-            do {
-                results.add(function.apply(resultSet));
-            } while (resultSet.next());
+                action.accept(function.apply(resultSet));
+                return true;
+            }
+        };
 
-            return results;
+        return StreamSupport.stream(rows, false).onClose(() -> {
+            try (lease; openStatement; resultSet) {
+                // Closed by try-with-resources, in reverse order.
+            } catch (SQLException e) {
+                throw new UncheckedSQLException(e);
+            }
+        });
+    }
+
+    /**
+     * Execute a select statement and run an action for each row, without
+     * holding every row in memory at once.
+     *
+     * @param query The query to execute.
+     * @param type The class type of the object for each row.
+     * @param action What to do with each row.
+     * @param objects The arguments that need to be set for the placeholder.
+     * @param <T> The type of value for each row.
+     * @return The number of rows.
+     * @throws SQLException If anything goes wrong.
+     */
+    default <T> long forEachRow(String query, Class<T> type, Consumer<? super T> action, Object ... objects) throws SQLException {
+        long count = 0;
+
+        try (Stream<T> rows = executeStream(query, type, objects)) {
+            Iterator<T> iterator = rows.iterator();
+            while (iterator.hasNext()) {
+                action.accept(iterator.next());
+                count++;
+            }
+        } catch (UncheckedSQLException e) {
+            throw e.getCause();
+        }
+
+        return count;
+    }
+
+    /**
+     * Execute a select statement and run an action for each group of
+     * rows, so no more than a chunk of rows is held in memory at once.
+     * The last chunk may be smaller than the others.
+     *
+     * @param query The query to execute.
+     * @param type The class type of the object for each row.
+     * @param chunkSize The most rows to pass to the action at once.
+     * @param action What to do with each chunk of rows.
+     * @param objects The arguments that need to be set for the placeholder.
+     * @param <T> The type of value for each row.
+     * @return The number of rows.
+     * @throws SQLException If anything goes wrong.
+     */
+    default <T> long forEachChunk(String query, Class<T> type, int chunkSize, Consumer<? super List<T>> action, Object ... objects) throws SQLException {
+        if (chunkSize < 1) {
+            throw new IllegalArgumentException("Chunk size must be at least 1.");
         }
+
+        List<T> chunk = new ArrayList<>(chunkSize);
+        long count = forEachRow(query, type, row -> {
+            chunk.add(row);
+
+            if (chunk.size() == chunkSize) {
+                action.accept(List.copyOf(chunk));
+                chunk.clear();
+            }
+        }, objects);
+
+        if (!chunk.isEmpty()) {
+            action.accept(List.copyOf(chunk));
+        }
+
+        return count;
+    }
+
+    /**
+     * Get how often queries were found in the prepared statement cache
+     * of this service.
+     * <br>
+     * By default, statements aren't cached so there are no hits or misses.
+     *
+     * @return The hits and misses so far.
+     */
+    default CacheStatistics getStatementCacheStatistics() {
+        return new CacheStatistics(0, 0);
     }
 
     /**
@@ -192,6 +606,20 @@ public interface DatabaseService {
      */
     void disconnect();
 
+    /**
+     * Set the values of the placeholders for a statement.
+     *
+     * @param statement The statement.
+     * @param objects The values to be used as placeholders.
+     */
+    private static void setArguments(PreparedStatement statement, Object[] objects) {
+        for (int i = 0; i < objects.length; i++) {
+            TriConsumer<PreparedStatement, Integer, Object> setter
+                    = ArgumentSetters.getSetter(objects[i].getClass());
+            setter.accept(statement, i + 1, objects[i]);
+        }
+    }
+
     /**
      * Checks if the number of placeholders in an SQL query do not
      * the amount of argument passed in.
@@ -0,0 +1,53 @@
+package cypher.enforcers.data.spis;
+
+/**
+ Interface for the key ring. When codes are encrypted, the key ring holds
+ the key of the user that's logged in, which can only be worked out from
+ their password. It's unlocked when they log in and locked when they log
+ out.
+ */
+public interface KeyRing {
+
+    /** Key ring for when codes aren't encrypted, it's always unlocked. */
+    KeyRing NONE = new KeyRing() {
+        @Override
+        public boolean unlock(long userID, String password) {
+            return true;
+        }
+
+        @Override
+        public boolean isUnlocked(long userID) {
+            return true;
+        }
+
+        @Override
+        public void lock() {
+
+        }
+    };
+
+    /**
+     * Work out the key of a user from their password and hold on to it,
+     * creating what's needed to work it out if they don't have a key yet.
+     * The password must already be verified.
+     *
+     * @param userID ID of the user.
+     * @param password Password of the user.
+     * @return True if the key is ready, false otherwise.
+     */
+    boolean unlock(long userID, String password);
+
+    /**
+     * Check if the key of a user is being held.
+     *
+     * @param userID ID of the user.
+     * @return True if it is, false otherwise.
+     */
+    boolean isUnlocked(long userID);
+
+    /**
+     * Forget the key being held, if any.
+     */
+    void lock();
+
+}
@@ -0,0 +1,44 @@
+package cypher.enforcers.data.spis;
+
+import cypher.enforcers.data.entities.SessionEntity;
+
+/**
+ * Interface for the Session Data Access Object (DAO) to communicate to the
+ * database and make changes to any information related to the sessions.
+ */
+public interface SessionDAO {
+
+    /**
+     * Insert a new session into the database.
+     *
+     * @param session The session to insert.
+     * @return The session if it was added, null otherwise.
+     */
+    SessionEntity addSession(SessionEntity session);
+
+    /**
+     * Get the session that was used most recently.
+     *
+     * @return The session if any exist, null otherwise.
+     */
+    SessionEntity getLatestSession();
+
+    /**
+     * Update when a session was last used.
+     *
+     * @param token Token of the session.
+     * @param lastSeen When the session was last used, in milliseconds
+     *                 since the epoch.
+     * @return The session with the updated data if found, null otherwise.
+     */
+    SessionEntity updateLastSeen(String token, long lastSeen);
+
+    /**
+     * Remove every session for a user.
+     *
+     * @param userID ID of the user.
+     * @return True if the sessions were removed, or if there were none,
+     * false otherwise.
+     */
+    boolean removeSessions(long userID);
+}
@@ -0,0 +1,46 @@
+package cypher.enforcers.data.spis;
+
+import cypher.enforcers.data.entities.SessionEntity;
+
+import java.util.Optional;
+
+/**
+ Interface for the Session Repository. Behaves as a collection of
+ sessions to help ease on making any changes.
+ */
+public interface SessionRepository {
+
+    /**
+     * Start a new session for a user.
+     *
+     * @param userID ID of the user.
+     * @return An Optional containing the session if created successfully,
+     * null otherwise.
+     */
+    Optional<SessionEntity> create(long userID);
+
+    /**
+     * Find the session that was used most recently, which belongs to
+     * the current user.
+     *
+     * @return An Optional containing the session if found, null otherwise.
+     */
+    Optional<SessionEntity> findLatest();
+
+    /**
+     * Mark a session as used right now.
+     *
+     * @param token Token of the session.
+     * @return An Optional containing the session if updated, null
+     * otherwise.
+     */
+    Optional<SessionEntity> touch(String token);
+
+    /**
+     * End every session for a user.
+     *
+     * @param userID ID of the user.
+     * @return True if the sessions were ended, false otherwise.
+     */
+    boolean deleteAll(long userID);
+}
@@ -0,0 +1,37 @@
+package cypher.enforcers.data.spis;
+
+/**
+ Interface for the shard router. When each user's accounts and codes are
+ kept in a database of their own, the router points the database service
+ at the one belonging to the user that's logged in.
+ */
+public interface ShardRouter {
+
+    /** Router for when every user shares one database, it does nothing. */
+    ShardRouter NONE = new ShardRouter() {
+        @Override
+        public boolean route(long userID) {
+            return true;
+        }
+
+        @Override
+        public void leave() {
+
+        }
+    };
+
+    /**
+     * Point the database service at the database of a user, creating it
+     * if they don't have one yet.
+     *
+     * @param userID ID of the user.
+     * @return True if the database of the user is ready, false otherwise.
+     */
+    boolean route(long userID);
+
+    /**
+     * Stop using the database of the current user, if any.
+     */
+    void leave();
+
+}
@@ -33,7 +33,7 @@ public interface UserDAO {
     UserEntity getUserByName(String username);
 
     /**
-     * Get the data for the user that has a login status of true.
+     * Get the data for the user with the most recently used session.
      *
      * @return The user if any user is logged in, null otherwise.
      */
@@ -47,4 +47,12 @@ public interface UserDAO {
      * null otherwise.
      */
     UserEntity updateUser(UserEntity user);
+
+    /**
+     * Remove a user from the database, along with their sessions.
+     *
+     * @param id ID of the user to remove.
+     * @return User if removed, null otherwise.
+     */
+    UserEntity removeUser(long id);
 }
\ No newline at end of file
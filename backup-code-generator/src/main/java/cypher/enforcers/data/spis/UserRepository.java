@@ -50,4 +50,13 @@ public interface UserRepository {
      */
     Optional<UserEntity> update(UserEntity user);
 
+    /**
+     * Delete a user, along with their sessions.
+     *
+     * @param id ID of the user to delete.
+     * @return An Optional containing the user if successfully deleted,
+     * null otherwise.
+     */
+    Optional<UserEntity> delete(long id);
+
 }
@@ -4,36 +4,90 @@ import cypher.enforcers.data.entities.AccountEntity;
 import cypher.enforcers.data.security.dtos.Account;
 import cypher.enforcers.data.security.mappers.AccountDTOMapper;
 import cypher.enforcers.data.spis.AccountRepository;
+import cypher.enforcers.utilities.ListDiff;
+import javafx.beans.property.LongProperty;
 import javafx.beans.property.ObjectProperty;
+import javafx.beans.property.ReadOnlyLongProperty;
+import javafx.beans.property.SimpleLongProperty;
 import javafx.beans.property.SimpleObjectProperty;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.HashSet;
 import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongConsumer;
 
 /**
  * This class is used to model an account in our application.
  */
 public class AccountModel {
 
+    /** Logger for the account model. */
+    private static final Logger logger = LoggerFactory.getLogger(AccountModel.class);
+
     /** Used to interact with account objects. */
     private final AccountRepository accountRepository;
 
     /**  Converts entity to a data transfer object. */
     private final AccountDTOMapper mapper;
 
+    /** Runs the queries that load the accounts. */
+    private final Executor background;
+
+    /** Runs the changes to the list of accounts once they're loaded. */
+    private final Executor ui;
+
+    /**
+     * Counts how many times the accounts have been loaded or cleared, so
+     * a load that finishes after a newer one is ignored.
+     */
+    private final AtomicLong loads = new AtomicLong();
+
+    /** Run with the ID of each account that's deleted. */
+    private LongConsumer onAccountDeleted = id -> { };
+
+    /** Run with the ID of an account the user is likely to open. */
+    private LongConsumer onAccountFocused = id -> { };
+
     /**
      * Create a new account model linked to an Account Repository with
      * a mapper to convert an account object to a transfer object.
+     * Accounts are loaded on the thread that asks for them.
      *
      * @param repository The repository containing the account.
      * @param mapper The mapper that converts an account object to be
      *               transferred.
      */
     public AccountModel(AccountRepository repository, AccountDTOMapper mapper) {
+        this(repository, mapper, Runnable::run, Runnable::run);
+    }
+
+    /**
+     * Create a new account model linked to an Account Repository with
+     * a mapper to convert an account object to a transfer object.
+     * Accounts are loaded in the background, and the list of accounts
+     * is updated once they're ready.
+     *
+     * @param repository The repository containing the account.
+     * @param mapper The mapper that converts an account object to be
+     *               transferred.
+     * @param background Runs the queries that load the accounts.
+     * @param ui Runs the changes to the list of accounts, usually
+     *           Platform::runLater.
+     */
+    public AccountModel(AccountRepository repository, AccountDTOMapper mapper, Executor background, Executor ui) {
         this.accountRepository = repository;
         this.mapper = mapper;
+        this.background = background;
+        this.ui = ui;
         setAccounts(FXCollections.observableArrayList());
     }
 
@@ -98,17 +152,80 @@ public class AccountModel {
         currentAccountProperty.set(account);
     }
 
+    /** Changes every time the accounts should be displayed again. */
+    private final LongProperty refreshProperty = new SimpleLongProperty();
+
     /**
-     * Load accounts for a user given the ID.
+     * Get the property that changes every time the accounts should be
+     * displayed again, such as after the theme changes.
+     *
+     * @return Property counting the number of refreshes.
+     */
+    public ReadOnlyLongProperty refreshProperty() {
+        return refreshProperty;
+    }
+
+    /**
+     * Ask for the accounts to be displayed again, without loading them
+     * from the database. Used when something about how they look has
+     * changed, such as the icons for a theme.
+     */
+    public void refresh() {
+        refreshProperty.set(refreshProperty.get() + 1);
+    }
+
+    /**
+     * Set what to do when an account is deleted.
+     *
+     * @param onAccountDeleted Run with the ID of each account that's
+     *                         deleted.
+     */
+    public void setOnAccountDeleted(LongConsumer onAccountDeleted) {
+        this.onAccountDeleted = onAccountDeleted;
+    }
+
+    /**
+     * Set what to do when the user hovers over, selects or moves the
+     * keyboard to an account, since they're likely to open it next.
+     *
+     * @param onAccountFocused Run with the ID of the account.
+     */
+    public void setOnAccountFocused(LongConsumer onAccountFocused) {
+        this.onAccountFocused = onAccountFocused;
+    }
+
+    /**
+     * Let the model know the user hovered over, selected or moved the
+     * keyboard to an account.
+     *
+     * @param account The account, null if there isn't one.
+     */
+    public void focusAccount(Account account) {
+        if (!Objects.isNull(account)) {
+            onAccountFocused.accept(account.id());
+        }
+    }
+
+    /**
+     * Load accounts for a user given the ID. Only the accounts that
+     * changed since the list was last loaded are updated in it.
      *
      * @param id ID of the user.
      */
     public void loadAccounts(long id) {
-        List<Account> converted = accountRepository.readAll(id)
-                .stream().map(mapper)
-                .toList();
+        long load = loads.incrementAndGet();
 
-        setAccounts(FXCollections.observableArrayList(converted));
+        accountRepository.readAllAsync(id, background)
+                .thenApply(accounts -> accounts.stream().map(mapper).toList())
+                .thenAcceptAsync(converted -> {
+                    if (load == loads.get()) {
+                        ListDiff.patch(getAccounts(), converted, Account::id);
+                    }
+                }, ui)
+                .exceptionally(e -> {
+                    logger.error("Failed to load accounts for user with ID {}. Cause: ", id, e);
+                    return null;
+                });
     }
 
     /**
@@ -125,6 +242,7 @@ public class AccountModel {
         if (accountsToDelete.size() == getAccounts().size()) {
             List<AccountEntity> results = accountRepository.deleteAll(id);
 
+            results.forEach(account -> onAccountDeleted.accept(account.getID()));
             if (results.size() == accountsToDelete.size()) {
                 getAccounts().clear();
             }
@@ -132,14 +250,31 @@ public class AccountModel {
             return;
         }
 
-        for (Account a : accountsToDelete) {
-            Optional<AccountEntity> account = accountRepository.delete(a.id());
-            if (account.isEmpty() || account.get().getID() != a.id()) {
-                return;
-            }
+        List<Long> ids = accountsToDelete.stream()
+                .map(Account::id)
+                .toList();
 
-            getAccounts().remove(a);
+        // Deleted in one transaction, so it's all or nothing.
+        List<AccountEntity> results = accountRepository.deleteAll(ids);
+        if (results.isEmpty()) {
+            return;
         }
+
+        Set<Long> deleted = new HashSet<>();
+        for (AccountEntity account : results) {
+            deleted.add(account.getID());
+            onAccountDeleted.accept(account.getID());
+        }
+
+        // Removed together, so the list only reports one change.
+        Set<Account> removed = new HashSet<>();
+        for (Account account : accountsToDelete) {
+            if (deleted.contains(account.id())) {
+                removed.add(account);
+            }
+        }
+
+        getAccounts().removeAll(removed);
     }
 
     /**
@@ -208,6 +343,7 @@ public class AccountModel {
         }
 
         List<AccountEntity> results = accountRepository.deleteAll(id);
+        results.forEach(account -> onAccountDeleted.accept(account.getID()));
         if (results.size() == getAccounts().size()) {
             getAccounts().clear();
         }
@@ -219,6 +355,7 @@ public class AccountModel {
      * logged in and the account view is loaded.
      */
     public void clear() {
+        loads.incrementAndGet();
         setAccounts(FXCollections.observableArrayList());
     }
 }
@@ -6,37 +6,89 @@ import cypher.enforcers.data.security.dtos.Account;
 import cypher.enforcers.data.security.dtos.Code;
 import cypher.enforcers.data.security.mappers.CodeDTOMapper;
 import cypher.enforcers.data.spis.CodeRepository;
+import cypher.enforcers.utilities.ListDiff;
+import cypher.enforcers.utilities.Prefetcher;
 import javafx.beans.property.ObjectProperty;
 import javafx.beans.property.SimpleObjectProperty;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * This class is used to model a code in our application.
  */
 public class CodeModel {
 
+    /** Logger for the code model. */
+    private static final Logger logger = LoggerFactory.getLogger(CodeModel.class);
+
+    /** Most accounts whose codes can be prefetched at once. */
+    public static final int MAX_PREFETCHES = 2;
+
     /** Used to interact with the codes objects. */
     private final CodeRepository codeRepository;
 
     /** Converts entity to a data transfer object. */
     private final CodeDTOMapper mapper;
 
+    /** Runs the queries that load and import the codes. */
+    private final Executor background;
+
+    /** Runs the changes to the list of codes once they're ready. */
+    private final Executor ui;
+
+    /**
+     * Counts how many times the codes have been loaded or cleared, so
+     * results meant for an older list of codes are ignored.
+     */
+    private final AtomicLong loads = new AtomicLong();
+
+    /** ID of the account whose codes are shown, -1 if there isn't one. */
+    private long accountID = -1;
+
+    /** Loads the codes for accounts the user is likely to open. */
+    private final Prefetcher<Long> prefetcher;
+
     /**
      * Create a new code model linked to a Code Repository with a mapper
-     * to convert a code object to a transfer object.
+     * to convert a code object to a transfer object. Codes are loaded
+     * on the thread that asks for them.
      *
      * @param repository The repository containing the codes.
      * @param mapper The mapper that converts a code object to be
      *               transferred.
      */
     public CodeModel(CodeRepository repository, CodeDTOMapper mapper) {
+        this(repository, mapper, Runnable::run, Runnable::run);
+    }
+
+    /**
+     * Create a new code model linked to a Code Repository with a mapper
+     * to convert a code object to a transfer object. Codes are loaded
+     * and imported in the background, and the list of codes is updated
+     * once they're ready.
+     *
+     * @param repository The repository containing the codes.
+     * @param mapper The mapper that converts a code object to be
+     *               transferred.
+     * @param background Runs the queries that load and import the codes.
+     * @param ui Runs the changes to the list of codes, usually
+     *           Platform::runLater.
+     */
+    public CodeModel(CodeRepository repository, CodeDTOMapper mapper, Executor background, Executor ui) {
         this.codeRepository = repository;
         this.mapper = mapper;
+        this.background = background;
+        this.ui = ui;
+        this.prefetcher = new Prefetcher<>(repository::readAll, background, MAX_PREFETCHES);
     }
 
     // list of codes for an account.
@@ -103,17 +155,44 @@ public class CodeModel {
     }
 
     /**
-     * Load codes for an account given the ID.
+     * Load codes for an account given the ID. Only the codes that
+     * changed since the list was last loaded are updated in it.
      *
      * @param id The ID of the account.
      */
     public void loadCodes(long id) {
-        List<Code> converted = codeRepository.readAll(id)
-                .stream()
-                .map(mapper)
-                .toList();
+        long load = loads.incrementAndGet();
+        accountID = id;
+
+        codeRepository.readAllAsync(id, background)
+                .thenApply(results -> results.stream().map(mapper).toList())
+                .thenAcceptAsync(converted -> {
+                    if (load == loads.get()) {
+                        ListDiff.patch(codes, converted, Code::id);
+                    }
+                }, ui)
+                .exceptionally(e -> {
+                    logger.error("Failed to load codes for account with ID {}. Cause: ", id, e);
+                    return null;
+                });
+    }
+
+    /**
+     * Start reading the codes for an account in the background, so
+     * they're already in memory if the account is opened. Codes asked
+     * for a while ago are dropped if they haven't started loading.
+     *
+     * @param id The ID of the account.
+     */
+    public void prefetchCodes(long id) {
+        prefetcher.prefetch(id);
+    }
 
-        codes.setAll(converted);
+    /**
+     * Stop reading the codes for any account that hasn't started yet.
+     */
+    public void cancelPrefetches() {
+        prefetcher.cancelAll();
     }
 
     /**
@@ -139,21 +218,31 @@ public class CodeModel {
      * @param source The behavior object which contains the source.
      */
     public void addCodes(Account account, ReadCodeBehavior source) {
-        List<String> returned = source.readCodes();
-        for (String s : returned) {
+        List<CodeEntity> newCodes = new ArrayList<>();
+        for (String s : source.readCodes()) {
             if (!s.isEmpty()) {
                 CodeEntity c = new CodeEntity();
                 c.setCode(s);
                 c.setAccountID(account.id());
-
-                Optional<CodeEntity> optionalCode = codeRepository.create(c);
-                if (optionalCode.isEmpty()) {
-                    return;
-                }
-
-                codes.add(mapper.apply(optionalCode.get()));
+                newCodes.add(c);
             }
         }
+
+        // Codes imported for an account are only shown if that
+        // account's codes are still the ones being displayed.
+        long load = loads.get();
+
+        codeRepository.createAllAsync(newCodes, background)
+                .thenApply(results -> results.stream().map(mapper).toList())
+                .thenAcceptAsync(converted -> {
+                    if (load == loads.get()) {
+                        codes.addAll(converted);
+                    }
+                }, ui)
+                .exceptionally(e -> {
+                    logger.error("Failed to add codes for account with ID {}. Cause: ", account.id(), e);
+                    return null;
+                });
     }
 
     /**
@@ -202,12 +291,46 @@ public class CodeModel {
         return false;
     }
 
+    /**
+     * Forget the codes of an account that was deleted, so a new account
+     * given the same ID doesn't show them.
+     *
+     * @param id The ID of the account.
+     */
+    public void forgetCodes(long id) {
+        codeRepository.forget(id);
+    }
+
+    /**
+     * Forget the codes of every account, so the accounts of a user whose
+     * database is switched to don't show codes from another one.
+     */
+    public void forgetAllCodes() {
+        codeRepository.forgetAll();
+    }
+
+    /**
+     * Forget the codes of every account and load the codes that are
+     * shown again, so they match what is actually in the database. Used
+     * when changes that were already shown failed to be written.
+     */
+    public void reloadCodes() {
+        forgetAllCodes();
+
+        if (accountID != -1) {
+            loadCodes(accountID);
+        }
+    }
+
     /**
      * Clear the current list of codes.
      * Usually called when no account is
      * selected and the code view is loaded.
      */
     public void clear() {
+        loads.incrementAndGet();
+        accountID = -1;
+        cancelPrefetches();
         codes.clear();
     }
 }
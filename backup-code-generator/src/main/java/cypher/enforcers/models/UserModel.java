@@ -5,31 +5,67 @@ import cypher.enforcers.data.spis.AuthenticationService;
 import cypher.enforcers.views.themes.Theme;
 import javafx.beans.property.ObjectProperty;
 import javafx.beans.property.SimpleObjectProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import java.util.Objects;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
 
 /**
  * This class is used to model a user in this application.
  */
 public class UserModel {
 
+    /** Logger for the user model. */
+    private static final Logger logger = LoggerFactory.getLogger(UserModel.class);
+
     /** Used to log-in users. */
     private final AuthenticationService authService;
 
     /** Run this when the model is being shut down. */
     private final Runnable onShutDown;
 
+    /** Runs the sign-in attempts. */
+    private final Executor authentication;
+
+    /** Runs the changes to the current user. */
+    private final Executor ui;
+
+    /** The last sign-in attempt made, which is the only one reported. */
+    private CompletableFuture<Boolean> lastLogIn;
+
     /**
      * Create a new user model, loaded with a user if logged in.
+     * Sign-in attempts are made on the thread that asks for them.
      *
      * @param service The Authentication service to verify user
      *                information.
      * @param runnable Function to run when this model is being shut down.
      */
     public UserModel(AuthenticationService service, Runnable runnable) {
+        this(service, runnable, Runnable::run, Runnable::run);
+    }
+
+    /**
+     * Create a new user model, loaded with a user if logged in.
+     * Sign-in attempts are verified in the background, and the current
+     * user is updated once they're done.
+     *
+     * @param service The Authentication service to verify user
+     *                information.
+     * @param runnable Function to run when this model is being shut down.
+     * @param authentication Runs the sign-in attempts.
+     * @param ui Runs the changes to the current user, usually
+     *           Platform::runLater.
+     */
+    public UserModel(AuthenticationService service, Runnable runnable, Executor authentication, Executor ui) {
         this.authService = service;
         this.onShutDown = runnable;
+        this.authentication = authentication;
+        this.ui = ui;
 
         setCurrentUser(authService.getLoggedInUser().orElse(null));
     }
@@ -87,6 +123,62 @@ public class UserModel {
         return result;
     }
 
+    /**
+     * Attempt to log in a user in the background. Making another attempt
+     * before this one is done supersedes it: if it hasn't started yet
+     * it's skipped, otherwise it's allowed to finish, but either way its
+     * future is cancelled instead of reporting the result.
+     *
+     * @param username Username for the user.
+     * @param password Password for the user.
+     * @return A future with true if successfully logged in, false
+     * otherwise, completed on the UI executor after the current user is
+     * set.
+     */
+    public CompletableFuture<Boolean> logInUserAsync(String username, String password) {
+        CompletableFuture<Boolean> attempt = new CompletableFuture<>();
+
+        CompletableFuture<Boolean> previous;
+        synchronized (this) {
+            previous = lastLogIn;
+            lastLogIn = attempt;
+        }
+
+        if (previous != null && previous.cancel(false)) {
+            logger.trace("Sign-in attempt superseded by a newer one.");
+        }
+
+        try {
+            authentication.execute(() -> {
+                if (attempt.isDone()) {
+                    return;
+                }
+
+                Optional<User> user;
+                try {
+                    user = authService.authenticateUser(username, password)
+                            ? authService.getLoggedInUser()
+                            : Optional.empty();
+                } catch (RuntimeException e) {
+                    ui.execute(() -> attempt.completeExceptionally(e));
+                    return;
+                }
+
+                // A superseded attempt that got through still logged the
+                // user in, so the current user has to match.
+                ui.execute(() -> {
+                    user.ifPresent(this::setCurrentUser);
+                    attempt.complete(user.isPresent());
+                });
+            });
+        } catch (RejectedExecutionException e) {
+            logger.warn("Unable to start sign-in attempt. Cause: ", e);
+            attempt.completeExceptionally(e);
+        }
+
+        return attempt;
+    }
+
     /**
      * Attempt to log out the current user.
      *
@@ -0,0 +1,31 @@
+package cypher.enforcers.utilities;
+
+/**
+ * A snapshot of how well a cache has been doing.
+ *
+ * @param hits   Number of lookups that were found in the cache.
+ * @param misses Number of lookups that were not found in the cache.
+ */
+public record CacheStatistics(long hits, long misses) {
+
+    /**
+     * Get the fraction of lookups that were found in the cache.
+     *
+     * @return The hit rate between 0 and 1, or 0 if nothing has
+     * been looked up yet.
+     */
+    public double hitRate() {
+        long total = hits + misses;
+        return total == 0 ? 0 : (double) hits / total;
+    }
+
+    /**
+     * Combine these statistics with the statistics of another cache.
+     *
+     * @param other The other statistics.
+     * @return The combined statistics.
+     */
+    public CacheStatistics plus(CacheStatistics other) {
+        return new CacheStatistics(hits + other.hits, misses + other.misses);
+    }
+}
@@ -0,0 +1,124 @@
+package cypher.enforcers.utilities;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ Brings a list up to date with a newer copy of it by only making the
+ changes needed, instead of replacing everything in it. Items are
+ matched by a key, such as their ID, so an item that's still there but
+ changed is replaced in place and items that didn't change are left
+ alone.
+ <br>
+ When the list is an ObservableList, anything showing it only hears
+ about the items that were added, removed or replaced, so a ListView
+ keeps its cells and selection for everything else. Items next to each
+ other are added and removed together, as one change each.
+ <br>
+ The keys in each list should be unique.
+ */
+public class ListDiff {
+
+    /**
+     * Private constructor, no reason to make an instance of this
+     * class, instead use the static method provided.
+     */
+    private ListDiff() {
+
+    }
+
+    /**
+     * Change a list so it has the same items, in the same order, as a
+     * newer copy of it.
+     *
+     * @param list The list to change.
+     * @param latest The newer copy of the list.
+     * @param key Gives the key of an item, items with the same key are
+     *            the same item even if their values differ.
+     * @param <T> The type of the items.
+     * @param <K> The type of the keys.
+     * @return The number of items that were added, removed, replaced
+     * or moved.
+     */
+    public static <T, K> int patch(List<T> list, List<? extends T> latest, Function<? super T, K> key) {
+        int changes = 0;
+
+        Set<K> kept = new HashSet<>();
+        for (T item : latest) {
+            kept.add(key.apply(item));
+        }
+
+        // Remove the items that are gone, from the end so the indices
+        // of the ones still to check don't move.
+        int end = list.size();
+        while (end > 0) {
+            if (kept.contains(key.apply(list.get(end - 1)))) {
+                end--;
+                continue;
+            }
+
+            int start = end - 1;
+            while (start > 0 && !kept.contains(key.apply(list.get(start - 1)))) {
+                start--;
+            }
+
+            list.subList(start, end).clear();
+            changes += end - start;
+            end = start;
+        }
+
+        Map<K, T> existing = new HashMap<>();
+        for (T item : list) {
+            existing.put(key.apply(item), item);
+        }
+
+        int i = 0;
+        while (i < latest.size()) {
+            T item = latest.get(i);
+            K itemKey = key.apply(item);
+
+            if (!existing.containsKey(itemKey)) {
+                // Add every new item in a row at once.
+                int runEnd = i + 1;
+                while (runEnd < latest.size() && !existing.containsKey(key.apply(latest.get(runEnd)))) {
+                    runEnd++;
+                }
+
+                list.addAll(i, latest.subList(i, runEnd));
+                changes += runEnd - i;
+                i = runEnd;
+                continue;
+            }
+
+            if (!Objects.equals(key.apply(list.get(i)), itemKey)) {
+                // The item is further down the list, so move it here.
+                int from = i + 1;
+                while (!Objects.equals(key.apply(list.get(from)), itemKey)) {
+                    from++;
+                }
+
+                list.remove(from);
+                list.add(i, item);
+                changes++;
+            } else if (!Objects.equals(list.get(i), item)) {
+                list.set(i, item);
+                changes++;
+            }
+
+            i++;
+        }
+
+        // Only left over if the list had the same key more than once.
+        if (list.size() > latest.size()) {
+            changes += list.size() - latest.size();
+            list.subList(latest.size(), list.size()).clear();
+        }
+
+        return changes;
+    }
+}
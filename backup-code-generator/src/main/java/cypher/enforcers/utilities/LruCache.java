@@ -0,0 +1,261 @@
+package cypher.enforcers.utilities;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.BiFunction;
+import java.util.function.ToLongFunction;
+import java.util.function.UnaryOperator;
+
+/**
+ A cache bounded by both the number of entries and their total size.
+ Once either bound is passed, the entries that were used the longest
+ time ago are removed until it fits again. The size of each entry is
+ only an estimate, worked out by a function given to the cache.
+ <br>
+ Every change made to the cache is counted, so a value that was read
+ from somewhere slower can be left out if the cache changed while it was
+ being read. See {@link #putIfUnmodified(Object, Object, long)}.
+ <br>
+ The cache is thread safe.
+
+ @param <K> The type of the keys.
+ @param <V> The type of the values.
+ */
+public class LruCache<K, V> {
+
+    /** Maximum number of entries. */
+    private final int maxEntries;
+
+    /** Maximum total size of the entries, in bytes. */
+    private final long maxBytes;
+
+    /** Estimates the size of a value, in bytes. */
+    private final ToLongFunction<V> sizer;
+
+    /** The entries, ordered from least to most recently used. */
+    private final LinkedHashMap<K, V> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    /** Total size of the entries, in bytes. */
+    private long bytes;
+
+    /** Number of times a key was found in the cache. */
+    private long hits;
+
+    /** Number of times a key was not found in the cache. */
+    private long misses;
+
+    /** Number of times the cache has been changed. */
+    private long modifications;
+
+    /**
+     * Create a new cache.
+     *
+     * @param maxEntries Maximum number of entries, zero to cache nothing.
+     * @param maxBytes Maximum total size of the entries, in bytes.
+     * @param sizer Estimates the size of a value, in bytes.
+     */
+    public LruCache(int maxEntries, long maxBytes, ToLongFunction<V> sizer) {
+        if (maxEntries < 0 || maxBytes < 0) {
+            throw new IllegalArgumentException("Bounds cannot be negative.");
+        }
+
+        this.maxEntries = maxEntries;
+        this.maxBytes = maxBytes;
+        this.sizer = sizer;
+    }
+
+    /**
+     * Get the value for a key, marking it as the most recently used.
+     *
+     * @param key The key.
+     * @return The value, or null if it isn't cached.
+     */
+    public synchronized V get(K key) {
+        V value = entries.get(key);
+        if (value == null) {
+            misses++;
+        } else {
+            hits++;
+        }
+
+        return value;
+    }
+
+    /**
+     * Get the number of times the cache has been changed. Pass this to
+     * {@link #putIfUnmodified(Object, Object, long)} to only cache a
+     * value if nothing changed in the meantime.
+     *
+     * @return The number of changes so far.
+     */
+    public synchronized long modifications() {
+        return modifications;
+    }
+
+    /**
+     * Cache a value, replacing the value already cached for the key.
+     *
+     * @param key The key.
+     * @param value The value.
+     */
+    public synchronized void put(K key, V value) {
+        modifications++;
+        store(key, value);
+    }
+
+    /**
+     * Cache a value, but only if the cache hasn't changed since the
+     * number of changes was checked.
+     *
+     * @param key The key.
+     * @param value The value.
+     * @param modifications The number of changes from
+     *                      {@link #modifications()}, before the value
+     *                      was read.
+     * @return True if the value was cached, false otherwise.
+     */
+    public synchronized boolean putIfUnmodified(K key, V value, long modifications) {
+        if (this.modifications != modifications) {
+            return false;
+        }
+
+        put(key, value);
+        return true;
+    }
+
+    /**
+     * Replace the value cached for a key, if there is one.
+     *
+     * @param key The key.
+     * @param update Given the cached value, returns the new value, or
+     *               null to remove it.
+     */
+    public synchronized void computeIfPresent(K key, UnaryOperator<V> update) {
+        modifications++;
+
+        V value = entries.remove(key);
+        if (value != null) {
+            bytes -= sizer.applyAsLong(value);
+            V updated = update.apply(value);
+            if (updated != null) {
+                store(key, updated);
+            }
+        }
+    }
+
+    /**
+     * Replace every cached value.
+     *
+     * @param update Given a key and its cached value, returns the new
+     *               value, or null to remove it.
+     */
+    public synchronized void replaceAll(BiFunction<K, V, V> update) {
+        modifications++;
+
+        Iterator<Map.Entry<K, V>> iterator = entries.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<K, V> entry = iterator.next();
+            V updated = update.apply(entry.getKey(), entry.getValue());
+            if (updated == entry.getValue()) {
+                continue;
+            }
+
+            bytes -= sizer.applyAsLong(entry.getValue());
+            if (updated == null) {
+                iterator.remove();
+            } else {
+                entry.setValue(updated);
+                bytes += sizer.applyAsLong(updated);
+            }
+        }
+
+        trim();
+    }
+
+    /**
+     * Remove the value cached for a key.
+     *
+     * @param key The key.
+     */
+    public synchronized void invalidate(K key) {
+        modifications++;
+
+        V value = entries.remove(key);
+        if (value != null) {
+            bytes -= sizer.applyAsLong(value);
+        }
+    }
+
+    /**
+     * Remove every cached value.
+     */
+    public synchronized void clear() {
+        modifications++;
+        entries.clear();
+        bytes = 0;
+    }
+
+    /**
+     * Get the number of cached values.
+     *
+     * @return The number of entries.
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * Get the estimated total size of the cached values.
+     *
+     * @return The size, in bytes.
+     */
+    public synchronized long bytes() {
+        return bytes;
+    }
+
+    /**
+     * Get how well this cache has been doing.
+     *
+     * @return The hits and misses so far.
+     */
+    public synchronized CacheStatistics getStatistics() {
+        return new CacheStatistics(hits, misses);
+    }
+
+    /**
+     * Add a value and remove the oldest values until the cache fits
+     * within its bounds again. A value that's too big to ever fit is
+     * not cached at all.
+     *
+     * @param key The key.
+     * @param value The value.
+     */
+    private void store(K key, V value) {
+        V previous = entries.remove(key);
+        if (previous != null) {
+            bytes -= sizer.applyAsLong(previous);
+        }
+
+        long size = sizer.applyAsLong(value);
+        if (maxEntries == 0 || size > maxBytes) {
+            return;
+        }
+
+        entries.put(key, value);
+        bytes += size;
+        trim();
+    }
+
+    /**
+     * Remove the least recently used values until the cache fits within
+     * its bounds.
+     */
+    private void trim() {
+        Iterator<V> iterator = entries.values().iterator();
+        while ((entries.size() > maxEntries || bytes > maxBytes) && iterator.hasNext()) {
+            bytes -= sizer.applyAsLong(iterator.next());
+            iterator.remove();
+        }
+    }
+}
@@ -0,0 +1,176 @@
+package cypher.enforcers.utilities;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Consumer;
+
+/**
+ Loads data in the background before it's asked for, so it's already in
+ memory once it is. Only a few loads run at once, and the rest wait their
+ turn. When more loads are waiting than can run, the ones asked for the
+ longest time ago are dropped, since the user has most likely moved on
+ from them.
+ <br>
+ A load that has already started runs to the end, there's no way to stop
+ a query halfway through. Its result is kept, in case it's needed after
+ all.
+ <br>
+ The prefetcher is thread safe.
+
+ @param <K> The type of the keys of the data being loaded.
+ */
+public class Prefetcher<K> {
+
+    /** Logger for the prefetcher. */
+    private static final Logger logger = LoggerFactory.getLogger(Prefetcher.class);
+
+    /** Loads the data for a key, keeping it in memory. */
+    private final Consumer<K> loader;
+
+    /** Runs the loads. */
+    private final Executor executor;
+
+    /** Most loads that can run at once. */
+    private final int maxRunning;
+
+    /** Keys waiting to be loaded, the most recent last. */
+    private final Deque<K> waiting = new ArrayDeque<>();
+
+    /** Keys being loaded right now. */
+    private final Set<K> running = new HashSet<>();
+
+    /**
+     * Create a new prefetcher.
+     *
+     * @param loader Loads the data for a key, keeping it in memory.
+     * @param executor Runs the loads.
+     * @param maxRunning Most loads that can run at once, the same number
+     *                   of loads can be waiting.
+     */
+    public Prefetcher(Consumer<K> loader, Executor executor, int maxRunning) {
+        if (maxRunning < 1) {
+            throw new IllegalArgumentException("At least one load must be able to run.");
+        }
+
+        this.loader = loader;
+        this.executor = executor;
+        this.maxRunning = maxRunning;
+    }
+
+    /**
+     * Load the data for a key in the background. Nothing happens if it's
+     * already being loaded or waiting to be.
+     *
+     * @param key The key.
+     */
+    public void prefetch(K key) {
+        Objects.requireNonNull(key);
+
+        synchronized (this) {
+            if (running.contains(key)) {
+                return;
+            }
+
+            // Moved to the back, it's the most recent again.
+            waiting.remove(key);
+            waiting.addLast(key);
+
+            while (waiting.size() > maxRunning) {
+                logger.trace("Dropped prefetch for {}.", waiting.removeFirst());
+            }
+        }
+
+        startNext();
+    }
+
+    /**
+     * Stop loading the data for a key, if it hasn't started yet.
+     *
+     * @param key The key.
+     */
+    public synchronized void cancel(K key) {
+        waiting.remove(key);
+    }
+
+    /**
+     * Stop every load that hasn't started yet.
+     */
+    public synchronized void cancelAll() {
+        waiting.clear();
+    }
+
+    /**
+     * Get the number of loads that are waiting to start.
+     *
+     * @return The number of waiting loads.
+     */
+    public synchronized int waiting() {
+        return waiting.size();
+    }
+
+    /**
+     * Get the number of loads that are running.
+     *
+     * @return The number of running loads.
+     */
+    public synchronized int running() {
+        return running.size();
+    }
+
+    /**
+     * Start the most recent waiting loads, as long as there's room for
+     * them to run.
+     */
+    private void startNext() {
+        while (true) {
+            K key;
+            synchronized (this) {
+                if (running.size() >= maxRunning || waiting.isEmpty()) {
+                    return;
+                }
+
+                key = waiting.removeLast();
+                running.add(key);
+            }
+
+            try {
+                executor.execute(() -> load(key));
+            } catch (RejectedExecutionException e) {
+                logger.debug("Prefetch for {} rejected, executor shut down.", key);
+                synchronized (this) {
+                    running.remove(key);
+                }
+
+                return;
+            }
+        }
+    }
+
+    /**
+     * Load the data for a key, then start the next waiting load.
+     *
+     * @param key The key.
+     */
+    private void load(K key) {
+        try {
+            logger.trace("Prefetching {}.", key);
+            loader.accept(key);
+        } catch (RuntimeException e) {
+            logger.warn("Failed to prefetch {}. Cause: ", key, e);
+        } finally {
+            synchronized (this) {
+                running.remove(key);
+            }
+
+            startNext();
+        }
+    }
+}
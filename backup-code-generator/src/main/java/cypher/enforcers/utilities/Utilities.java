@@ -10,6 +10,8 @@ import cypher.enforcers.commands.SwitchToHighContrastMode;
 import cypher.enforcers.commands.SwitchToLightMode;
 import cypher.enforcers.commands.managers.ThemeSwitcher;
 import cypher.enforcers.data.implementations.*;
+import cypher.enforcers.data.security.CodeCipher;
+import cypher.enforcers.data.security.SecurityUtils;
 import cypher.enforcers.data.security.dtos.Account;
 import cypher.enforcers.data.security.mappers.AccountDTOMapper;
 import cypher.enforcers.data.security.mappers.CodeDTOMapper;
@@ -33,10 +35,15 @@ import java.io.*;
 import java.net.URL;
 import java.nio.file.Files;
 import java.nio.file.Paths;
+import java.time.Duration;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Stream;
 
 /**
@@ -64,6 +71,13 @@ public class Utilities {
      */
     private static final String PATH_TO_LOGBACK_CONFIG = "logback.xml";
 
+    /**
+     * How long hashing a password should take on this machine, in
+     * milliseconds, unless the cypher.enforcers.hashing.target system
+     * property says otherwise.
+     */
+    private static final long DEFAULT_HASHING_TARGET = 100;
+
     /**
      * Check if a given account supports imports based on the social
      * media type.
@@ -251,6 +265,61 @@ public class Utilities {
         icons.put("default", loadFileByURL(defaultIcon).toExternalForm());
     }
 
+    /**
+     * Prepare the authentication service. When each user has a database
+     * of their own, the users and their sessions are read from the
+     * directory instead.
+     *
+     * @param service The database service.
+     * @return The new authentication service.
+     */
+    private static AuthenticationService prepareAuthenticationService(DatabaseService service) {
+        return prepareAuthenticationService(service, KeyRing.NONE);
+    }
+
+    /**
+     * Prepare the authentication service, unlocking the key of each user
+     * in a key ring when they log in. When each user has a database of
+     * their own, the users and their sessions are read from the directory
+     * instead.
+     *
+     * @param service The database service.
+     * @param keys The key ring.
+     * @return The new authentication service.
+     */
+    private static AuthenticationService prepareAuthenticationService(DatabaseService service, KeyRing keys) {
+        DatabaseService users = getUserDatabase(service);
+        ShardRouter router = service instanceof ShardedSQLiteHelper sharded ? sharded : ShardRouter.NONE;
+
+        UserDAO userDAO = new UserDAOImpl(users);
+        UserRepository repository = new UserRepositoryImpl(userDAO);
+        UserDTOMapper mapper = new UserDTOMapper();
+        SessionRepository sessionRepository = new SessionRepositoryImpl(new SessionDAOImpl(users));
+        return new AuthenticationServiceImpl(repository, sessionRepository, mapper, router, keys);
+    }
+
+    /**
+     * Get the database service for the database the users are in, which
+     * is the directory when each user has a database of their own.
+     *
+     * @param service The database service.
+     * @return The database service for the users.
+     */
+    private static DatabaseService getUserDatabase(DatabaseService service) {
+        return service instanceof ShardedSQLiteHelper sharded ? sharded.getDirectory() : service;
+    }
+
+    /**
+     * Prepare the cipher that encrypts the codes of each user, with the
+     * keys kept in the database the users are in.
+     *
+     * @param service The database service.
+     * @return The new code cipher.
+     */
+    public static CodeCipher prepareCodeCipher(DatabaseService service) {
+        return new CodeCipher(getUserDatabase(service));
+    }
+
     /**
      * Prepare the user model.
      *
@@ -258,10 +327,7 @@ public class Utilities {
      * @return The new user model.
      */
     public static UserModel prepareUserModel(DatabaseService service) {
-        UserDAO userDAO = new UserDAOImpl(service);
-        UserRepository repository = new UserRepositoryImpl(userDAO);
-        UserDTOMapper mapper = new UserDTOMapper();
-        AuthenticationService authService = new AuthenticationServiceImpl(repository, mapper);
+        AuthenticationService authService = prepareAuthenticationService(service);
         return new UserModel(authService, service::disconnect);
     }
 
@@ -291,9 +357,117 @@ public class Utilities {
         return new CodeModel(repository, mapper);
     }
 
+    /**
+     * Prepare the user model for a database service that runs queries
+     * in the background, verifying sign-in attempts on their own thread
+     * and unlocking the key of each user in a key ring when they log in.
+     * Shutting down the model writes anything still in the write-behind
+     * queue, if there is one, before disconnecting from the database.
+     *
+     * @param service The async database service.
+     * @param queue The write-behind queue, null if changes are written
+     *              right away.
+     * @param keys The key ring.
+     * @return The new user model.
+     */
+    public static UserModel prepareUserModel(AsyncDatabaseService service, WriteBehindQueue queue, KeyRing keys) {
+        AuthenticationService authService = prepareAuthenticationService(service.getService(), keys);
+        ExecutorService authentication = prepareAuthenticationExecutor();
+        return new UserModel(authService, () -> {
+            authentication.shutdownNow();
+            service.shutDown();
+            if (queue != null) {
+                queue.shutDown();
+            }
+            service.getService().disconnect();
+        }, authentication, Platform::runLater);
+    }
+
+    /**
+     * Prepare the executor that verifies sign-in attempts. It has one
+     * thread, since hashing a password is meant to be slow and there's no
+     * use checking two attempts at once, and holds at most one attempt
+     * waiting behind it. An older waiting attempt is dropped for a newer
+     * one, since only the newest is reported anyway.
+     *
+     * @return The new executor.
+     */
+    private static ExecutorService prepareAuthenticationExecutor() {
+        return new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(1),
+                Thread.ofPlatform().name("sign-in").daemon().factory(),
+                new ThreadPoolExecutor.DiscardOldestPolicy());
+    }
+
+    /**
+     * Prepare the account model for a database service that runs
+     * queries in the background, adding accounts along with the changes
+     * in a write-behind queue if there is one. The accounts of recently
+     * logged-in users are kept in memory.
+     *
+     * @param service The async database service.
+     * @param queue The write-behind queue, null if changes are written
+     *              right away.
+     * @return The new account model.
+     */
+    public static AccountModel prepareAccountModel(AsyncDatabaseService service, WriteBehindQueue queue) {
+        AccountDAO accountDAO = new AccountDAOImpl(service.getService());
+        if (queue != null) {
+            accountDAO = new WriteBehindAccountDAO(accountDAO, queue);
+        }
+
+        AccountRepository repository = new AccountRepositoryImpl(accountDAO,
+                AccountRepositoryImpl.DEFAULT_CACHED_USERS, AccountRepositoryImpl.DEFAULT_CACHED_BYTES);
+        AccountDTOMapper mapper = new AccountDTOMapper();
+        return new AccountModel(repository, mapper, service, Platform::runLater);
+    }
+
+    /**
+     * Prepare the code model for a database service that runs queries
+     * in the background, queueing edits and deletes in a write-behind
+     * queue if there is one, and encrypting the codes before they're
+     * stored if there is a cipher. The codes of recently viewed accounts
+     * are kept in memory, decrypted.
+     *
+     * @param service The async database service.
+     * @param queue The write-behind queue, null if changes are written
+     *              right away.
+     * @param cipher Encrypts and decrypts the codes, null if they're
+     *               stored as they are.
+     * @return The new code model.
+     */
+    public static CodeModel prepareCodeModel(AsyncDatabaseService service, WriteBehindQueue queue, CodeCipher cipher) {
+        CodeDAO codeDAO = new CodeDAOImpl(service.getService());
+        if (queue != null) {
+            codeDAO = new WriteBehindCodeDAO(codeDAO, queue);
+        }
+        if (cipher != null) {
+            codeDAO = new EncryptedCodeDAO(codeDAO, cipher);
+        }
+
+        return prepareCodeModel(service, codeDAO);
+    }
+
+    /**
+     * Prepare the code model for a database service that runs queries
+     * in the background, on top of a Code DAO. The codes of recently
+     * viewed accounts are kept in memory.
+     *
+     * @param service The async database service.
+     * @param codeDAO The Code Data Access Object.
+     * @return The new code model.
+     */
+    private static CodeModel prepareCodeModel(AsyncDatabaseService service, CodeDAO codeDAO) {
+        CodeRepository repository = new CodeRepositoryImpl(codeDAO,
+                CodeRepositoryImpl.DEFAULT_CACHED_ACCOUNTS, CodeRepositoryImpl.DEFAULT_CACHED_BYTES);
+        CodeDTOMapper mapper = new CodeDTOMapper();
+        return new CodeModel(repository, mapper, service, Platform::runLater);
+    }
+
     /**
      * Prepare additional resources for this application such as
-     * any event handlers, streams, resources, etc.
+     * any event handlers, streams, resources, etc. Password hashing is
+     * calibrated for this machine in the background.
      *
      * @param stage The main window for this application.
      * @throws NullPointerException If any configuration file can't
@@ -307,6 +481,19 @@ public class Utilities {
             JoranException, IOException {
         configureLogger();
         registerExceptionHandler(stage);
+        calibrateHashing();
+    }
+
+    /**
+     * Calibrate password hashing for this machine on a thread of its own,
+     * since timing the algorithm would hold up the window from showing.
+     * Passwords hashed before it's done use the default number of
+     * iterations.
+     */
+    private static void calibrateHashing() {
+        Duration target = Duration.ofMillis(
+                Long.getLong("cypher.enforcers.hashing.target", DEFAULT_HASHING_TARGET));
+        Thread.ofPlatform().name("hashing-calibration").daemon().start(() -> SecurityUtils.calibrate(target));
     }
 
     /**
@@ -0,0 +1,132 @@
+package cypher.enforcers.utilities.sqliteutilities;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A connection that has been borrowed from a database service. The
+ * connection belongs to whoever holds this lease until it's closed, at
+ * which point it's handed back to the service so someone else can use it.
+ * <br>
+ * Meant to be used with a try-with-resources block.
+ */
+public class ConnectionLease implements AutoCloseable {
+
+    /** Logger for the connection lease. */
+    private static final Logger logger = LoggerFactory.getLogger(ConnectionLease.class);
+
+    /** The connection being borrowed. */
+    private final Connection connection;
+
+    /** Statements cached for this connection, null if there's no cache. */
+    private final StatementCache cache;
+
+    /** Statements prepared without a cache, closed with the lease. */
+    private final List<PreparedStatement> prepared = new ArrayList<>();
+
+    /** How to hand the connection back to the service. */
+    private final Runnable onRelease;
+
+    /** If this lease has already been handed back. */
+    private boolean released;
+
+    /**
+     * Create a new lease for a connection.
+     *
+     * @param connection The connection being borrowed.
+     * @param onRelease Run once when the lease is closed, used to hand the
+     *                  connection back to the service it came from.
+     */
+    public ConnectionLease(Connection connection, Runnable onRelease) {
+        this.connection = connection;
+        this.cache = null;
+        this.onRelease = onRelease;
+    }
+
+    /**
+     * Create a new lease for a connection that has a statement cache.
+     *
+     * @param cache The statement cache of the connection being borrowed.
+     * @param onRelease Run once when the lease is closed, used to hand the
+     *                  connection back to the service it came from.
+     */
+    public ConnectionLease(StatementCache cache, Runnable onRelease) {
+        this.connection = cache.getConnection();
+        this.cache = cache;
+        this.onRelease = onRelease;
+    }
+
+    /**
+     * Get the connection being borrowed.
+     *
+     * @return The connection.
+     */
+    public Connection getConnection() {
+        return connection;
+    }
+
+    /**
+     * Lend the connection to someone else while still holding it, such
+     * as a query that runs as part of a transaction. Closing the new
+     * lease only closes the statements prepared through it, the
+     * connection is handed back when this lease is closed.
+     *
+     * @return A new lease on the same connection.
+     */
+    public ConnectionLease share() {
+        if (cache == null) {
+            return new ConnectionLease(connection, () -> { });
+        }
+
+        return new ConnectionLease(cache, () -> { });
+    }
+
+    /**
+     * Get a prepared statement for a query. If the connection has a
+     * statement cache, the statement is reused across leases. The
+     * statement belongs to the lease and must not be closed by the caller.
+     *
+     * @param query The query.
+     * @return The prepared statement.
+     * @throws SQLException If the statement could not be prepared.
+     */
+    public PreparedStatement prepare(String query) throws SQLException {
+        if (cache != null) {
+            return cache.prepare(query);
+        }
+
+        PreparedStatement statement = connection.prepareStatement(query);
+        prepared.add(statement);
+        return statement;
+    }
+
+    /**
+     * Hand the connection back to the service. Closing a lease more than
+     * once has no effect.
+     */
+    @Override
+    public void close() {
+        if (released) {
+            return;
+        }
+
+        released = true;
+
+        for (PreparedStatement statement : prepared) {
+            try {
+                statement.close();
+            } catch (SQLException e) {
+                logger.warn("Failed to close statement. Cause: ", e);
+            }
+        }
+
+        prepared.clear();
+        onRelease.run();
+    }
+}
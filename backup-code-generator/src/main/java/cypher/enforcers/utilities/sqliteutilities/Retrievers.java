@@ -1,11 +1,15 @@
 package cypher.enforcers.utilities.sqliteutilities;
 
 import cypher.enforcers.data.entities.CodeEntity;
+import cypher.enforcers.data.entities.CodeKeyEntity;
 import cypher.enforcers.data.entities.AccountEntity;
+import cypher.enforcers.data.entities.SessionEntity;
+import cypher.enforcers.data.entities.ShardEntity;
 import cypher.enforcers.data.entities.UserEntity;
 import cypher.enforcers.views.themes.Theme;
 
 import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
 import java.util.Map;
 import java.util.function.Function;
@@ -29,83 +33,102 @@ public class Retrievers {
     }
 
     /** How to retrieve a user from a result set. */
-    private static final Function<ResultSet, UserEntity> FOR_USER = resultSet -> {
-        UserEntity user;
-        try {
-            if (!resultSet.isBeforeFirst()) {
-                return null;
-            }
-
-            user = new UserEntity();
-            user.setID(resultSet.getLong("id"));
-            user.setUsername(resultSet.getString("username"));
-            user.setPassword(resultSet.getString("password"));
-            user.setTheme(Theme.values()[resultSet.getInt("theme_value")]);
-            boolean result = resultSet.getShort("logged_in") == 1;
-            user.setLoggedIn(result);
-        } catch (SQLException e) {
-            throw new RuntimeException(e);
-        }
+    private static final RowMapper.Binder<UserEntity> FOR_USER = resultSet -> {
+        int id = resultSet.findColumn("id");
+        int username = resultSet.findColumn("username");
+        int password = resultSet.findColumn("password");
+        int theme = resultSet.findColumn("theme_value");
+        // Only there when the query works out if the user has a session.
+        int loggedIn = findOptionalColumn(resultSet, "logged_in");
 
-        return user;
+        return row -> new UserEntity(
+                row.getLong(id),
+                row.getString(username),
+                row.getString(password),
+                Theme.fromValue(row.getInt(theme)),
+                loggedIn > 0 && row.getShort(loggedIn) == 1
+        );
     };
 
     /** How to retrieve a theme from the result set. */
-    private static final Function<ResultSet, Theme> FOR_THEME = resultSet -> {
-        try {
-            return Theme.values()[resultSet.getInt("theme_value")];
-        } catch (SQLException e) {
-            throw new RuntimeException(e);
-        }
+    private static final RowMapper.Binder<Theme> FOR_THEME = resultSet -> {
+        int theme = resultSet.findColumn("theme_value");
+        return row -> Theme.fromValue(row.getInt(theme));
     };
 
     /** How to retrieve an account from the result set. */
-    private static final Function<ResultSet, AccountEntity> FOR_ACCOUNT = resultSet -> {
-        try {
-            if (resultSet.getRow() == 0 && !resultSet.isBeforeFirst()) {
-                return null;
-            }
+    private static final RowMapper.Binder<AccountEntity> FOR_ACCOUNT = resultSet -> {
+        int id = resultSet.findColumn("id");
+        int userId = resultSet.findColumn("user_id");
+        int name = resultSet.findColumn("name");
+        int type = resultSet.findColumn("type");
 
-            AccountEntity account = new AccountEntity();
-            account.setId(resultSet.getLong("id"));
-            account.setName(resultSet.getString("name"));
-            account.setSocialMediaType(resultSet.getString("type"));
-            account.setUserId(resultSet.getLong("user_id"));
-            return account;
-        } catch (SQLException e) {
-            throw new RuntimeException(e);
-        }
+        return row -> new AccountEntity(
+                row.getLong(id),
+                row.getLong(userId),
+                row.getString(name),
+                row.getString(type)
+        );
     };
 
     /** How to retrieve a code from the result set. */
-    private static final Function<ResultSet, CodeEntity> FOR_CODE = resultSet -> {
-        try {
-            if (resultSet.getRow() == 0 && !resultSet.isBeforeFirst()) {
-                return null;
-            }
+    private static final RowMapper.Binder<CodeEntity> FOR_CODE = resultSet -> {
+        int id = resultSet.findColumn("id");
+        int accountId = resultSet.findColumn("account_id");
+        int code = resultSet.findColumn("code");
 
-            CodeEntity code = new CodeEntity();
-            code.setId(resultSet.getLong("id"));
-            code.setCode(resultSet.getString("code"));
-            code.setAccountID(resultSet.getLong("account_id"));
-            return code;
-        } catch (SQLException e) {
-            throw new RuntimeException(e);
-        }
+        return row -> new CodeEntity(row.getLong(id), row.getLong(accountId), row.getString(code));
+    };
+
+    /** How to retrieve a session from the result set. */
+    private static final RowMapper.Binder<SessionEntity> FOR_SESSION = resultSet -> {
+        int token = resultSet.findColumn("token");
+        int userId = resultSet.findColumn("user_id");
+        int created = resultSet.findColumn("created");
+        int lastSeen = resultSet.findColumn("last_seen");
+
+        return row -> new SessionEntity(
+                row.getString(token),
+                row.getLong(userId),
+                row.getLong(created),
+                row.getLong(lastSeen)
+        );
+    };
+
+    /** How to retrieve a shard from the result set. */
+    private static final RowMapper.Binder<ShardEntity> FOR_SHARD = resultSet -> {
+        int userId = resultSet.findColumn("user_id");
+        int file = resultSet.findColumn("file");
+
+        return row -> new ShardEntity(row.getLong(userId), row.getString(file));
+    };
+
+    /** How to retrieve the key of a user's codes from the result set. */
+    private static final RowMapper.Binder<CodeKeyEntity> FOR_CODE_KEY = resultSet -> {
+        int userId = resultSet.findColumn("user_id");
+        int salt = resultSet.findColumn("salt");
+        int iterations = resultSet.findColumn("iterations");
+
+        return row -> new CodeKeyEntity(row.getLong(userId), row.getString(salt), row.getInt(iterations));
     };
 
     /** Maps the type of object to how it should be retrieved. */
-    private static final Map<Class<?>, Function<ResultSet, ?>> OBJECT_TYPE_TO_RETRIEVER =
+    private static final Map<Class<?>, RowMapper.Binder<?>> OBJECT_TYPE_TO_RETRIEVER =
             Map.ofEntries(
                     Map.entry(UserEntity.class, FOR_USER),
                     Map.entry(Theme.class, FOR_THEME),
                     Map.entry(AccountEntity.class, FOR_ACCOUNT),
-                    Map.entry(CodeEntity.class, FOR_CODE)
+                    Map.entry(CodeEntity.class, FOR_CODE),
+                    Map.entry(SessionEntity.class, FOR_SESSION),
+                    Map.entry(ShardEntity.class, FOR_SHARD),
+                    Map.entry(CodeKeyEntity.class, FOR_CODE_KEY)
             );
 
     /**
      * Get a retriever that can retrieve a specific type of object from
-     * a result set.
+     * a result set. The columns are found the first time the retriever
+     * sees a result set, so a new retriever should be used for each
+     * query rather than shared between threads.
      *
      * @param type The class of the object to retrieve.
      * @param <T> The type of data to retrieve.
@@ -114,6 +137,83 @@ public class Retrievers {
      */
     @SuppressWarnings("unchecked")
     public static <T> Function<ResultSet, T> get(Class<T> type) {
-        return (Function<ResultSet, T>) OBJECT_TYPE_TO_RETRIEVER.get(type);
+        RowMapper.Binder<T> binder = (RowMapper.Binder<T>) OBJECT_TYPE_TO_RETRIEVER.get(type);
+        if (binder == null) {
+            return null;
+        }
+
+        return new Retriever<>(binder);
+    }
+
+    /**
+     * Find the index of a column that a query may leave out.
+     *
+     * @param resultSet The result set.
+     * @param column The name of the column.
+     * @return The index of the column, or 0 if there's no such column.
+     * @throws SQLException If the columns could not be read.
+     */
+    private static int findOptionalColumn(ResultSet resultSet, String column) throws SQLException {
+        ResultSetMetaData metaData = resultSet.getMetaData();
+        for (int i = 1; i <= metaData.getColumnCount(); i++) {
+            if (metaData.getColumnLabel(i).equalsIgnoreCase(column)) {
+                return i;
+            }
+        }
+
+        return 0;
+    }
+
+    /**
+     * Retrieves objects from the rows of a result set, making a new row
+     * mapper whenever it's given a different result set.
+     *
+     * @param <T> The type of data to retrieve.
+     */
+    private static final class Retriever<T> implements Function<ResultSet, T> {
+
+        /** Makes the row mapper for each result set. */
+        private final RowMapper.Binder<T> binder;
+
+        /** The result set the row mapper was made for. */
+        private ResultSet bound;
+
+        /** Maps the rows of the result set it was made for. */
+        private RowMapper<T> mapper;
+
+        /**
+         * Create a new retriever.
+         *
+         * @param binder Makes the row mapper for each result set.
+         */
+        private Retriever(RowMapper.Binder<T> binder) {
+            this.binder = binder;
+        }
+
+        /**
+         * Retrieve the object from the current row of a result set.
+         *
+         * @param resultSet The result set.
+         * @return The object, or null if the result set has no rows.
+         */
+        @Override
+        public T apply(ResultSet resultSet) {
+            try {
+                if (resultSet != bound) {
+                    // Only checked once per result set, a result set
+                    // with no rows is never before the first one.
+                    if (resultSet.getRow() == 0 && !resultSet.isBeforeFirst()) {
+                        return null;
+                    }
+
+                    mapper = binder.bind(resultSet);
+                    bound = resultSet;
+                }
+
+                return mapper.map(resultSet);
+            } catch (SQLException e) {
+                throw new UncheckedSQLException(e);
+            }
+        }
     }
 }
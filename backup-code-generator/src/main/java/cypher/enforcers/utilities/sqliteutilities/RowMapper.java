@@ -0,0 +1,43 @@
+package cypher.enforcers.utilities.sqliteutilities;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Maps the current row of a result set to an object. A row mapper is
+ * made for one result set, so it can remember where each column is
+ * instead of looking it up by name on every row.
+ *
+ * @param <T> The type of object each row is mapped to.
+ */
+@FunctionalInterface
+public interface RowMapper<T> {
+
+    /**
+     * Map the current row.
+     *
+     * @param resultSet The result set, positioned on the row to map.
+     * @return The object for the row.
+     * @throws SQLException If a column could not be read.
+     */
+    T map(ResultSet resultSet) throws SQLException;
+
+    /**
+     * Makes a row mapper for a result set, usually by finding the index
+     * of each column it needs.
+     *
+     * @param <T> The type of object each row is mapped to.
+     */
+    @FunctionalInterface
+    interface Binder<T> {
+
+        /**
+         * Make a row mapper for a result set.
+         *
+         * @param resultSet The result set the rows will come from.
+         * @return The row mapper.
+         * @throws SQLException If a column the mapper needs is missing.
+         */
+        RowMapper<T> bind(ResultSet resultSet) throws SQLException;
+    }
+}
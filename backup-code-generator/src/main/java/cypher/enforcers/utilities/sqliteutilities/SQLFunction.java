@@ -0,0 +1,24 @@
+package cypher.enforcers.utilities.sqliteutilities;
+
+import java.sql.SQLException;
+
+/**
+ * A functional interface that accepts one value and returns a result,
+ * and is allowed to throw an SQLException.
+ *
+ * @param <T> Type of the value.
+ * @param <R> Type of the result.
+ */
+@FunctionalInterface
+public interface SQLFunction<T, R> {
+
+    /**
+     * Apply this function to a value.
+     *
+     * @param value The value.
+     * @return The result.
+     * @throws SQLException If anything goes wrong.
+     */
+    R apply(T value) throws SQLException;
+
+}
@@ -0,0 +1,203 @@
+package cypher.enforcers.utilities.sqliteutilities;
+
+import cypher.enforcers.utilities.Utilities;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+
+/**
+ * This class is used to bring the schema of a database up to date. The
+ * version of the schema is kept in the user_version of the database, and
+ * each migration that hasn't been applied yet is run in order.
+ */
+public class SchemaMigrator {
+
+    /** Logger for the schema migrator. */
+    private static final Logger logger = LoggerFactory.getLogger(SchemaMigrator.class);
+
+    /**
+     * The migrations, relative to the resources folder. The version of
+     * the schema after a migration is its position in this list, starting
+     * from 1. New migrations must only be added to the end.
+     */
+    private static final List<String> MIGRATIONS = List.of(
+            "database/migrations/001_add_lookup_indexes.sql",
+            "database/migrations/002_add_sessions.sql",
+            "database/migrations/003_add_shards.sql",
+            "database/migrations/004_add_code_keys.sql"
+    );
+
+    /** The schema the first migration starts from, relative to the resources folder. */
+    private static final String SCHEMA = "database/schema.sql";
+
+    /**
+     * Private constructor for the schema migrator.
+     * No reason to make an instance of this object, instead use the static
+     * methods provided.
+     * <br>
+     * Mainly here to avoid warnings.
+     */
+    private SchemaMigrator() {
+
+    }
+
+    /**
+     * Get the version of the schema once every migration is applied.
+     *
+     * @return The latest version.
+     */
+    public static int latestVersion() {
+        return MIGRATIONS.size();
+    }
+
+    /**
+     * Get the version of the schema of a database.
+     *
+     * @param connection Connection to the database.
+     * @return The version.
+     * @throws SQLException If the version could not be read.
+     */
+    public static int currentVersion(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery("PRAGMA user_version")) {
+            return resultSet.next() ? resultSet.getInt(1) : 0;
+        }
+    }
+
+    /**
+     * Apply every migration the database doesn't have yet. Each migration
+     * runs in its own transaction along with the change to the version,
+     * so a failed migration leaves the database at the last version that
+     * worked.
+     *
+     * @param connection Connection to the database.
+     * @throws SQLException If a migration fails.
+     */
+    public static void migrate(Connection connection) throws SQLException {
+        int version = currentVersion(connection);
+
+        if (version > latestVersion()) {
+            logger.warn("Database is at version {}, which is newer than this application ({}).", version, latestVersion());
+            return;
+        }
+
+        boolean autoCommit = connection.getAutoCommit();
+        try {
+            connection.setAutoCommit(false);
+
+            for (int next = version + 1; next <= latestVersion(); next++) {
+                String path = MIGRATIONS.get(next - 1);
+                logger.trace("Applying migration {}.", path);
+
+                try (Statement statement = connection.createStatement()) {
+                    for (String sql : splitStatements(loadMigration(path))) {
+                        statement.execute(sql);
+                    }
+
+                    statement.execute("PRAGMA user_version = " + next);
+                    connection.commit();
+                } catch (SQLException e) {
+                    connection.rollback();
+                    throw new SQLException("Migration " + path + " failed.", e);
+                }
+
+                logger.info("Database migrated to version {}.", next);
+            }
+        } finally {
+            connection.setAutoCommit(autoCommit);
+        }
+    }
+
+    /**
+     * Create the schema in a database that has no tables yet, then apply
+     * every migration. A database that already has tables is only
+     * migrated.
+     *
+     * @param connection Connection to the database.
+     * @throws SQLException If the schema could not be created or a
+     * migration fails.
+     */
+    public static void bootstrap(Connection connection) throws SQLException {
+        if (hasTables(connection)) {
+            migrate(connection);
+            return;
+        }
+
+        boolean autoCommit = connection.getAutoCommit();
+        try {
+            connection.setAutoCommit(false);
+
+            try (Statement statement = connection.createStatement()) {
+                for (String sql : splitStatements(loadMigration(SCHEMA))) {
+                    statement.execute(sql);
+                }
+
+                statement.execute("PRAGMA user_version = 0");
+                connection.commit();
+            } catch (SQLException e) {
+                connection.rollback();
+                throw new SQLException("Could not create schema.", e);
+            }
+        } finally {
+            connection.setAutoCommit(autoCommit);
+        }
+
+        logger.info("Database schema created.");
+        migrate(connection);
+    }
+
+    /**
+     * Check if a database has any tables.
+     *
+     * @param connection Connection to the database.
+     * @return True if it has at least one table, false otherwise.
+     * @throws SQLException If the tables could not be listed.
+     */
+    private static boolean hasTables(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery("SELECT 1 FROM sqlite_master WHERE type = 'table' LIMIT 1")) {
+            return resultSet.next();
+        }
+    }
+
+    /**
+     * Load the SQL of a migration from the resources folder.
+     *
+     * @param path Path of the migration, relative to the resources folder.
+     * @return The SQL.
+     * @throws SQLException If the migration could not be loaded.
+     */
+    private static String loadMigration(String path) throws SQLException {
+        try (InputStream inputStream = Utilities.loadFileByInputStream(path)) {
+            return new String(inputStream.readAllBytes(), StandardCharsets.UTF_8);
+        } catch (IOException | NullPointerException e) {
+            throw new SQLException("Could not load migration " + path + ".", e);
+        }
+    }
+
+    /**
+     * Split the SQL of a migration into its statements, leaving out
+     * comments and blank statements. Statements are separated by
+     * semicolons, so they must not contain any themselves.
+     *
+     * @param sql The SQL.
+     * @return The statements.
+     */
+    private static List<String> splitStatements(String sql) {
+        String withoutComments = sql.replaceAll("(?m)--.*$", "");
+
+        return List.of(withoutComments.split(";"))
+                .stream()
+                .map(String::trim)
+                .filter(statement -> !statement.isEmpty())
+                .toList();
+    }
+}
@@ -0,0 +1,167 @@
+package cypher.enforcers.utilities.sqliteutilities;
+
+import cypher.enforcers.data.entities.AccountEntity;
+import cypher.enforcers.data.entities.UserEntity;
+import cypher.enforcers.data.implementations.ShardedSQLiteHelper;
+import cypher.enforcers.data.implementations.SQLiteHelper;
+import cypher.enforcers.data.spis.DatabaseService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.List;
+
+/**
+ * This class is used to split a database shared by every user into one
+ * database for each user. The shared database becomes the directory,
+ * keeping the users and their sessions, while the accounts and codes of
+ * each user are moved into their own database.
+ * <br>
+ * Each user is moved in their own transaction, so if the split stops
+ * part of the way through, running it again picks up where it left off.
+ */
+public class ShardSplitter {
+
+    /** Logger for the shard splitter. */
+    private static final Logger logger = LoggerFactory.getLogger(ShardSplitter.class);
+
+    /** Query to read every user. */
+    private static final String GET_USERS = "SELECT * FROM users ORDER BY id";
+
+    /** Query to copy the accounts of a user out of the directory. */
+    private static final String COPY_ACCOUNTS = "INSERT OR IGNORE INTO accounts (id, user_id, name, type) SELECT id, user_id, name, type FROM source.accounts WHERE user_id = ?";
+
+    /** Query to copy the codes of a user out of the directory. */
+    private static final String COPY_CODES = "INSERT OR IGNORE INTO codes (id, account_id, code) SELECT codes.id, codes.account_id, codes.code FROM source.codes JOIN source.accounts ON codes.account_id = accounts.id WHERE accounts.user_id = ?";
+
+    /** Query to remove the accounts of a user from the directory, along with their codes. */
+    private static final String REMOVE_ACCOUNTS = "DELETE FROM accounts WHERE user_id = ? RETURNING *";
+
+    /**
+     * Private constructor for the shard splitter.
+     * No reason to make an instance of this object, instead use the static
+     * methods provided.
+     * <br>
+     * Mainly here to avoid warnings.
+     */
+    private ShardSplitter() {
+
+    }
+
+    /**
+     * Split the database with the default name, or the one given.
+     *
+     * @param args The name of the database to split, if not the default.
+     */
+    public static void main(String[] args) {
+        ShardedSQLiteHelper sharded = new ShardedSQLiteHelper(new SQLiteHelper());
+        if (args.length > 0) {
+            sharded.connect(args[0]);
+        } else {
+            sharded.connect();
+        }
+
+        try {
+            split(sharded);
+        } catch (SQLException e) {
+            logger.error("Failed to split the database. Cause: ", e);
+        } finally {
+            sharded.disconnect();
+        }
+    }
+
+    /**
+     * Move the accounts and codes of every user out of the directory and
+     * into their own database.
+     *
+     * @param sharded The sharded database service, connected to the
+     *                database being split.
+     * @return The number of accounts moved.
+     * @throws SQLException If the accounts of a user could not be moved.
+     * Users that were already moved stay moved.
+     */
+    public static long split(ShardedSQLiteHelper sharded) throws SQLException {
+        DatabaseService directory = sharded.getDirectory();
+
+        String source = sharded.getDirectoryFile();
+        if (source.isEmpty()) {
+            throw new SQLException("Only a database kept in a file can be split.");
+        }
+
+        List<UserEntity> users = directory.executeMultiSelect(GET_USERS, UserEntity.class);
+        if (users == null) {
+            logger.info("No users to move.");
+            return 0;
+        }
+
+        long moved = 0;
+        try {
+            for (UserEntity user : users) {
+                if (!sharded.route(user.getID())) {
+                    throw new SQLException("Unable to open the database of user with ID " + user.getID() + ".");
+                }
+
+                copy(sharded, source, user.getID());
+
+                List<AccountEntity> removed = directory.executeUpdateReturningAll(REMOVE_ACCOUNTS, AccountEntity.class, user.getID());
+                int count = removed == null ? 0 : removed.size();
+                moved += count;
+
+                logger.info("Moved {} account(s) of user with ID {}.", count, user.getID());
+            }
+        } finally {
+            sharded.leave();
+        }
+
+        return moved;
+    }
+
+    /**
+     * Copy the accounts and codes of a user from the directory into the
+     * database the sharded service is routed to, in one transaction.
+     * Anything copied before is skipped.
+     *
+     * @param sharded The sharded database service, routed to the user.
+     * @param source Path of the directory file.
+     * @param userID ID of the user.
+     * @throws SQLException If anything goes wrong, in which case nothing
+     * is copied.
+     */
+    private static void copy(ShardedSQLiteHelper sharded, String source, long userID) throws SQLException {
+        try (ConnectionLease lease = sharded.leaseWriter()) {
+            Connection connection = lease.getConnection();
+
+            // A database can only be attached outside a transaction.
+            connection.setAutoCommit(true);
+            try (PreparedStatement attach = connection.prepareStatement("ATTACH DATABASE ? AS source")) {
+                attach.setString(1, source);
+                attach.execute();
+            }
+
+            try {
+                connection.setAutoCommit(false);
+
+                try (PreparedStatement accounts = connection.prepareStatement(COPY_ACCOUNTS);
+                     PreparedStatement codes = connection.prepareStatement(COPY_CODES)) {
+                    accounts.setLong(1, userID);
+                    accounts.executeUpdate();
+
+                    codes.setLong(1, userID);
+                    codes.executeUpdate();
+                }
+
+                connection.commit();
+            } catch (SQLException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(true);
+                try (PreparedStatement detach = connection.prepareStatement("DETACH DATABASE source")) {
+                    detach.execute();
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package cypher.enforcers.utilities.sqliteutilities;
+
+import cypher.enforcers.utilities.CacheStatistics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ A bounded cache of prepared statements for one connection, keyed by
+ the SQL text. Saves SQLite from having to compile the same query every
+ time it's run. Once the cache is full, the statement that was used the
+ longest time ago is closed to make room.
+ <br>
+ The cache is not thread safe, only the thread that has leased the
+ connection should be using it.
+ */
+public class StatementCache {
+
+    /** Logger for the statement cache. */
+    private static final Logger logger = LoggerFactory.getLogger(StatementCache.class);
+
+    /** Default number of statements to keep open. */
+    public static final int DEFAULT_CAPACITY = 32;
+
+    /** The connection the statements belong to. */
+    private final Connection connection;
+
+    /** The statements, ordered from least to most recently used. */
+    private final Map<String, PreparedStatement> statements;
+
+    /** Number of times a statement was found in the cache. */
+    private final AtomicLong hits = new AtomicLong();
+
+    /** Number of times a statement had to be prepared. */
+    private final AtomicLong misses = new AtomicLong();
+
+    /**
+     * Create a new statement cache with the default capacity.
+     *
+     * @param connection The connection the statements belong to.
+     */
+    public StatementCache(Connection connection) {
+        this(connection, DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Create a new statement cache.
+     *
+     * @param connection The connection the statements belong to.
+     * @param capacity Maximum number of statements to keep open.
+     */
+    public StatementCache(Connection connection, int capacity) {
+        this.connection = connection;
+        this.statements = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, PreparedStatement> eldest) {
+                if (size() <= capacity) {
+                    return false;
+                }
+
+                close(eldest.getValue());
+                return true;
+            }
+        };
+    }
+
+    /**
+     * Get the connection the statements belong to.
+     *
+     * @return The connection.
+     */
+    public Connection getConnection() {
+        return connection;
+    }
+
+    /**
+     * Get a prepared statement for a query, preparing it if it's not
+     * already in the cache. Any parameters from the last time the
+     * statement was used are cleared. The statement belongs to the
+     * cache and must not be closed.
+     *
+     * @param query The query.
+     * @return The prepared statement.
+     * @throws SQLException If the statement could not be prepared.
+     */
+    public PreparedStatement prepare(String query) throws SQLException {
+        PreparedStatement statement = statements.get(query);
+
+        if (statement != null && !statement.isClosed()) {
+            hits.incrementAndGet();
+            statement.clearParameters();
+            return statement;
+        }
+
+        misses.incrementAndGet();
+        statement = connection.prepareStatement(query);
+        statements.put(query, statement);
+        return statement;
+    }
+
+    /**
+     * Get how well this cache has been doing.
+     *
+     * @return The hits and misses so far.
+     */
+    public CacheStatistics getStatistics() {
+        return new CacheStatistics(hits.get(), misses.get());
+    }
+
+    /**
+     * Close every statement in the cache. Should be called before the
+     * connection is closed.
+     */
+    public void clear() {
+        statements.values().forEach(StatementCache::close);
+        statements.clear();
+    }
+
+    /**
+     * Close a statement that's no longer being cached.
+     *
+     * @param statement The statement.
+     */
+    private static void close(PreparedStatement statement) {
+        try {
+            statement.close();
+        } catch (SQLException e) {
+            logger.warn("Failed to close cached statement. Cause: ", e);
+        }
+    }
+}
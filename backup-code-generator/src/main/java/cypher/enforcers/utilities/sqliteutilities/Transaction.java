@@ -0,0 +1,203 @@
+package cypher.enforcers.utilities.sqliteutilities;
+
+import cypher.enforcers.data.spis.DatabaseService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * A transaction on the connection used to make changes to a database.
+ * Everything done through it is committed at once, or not at all.
+ * <br>
+ * While a transaction is running, it's the ambient transaction for its
+ * database service on the thread that started it. Anything else sent to
+ * that service from the same thread, such as a query made by a DAO,
+ * joins it instead of committing on its own. Work that joins is run
+ * inside a savepoint, so if it fails only its own changes are rolled
+ * back and the error is passed on to whoever started it.
+ * <br>
+ * Other threads don't see the transaction, and wait for the connection
+ * until it's finished.
+ */
+public class Transaction {
+
+    /** Logger for the transactions. */
+    private static final Logger logger = LoggerFactory.getLogger(Transaction.class);
+
+    /** The transactions running on each thread, by their database service. */
+    private static final ThreadLocal<Map<DatabaseService, Transaction>> ACTIVE =
+            ThreadLocal.withInitial(IdentityHashMap::new);
+
+    /** The lease on the connection the transaction runs on. */
+    private final ConnectionLease lease;
+
+    /** How many savepoints deep the transaction is. */
+    private int depth;
+
+    /**
+     * Create a new transaction on a leased connection.
+     *
+     * @param lease The lease on the connection.
+     */
+    private Transaction(ConnectionLease lease) {
+        this.lease = lease;
+    }
+
+    /**
+     * Run work in a transaction on a database service, committing once
+     * it's done. If a transaction is already running for the service on
+     * this thread, the work joins it inside a savepoint instead.
+     *
+     * @param service The database service.
+     * @param work The work to run.
+     * @param <R> The type of value returned by the work.
+     * @return The value returned by the work.
+     * @throws SQLException If the work fails, in which case its changes
+     * are rolled back.
+     */
+    public static <R> R run(DatabaseService service, SQLFunction<Transaction, R> work) throws SQLException {
+        Transaction active = current(service);
+        if (active != null) {
+            return active.nest(work);
+        }
+
+        try (ConnectionLease lease = service.leaseWriter()) {
+            Connection connection = lease.getConnection();
+            Transaction transaction = new Transaction(lease);
+
+            Map<DatabaseService, Transaction> running = ACTIVE.get();
+            running.put(service, transaction);
+            try {
+                connection.setAutoCommit(false);
+                R result = work.apply(transaction);
+                connection.commit();
+                return result;
+            } catch (SQLException | RuntimeException e) {
+                rollback(connection, null, e);
+                throw e;
+            } finally {
+                running.remove(service);
+                if (running.isEmpty()) {
+                    ACTIVE.remove();
+                }
+
+                try {
+                    connection.setAutoCommit(true);
+                } catch (SQLException e) {
+                    logger.warn("Failed to turn auto-commit back on. Cause: ", e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Get the transaction running for a database service on this thread.
+     *
+     * @param service The database service.
+     * @return The transaction, or null if there isn't one.
+     */
+    public static Transaction current(DatabaseService service) {
+        Map<DatabaseService, Transaction> running = ACTIVE.get();
+        Transaction transaction = running.get(service);
+        if (running.isEmpty()) {
+            ACTIVE.remove();
+        }
+
+        return transaction;
+    }
+
+    /**
+     * Get the connection the transaction runs on.
+     *
+     * @return The connection.
+     */
+    public Connection getConnection() {
+        return lease.getConnection();
+    }
+
+    /**
+     * Prepare a query on the connection the transaction runs on.
+     *
+     * @param query The query.
+     * @return The prepared statement, which must not be closed.
+     * @throws SQLException If the query could not be prepared.
+     */
+    public PreparedStatement prepare(String query) throws SQLException {
+        return lease.prepare(query);
+    }
+
+    /**
+     * Borrow the connection the transaction runs on, to read what the
+     * transaction has changed so far. Closing the lease doesn't give the
+     * connection back, the transaction keeps it until it's finished.
+     *
+     * @return A lease on the connection.
+     */
+    public ConnectionLease share() {
+        return lease.share();
+    }
+
+    /**
+     * Get how many savepoints deep the transaction is, 0 if no work has
+     * joined it.
+     *
+     * @return The depth.
+     */
+    public int depth() {
+        return depth;
+    }
+
+    /**
+     * Run work inside a savepoint of this transaction.
+     *
+     * @param work The work to run.
+     * @param <R> The type of value returned by the work.
+     * @return The value returned by the work.
+     * @throws SQLException If the work fails, in which case only its
+     * changes are rolled back.
+     */
+    private <R> R nest(SQLFunction<Transaction, R> work) throws SQLException {
+        Connection connection = lease.getConnection();
+        Savepoint savepoint = connection.setSavepoint();
+        depth++;
+
+        try {
+            R result = work.apply(this);
+            connection.releaseSavepoint(savepoint);
+            return result;
+        } catch (SQLException | RuntimeException e) {
+            rollback(connection, savepoint, e);
+            throw e;
+        } finally {
+            depth--;
+        }
+    }
+
+    /**
+     * Roll back a transaction or savepoint after the work in it failed.
+     * Anything that goes wrong while rolling back is added to the error
+     * of the work.
+     *
+     * @param connection The connection.
+     * @param savepoint The savepoint, or null for the whole transaction.
+     * @param cause The error of the work.
+     */
+    private static void rollback(Connection connection, Savepoint savepoint, Exception cause) {
+        try {
+            if (savepoint == null) {
+                connection.rollback();
+            } else {
+                connection.rollback(savepoint);
+                connection.releaseSavepoint(savepoint);
+            }
+        } catch (SQLException e) {
+            cause.addSuppressed(e);
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package cypher.enforcers.utilities.sqliteutilities;
+
+import java.io.Serial;
+import java.sql.SQLException;
+import java.util.Objects;
+
+/**
+ * Wraps an SQLException so it can be thrown from places that can't throw
+ * checked exceptions, such as while a stream of rows is being consumed.
+ */
+public class UncheckedSQLException extends RuntimeException {
+
+    /** Mainly here to avoid warnings. */
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Create a new unchecked SQL exception.
+     *
+     * @param cause The SQL exception being wrapped.
+     */
+    public UncheckedSQLException(SQLException cause) {
+        super(Objects.requireNonNull(cause));
+    }
+
+    /**
+     * Get the SQL exception being wrapped.
+     *
+     * @return The SQL exception.
+     */
+    @Override
+    public synchronized SQLException getCause() {
+        return (SQLException) super.getCause();
+    }
+}
@@ -3,12 +3,19 @@ package cypher.enforcers.views;
 import cypher.enforcers.controllers.*;
 import cypher.enforcers.controllers.codeViewControllers.CodeCellController;
 import cypher.enforcers.controllers.codeViewControllers.CodeViewController;
-import cypher.enforcers.data.implementations.SQLiteHelper;
+import cypher.enforcers.data.implementations.AsyncDatabaseService;
+import cypher.enforcers.data.implementations.PooledSQLiteHelper;
+import cypher.enforcers.data.implementations.ShardedSQLiteHelper;
+import cypher.enforcers.data.implementations.WriteBehindQueue;
+import cypher.enforcers.data.security.CodeCipher;
 import cypher.enforcers.data.spis.DatabaseService;
+import cypher.enforcers.data.spis.KeyRing;
 import cypher.enforcers.models.AccountModel;
 import cypher.enforcers.models.CodeModel;
 import cypher.enforcers.models.UserModel;
+import cypher.enforcers.utilities.sqliteutilities.UncheckedSQLException;
 import cypher.enforcers.views.themes.Theme;
+import javafx.application.Platform;
 import javafx.event.EventHandler;
 import javafx.fxml.FXMLLoader;
 import javafx.scene.Node;
@@ -24,6 +31,7 @@ import cypher.enforcers.utilities.Utilities;
 
 import java.io.IOException;
 import java.net.URL;
+import java.sql.SQLException;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.ResourceBundle;
@@ -80,21 +88,78 @@ public abstract class View {
     /** Used to pass the models into the controllers. */
     public static final Callback<Class<?>, Object> CONTROLLER_FACTORY = new Callback<>() {
 
-        /** Service to communicate to the database. */
-        private static final DatabaseService dbService = new SQLiteHelper();
+        /**
+         * Service to communicate to the database. Each user gets a
+         * database of their own when the cypher.enforcers.sharded
+         * system property is true.
+         */
+        private static final DatabaseService dbService = Boolean.getBoolean("cypher.enforcers.sharded")
+                ? new ShardedSQLiteHelper(new PooledSQLiteHelper(), PooledSQLiteHelper::new)
+                : new PooledSQLiteHelper();
 
         static {
             dbService.connect();
         }
 
+        /** Runs queries off the JavaFX Application Thread. */
+        private static final AsyncDatabaseService asyncService = new AsyncDatabaseService(dbService);
+
+        /**
+         * Groups edits made to accounts and codes into fewer commits when
+         * the cypher.enforcers.writeBehind system property is true, null
+         * otherwise.
+         */
+        private static final WriteBehindQueue writeQueue = Boolean.getBoolean("cypher.enforcers.writeBehind")
+                ? new WriteBehindQueue(dbService)
+                : null;
+
+        /**
+         * Encrypts the codes when the cypher.enforcers.encrypted system
+         * property is true, null otherwise.
+         */
+        private static final CodeCipher codeCipher = Boolean.getBoolean("cypher.enforcers.encrypted")
+                ? Utilities.prepareCodeCipher(dbService)
+                : null;
+
         /** To interact with the current user. */
-        private final UserModel userModel = Utilities.prepareUserModel(dbService);
+        private final UserModel userModel = Utilities.prepareUserModel(
+                asyncService, writeQueue, codeCipher == null ? KeyRing.NONE : codeCipher);
 
         /** To interact with the user's accounts. */
-        private final AccountModel accountModel = Utilities.prepareAccountModel(dbService);
+        private final AccountModel accountModel = Utilities.prepareAccountModel(asyncService, writeQueue);
 
         /** To interact with the account's codes. */
-        private final CodeModel codeModel = Utilities.prepareCodeModel(dbService);
+        private final CodeModel codeModel = Utilities.prepareCodeModel(asyncService, writeQueue, codeCipher);
+
+        {
+            // Codes of a deleted account go with it, so they shouldn't
+            // be kept in memory either.
+            accountModel.setOnAccountDeleted(codeModel::forgetCodes);
+            accountModel.setOnAccountFocused(codeModel::prefetchCodes);
+
+            // Edits that could not be written are already showing, so
+            // the codes are read again to undo them.
+            if (writeQueue != null) {
+                writeQueue.setOnFailure(e -> Platform.runLater(codeModel::reloadCodes));
+            }
+
+            // Changes for one user must be written to their database
+            // before switching to another, and the account IDs in it
+            // may be reused by the other user.
+            if (dbService instanceof ShardedSQLiteHelper sharded) {
+                sharded.setBeforeSwitch(() -> {
+                    if (writeQueue != null) {
+                        try {
+                            writeQueue.flush();
+                        } catch (SQLException e) {
+                            throw new UncheckedSQLException(e);
+                        }
+                    }
+
+                    codeModel.forgetAllCodes();
+                });
+            }
+        }
 
         @Override
         public Object call(Class<?> param) {
@@ -20,6 +20,7 @@ import cypher.enforcers.views.View;
 
 import java.io.IOException;
 import java.io.UncheckedIOException;
+import java.util.function.Consumer;
 
 /**
  * Class to represent an account cell.
@@ -52,7 +53,26 @@ public class AccountCell extends ListCell<Account> {
      * @throws NullPointerException If there's missing data for this cell.
      */
     public AccountCell() throws IOException, NullPointerException {
+        this(account -> { });
+    }
+
+    /**
+     * Create a new account cell that reports when the mouse moves over
+     * it.
+     *
+     * @param onHover Run with the account in this cell when the mouse
+     *                moves over it.
+     * @throws IOException If any errors occur when creating this cell.
+     * @throws NullPointerException If there's missing data for this cell.
+     */
+    public AccountCell(Consumer<Account> onHover) throws IOException, NullPointerException {
         loadFXML();
+
+        setOnMouseEntered(mouseEvent -> {
+            if (!isEmpty() && getItem() != null) {
+                onHover.accept(getItem());
+            }
+        });
     }
 
     /**
@@ -7,19 +7,34 @@ import javafx.util.Callback;
 
 import java.io.IOException;
 import java.io.UncheckedIOException;
+import java.util.function.Consumer;
 
 /**
  * Factory to create an account cell.
  */
 public class AccountCellFactory implements Callback<ListView<Account>, ListCell<Account>> {
 
+    /** Run with the account of a cell the mouse moves over. */
+    private final Consumer<Account> onHover;
+
     /**
      * Create a new factory for the account cells.
      * <br>
      * Mainly here to avoid warnings.
      */
     public AccountCellFactory() {
+        this(account -> { });
+    }
 
+    /**
+     * Create a new factory for account cells that report when the
+     * mouse moves over them.
+     *
+     * @param onHover Run with the account of a cell the mouse moves
+     *                over.
+     */
+    public AccountCellFactory(Consumer<Account> onHover) {
+        this.onHover = onHover;
     }
 
     /**
@@ -34,7 +49,7 @@ public class AccountCellFactory implements Callback<ListView<Account>, ListCell<
     @Override
     public ListCell<Account> call(ListView<Account> param) throws UncheckedIOException, NullPointerException {
         try {
-            return new AccountCell();
+            return new AccountCell(onHover);
         } catch (IOException e) {
             throw new UncheckedIOException(e);
         }
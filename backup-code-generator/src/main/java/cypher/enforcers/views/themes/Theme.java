@@ -12,6 +12,24 @@ public enum Theme {
     DARK,
 
     /** The high contrast mode theme. */
-    HIGH_CONTRAST
+    HIGH_CONTRAST;
+
+    /**
+     * Every theme, by its value. Kept here because values() makes a
+     * new copy of the array each time it's called.
+     */
+    private static final Theme[] VALUES = values();
+
+    /**
+     * Get a theme by its value, the same value stored in the database.
+     *
+     * @param value The value of the theme.
+     * @return The theme.
+     * @throws ArrayIndexOutOfBoundsException If there's no theme with
+     * that value.
+     */
+    public static Theme fromValue(int value) {
+        return VALUES[value];
+    }
 
 }
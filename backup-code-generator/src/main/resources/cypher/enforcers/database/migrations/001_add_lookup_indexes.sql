@@ -0,0 +1,13 @@
+-- Codes are always loaded and deleted by account. The ID is part of the
+-- key so codes come back in the order they were added, and the code is
+-- included so loading them never has to touch the table.
+CREATE INDEX IF NOT EXISTS codes_by_account ON codes(account_id, id, code);
+
+-- Accounts are always loaded and deleted by user.
+CREATE INDEX IF NOT EXISTS accounts_by_user ON accounts(user_id, id, name, type);
+
+-- At most one user is logged in at a time, so only they are indexed.
+CREATE INDEX IF NOT EXISTS logged_in_users ON users(logged_in) WHERE logged_in = 1;
+
+-- Themes are stored on each user now.
+DROP TABLE IF EXISTS themes;
@@ -0,0 +1,24 @@
+-- Who is logged in is kept as sessions instead of a flag on each user,
+-- so logging in and out never has to rewrite the users table.
+CREATE TABLE IF NOT EXISTS sessions(
+	token TEXT PRIMARY KEY,
+	user_id INT NOT NULL,
+	created INT NOT NULL,
+	last_seen INT NOT NULL,
+	FOREIGN KEY(user_id) REFERENCES users(id) ON DELETE CASCADE
+);
+
+-- The most recent session belongs to the current user.
+CREATE INDEX IF NOT EXISTS sessions_by_last_seen ON sessions(last_seen);
+
+-- Checking if a user is logged in looks for any of their sessions.
+CREATE INDEX IF NOT EXISTS sessions_by_user ON sessions(user_id);
+
+-- Users that were logged in stay logged in.
+INSERT INTO sessions (token, user_id, created, last_seen)
+SELECT lower(hex(randomblob(32))), id, CAST((julianday('now') - 2440587.5) * 86400000 AS INT), CAST((julianday('now') - 2440587.5) * 86400000 AS INT)
+FROM users
+WHERE logged_in = 1;
+
+DROP INDEX IF EXISTS logged_in_users;
+ALTER TABLE users DROP COLUMN logged_in;
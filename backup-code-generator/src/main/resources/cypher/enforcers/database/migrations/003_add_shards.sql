@@ -0,0 +1,8 @@
+-- When each user's accounts and codes are kept in a database of their
+-- own, this maps each user to the file their data is in. Unused when
+-- every user shares one database.
+CREATE TABLE IF NOT EXISTS shards(
+	user_id INTEGER PRIMARY KEY,
+	file TEXT NOT NULL UNIQUE CHECK ( length(file) > 0 ),
+	FOREIGN KEY(user_id) REFERENCES users(id) ON DELETE CASCADE
+);
@@ -0,0 +1,9 @@
+-- When codes are encrypted, the key of each user is derived from their
+-- password with their own salt and number of iterations, kept here so
+-- the same key comes out every time they log in. Unused otherwise.
+CREATE TABLE IF NOT EXISTS code_keys(
+	user_id INTEGER PRIMARY KEY,
+	salt TEXT NOT NULL CHECK ( length(salt) > 0 ),
+	iterations INT NOT NULL CHECK ( iterations > 0 ),
+	FOREIGN KEY(user_id) REFERENCES users(id) ON DELETE CASCADE
+);
@@ -0,0 +1,25 @@
+-- The schema every migration starts from, the same one the bundled
+-- database.db has. Only used to create a database from scratch, any
+-- change to the schema goes in a new migration instead.
+CREATE TABLE IF NOT EXISTS users(
+	id INTEGER PRIMARY KEY,
+	username TEXT NOT NULL UNIQUE CHECK ( length(username) > 0 ),
+	password TEXT NOT NULL CHECK ( length(password) > 0 ),
+	theme_value INT NOT NULL DEFAULT 0,
+	logged_in INT NOT NULL DEFAULT 1
+);
+
+CREATE TABLE IF NOT EXISTS accounts(
+	id INTEGER PRIMARY KEY,
+	user_id INT NOT NULL,
+	name TEXT NOT NULL CHECK ( length(name) > 0 ),
+	type TEXT NOT NULL CHECK ( length(type) > 0 ),
+	FOREIGN KEY(user_id) REFERENCES users(id)
+);
+
+CREATE TABLE IF NOT EXISTS codes(
+	id INTEGER PRIMARY KEY,
+	account_id INT NOT NULL,
+	code TEXT NOT NULL CHECK ( length(code) > 0 ),
+	FOREIGN KEY(account_id) REFERENCES accounts(id) ON DELETE CASCADE
+);
@@ -0,0 +1,74 @@
+package cypher.enforcers;
+
+import cypher.enforcers.data.entities.AccountEntity;
+import cypher.enforcers.data.implementations.AccountDAOImpl;
+import cypher.enforcers.data.implementations.AccountRepositoryImpl;
+import cypher.enforcers.data.implementations.SQLiteHelper;
+import cypher.enforcers.data.security.mappers.AccountDTOMapper;
+import cypher.enforcers.data.spis.AccountDAO;
+import cypher.enforcers.data.spis.AccountRepository;
+import cypher.enforcers.data.spis.DatabaseService;
+import cypher.enforcers.models.AccountModel;
+import cypher.enforcers.utilities.CacheStatistics;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AccountCacheTests {
+
+    @Test
+    public void keepCachedAccountsUpToDate() {
+        DatabaseService dbService = new SQLiteHelper();
+        dbService.connect("account_cache.db");
+
+        AccountDAO accountDAO = new AccountDAOImpl(dbService);
+        AccountRepository accountRepository = new AccountRepositoryImpl(accountDAO, 2, 1024 * 1024);
+
+        List<AccountEntity> accounts = accountRepository.readAll(1);
+        assertSame(accountRepository.readAll(1), accounts, "Accounts should be read from memory.");
+
+        AccountEntity account = new AccountEntity();
+        account.setUserId(1);
+        account.setName("New");
+        account.setSocialMediaType("Reddit");
+        assertTrue(accountRepository.create(account).isPresent(), "Account should be created.");
+        assertTrue(accountRepository.delete(3).isPresent(), "Account should be deleted.");
+
+        accounts = accountRepository.readAll(1);
+        assertEquals(accounts, accountDAO.getAccounts(1), "Cached accounts should match the database.");
+        assertEquals(accounts.size(), 3, "Number of accounts does not match.");
+
+        assertEquals(accountRepository.deleteAll(2).size(), 2, "Accounts should be deleted.");
+        assertTrue(accountRepository.readAll(2).isEmpty(), "Accounts should be deleted.");
+        assertEquals(accountRepository.getCacheStatistics(), new CacheStatistics(3, 1), "Statistics do not match.");
+
+        dbService.disconnect();
+    }
+
+    @Test
+    public void refreshWithoutReloading() {
+        DatabaseService dbService = new SQLiteHelper();
+        dbService.connect("account_read.db");
+
+        AccountRepository accountRepository = new AccountRepositoryImpl(new AccountDAOImpl(dbService), 2, 1024 * 1024);
+        AccountModel accountModel = new AccountModel(accountRepository, new AccountDTOMapper());
+
+        accountModel.loadAccounts(1);
+        List<Long> refreshes = new ArrayList<>();
+        accountModel.refreshProperty().addListener((observable, oldValue, newValue) -> refreshes.add(newValue.longValue()));
+
+        var accounts = accountModel.getAccounts();
+        accountModel.refresh();
+        accountModel.refresh();
+
+        assertEquals(refreshes, List.of(1L, 2L), "Accounts should be refreshed twice.");
+        assertSame(accountModel.getAccounts(), accounts, "Accounts should not be loaded again.");
+        assertEquals(accountRepository.getCacheStatistics(), new CacheStatistics(0, 1), "Accounts should only be read once.");
+
+        dbService.disconnect();
+    }
+
+}
@@ -77,4 +77,22 @@ public class AccountSavingTests {
         dbService.disconnect();
     }
 
+    @Test
+    public void deleteManyAccounts() {
+        DatabaseService dbService = new SQLiteHelper();
+        dbService.connect("account_delete_many.db");
+
+        AccountDAO accountDAO = new AccountDAOImpl(dbService);
+        AccountRepository accountRepository = new AccountRepositoryImpl(accountDAO);
+
+        // Accounts from two different users, and one that doesn't exist.
+        List<AccountEntity> accounts = accountRepository.deleteAll(List.of(1L, 4L, 5L, 99L));
+        assertEquals(accounts.stream().map(AccountEntity::getID).toList(), List.of(1L, 4L, 5L), "Wrong accounts deleted.");
+
+        assertEquals(accountRepository.readAll(1).stream().map(AccountEntity::getID).toList(), List.of(3L), "First user should only have one account left.");
+        assertEquals(accountRepository.readAll(2).stream().map(AccountEntity::getID).toList(), List.of(2L), "Second user should only have one account left.");
+
+        dbService.disconnect();
+    }
+
 }
@@ -54,7 +54,8 @@ public class ApplicationIntegrationTests {
         CodeRepository codeRepository = new CodeRepositoryImpl(codeDAO);
 
         UserDTOMapper mapper = new UserDTOMapper();
-        AuthenticationService authService = new AuthenticationServiceImpl(userRepository, mapper);
+        SessionRepository sessionRepository = new SessionRepositoryImpl(new SessionDAOImpl(dbService));
+        AuthenticationService authService = new AuthenticationServiceImpl(userRepository, sessionRepository, mapper);
 
         Optional<UserEntity> userOptional = userRepository.findLoggedInUser();
         assertThrows(NoSuchElementException.class, userOptional::get, "User is not empty.");
@@ -196,7 +197,8 @@ public class ApplicationIntegrationTests {
         CodeRepository codeRepository = new CodeRepositoryImpl(codeDAO);
 
         UserDTOMapper mapper = new UserDTOMapper();
-        AuthenticationService authService = new AuthenticationServiceImpl(userRepository, mapper);
+        SessionRepository sessionRepository = new SessionRepositoryImpl(new SessionDAOImpl(dbService));
+        AuthenticationService authService = new AuthenticationServiceImpl(userRepository, sessionRepository, mapper);
 
         Optional<User> userOptional = authService.getLoggedInUser();
         assertThrows(NoSuchElementException.class, userOptional::get, "User is not empty.");
@@ -297,7 +299,8 @@ public class ApplicationIntegrationTests {
         CodeRepository codeRepository = new CodeRepositoryImpl(codeDAO);
 
         UserDTOMapper mapper = new UserDTOMapper();
-        AuthenticationService authService = new AuthenticationServiceImpl(userRepository, mapper);
+        SessionRepository sessionRepository = new SessionRepositoryImpl(new SessionDAOImpl(dbService));
+        AuthenticationService authService = new AuthenticationServiceImpl(userRepository, sessionRepository, mapper);
 
         Optional<UserEntity> userOptional = userRepository.findLoggedInUser();
         assertTrue(userOptional.isPresent(), "User is empty.");
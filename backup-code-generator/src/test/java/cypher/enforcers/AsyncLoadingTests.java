@@ -0,0 +1,110 @@
+package cypher.enforcers;
+
+import cypher.enforcers.data.entities.CodeEntity;
+import cypher.enforcers.data.implementations.AsyncDatabaseService;
+import cypher.enforcers.data.implementations.AuthenticationServiceImpl;
+import cypher.enforcers.data.implementations.CodeDAOImpl;
+import cypher.enforcers.data.implementations.CodeRepositoryImpl;
+import cypher.enforcers.data.implementations.InMemorySQLiteHelper;
+import cypher.enforcers.data.implementations.PooledSQLiteHelper;
+import cypher.enforcers.data.implementations.SessionDAOImpl;
+import cypher.enforcers.data.implementations.SessionRepositoryImpl;
+import cypher.enforcers.data.implementations.UserDAOImpl;
+import cypher.enforcers.data.implementations.UserRepositoryImpl;
+import cypher.enforcers.data.security.mappers.CodeDTOMapper;
+import cypher.enforcers.data.security.mappers.UserDTOMapper;
+import cypher.enforcers.data.spis.CodeDAO;
+import cypher.enforcers.data.spis.CodeRepository;
+import cypher.enforcers.data.spis.DatabaseService;
+import cypher.enforcers.models.CodeModel;
+import cypher.enforcers.models.UserModel;
+import org.junit.jupiter.api.Test;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AsyncLoadingTests {
+
+    @Test
+    public void readCodesInBackground() throws Exception {
+        DatabaseService dbService = new PooledSQLiteHelper(2);
+        dbService.connect("code_read.db");
+        AsyncDatabaseService asyncService = new AsyncDatabaseService(dbService);
+
+        CodeDAO codeDAO = new CodeDAOImpl(dbService);
+        CodeRepository codeRepository = new CodeRepositoryImpl(codeDAO);
+
+        List<CodeEntity> codes = codeRepository.readAllAsync(3, asyncService).get(10, TimeUnit.SECONDS);
+        assertEquals(codes.size(), 16, "Number of codes does not match.");
+
+        CodeEntity code = CompletableFuture.supplyAsync(() -> codeDAO.getCode(49), asyncService)
+                .get(10, TimeUnit.SECONDS);
+        assertEquals(code.getCode(), "EEE EEE", "Codes do not match.");
+
+        asyncService.shutDown();
+        dbService.disconnect();
+    }
+
+    @Test
+    public void ignoreStaleLoads() {
+        DatabaseService dbService = new PooledSQLiteHelper(2);
+        dbService.connect("code_read.db");
+
+        CodeDAO codeDAO = new CodeDAOImpl(dbService);
+        CodeRepository codeRepository = new CodeRepositoryImpl(codeDAO);
+
+        // Hold on to the UI updates so they can be run out of order.
+        List<Runnable> pending = new ArrayList<>();
+        CodeModel codeModel = new CodeModel(codeRepository, new CodeDTOMapper(), Runnable::run, pending::add);
+
+        codeModel.loadCodes(3);
+        codeModel.loadCodes(4);
+        assertEquals(pending.size(), 2, "Both loads should be waiting for the UI.");
+
+        pending.get(1).run();
+        pending.get(0).run();
+
+        assertEquals(codeModel.getCodes().size(), 1, "Older load should not replace the newer one.");
+        assertEquals(codeModel.getCodes().get(0).id(), 49, "Codes should belong to the last account loaded.");
+
+        dbService.disconnect();
+    }
+
+    @Test
+    public void signInInBackground() throws SQLException {
+        DatabaseService dbService = new InMemorySQLiteHelper();
+        dbService.connect();
+        dbService.executeUpdate("INSERT INTO users (id, username, password) VALUES (?, 'joe', ?)", 2L, PasswordHashingTests.LEGACY_PASSWORD);
+
+        AuthenticationServiceImpl authService = new AuthenticationServiceImpl(
+                new UserRepositoryImpl(new UserDAOImpl(dbService)),
+                new SessionRepositoryImpl(new SessionDAOImpl(dbService)),
+                new UserDTOMapper()
+        );
+
+        // Hold on to the attempts so they can be run when the test wants.
+        List<Runnable> attempts = new ArrayList<>();
+        UserModel userModel = new UserModel(authService, dbService::disconnect, attempts::add, Runnable::run);
+
+        CompletableFuture<Boolean> wrong = userModel.logInUserAsync("joe", "wrong");
+        CompletableFuture<Boolean> right = userModel.logInUserAsync("joe", "1234");
+        assertTrue(wrong.isCancelled(), "Older attempt should be superseded.");
+        assertFalse(right.isDone(), "Nothing should be verified on the calling thread.");
+
+        attempts.forEach(Runnable::run);
+        assertTrue(right.join(), "Unable to log user in.");
+        assertEquals(userModel.getCurrentUser().username(), "joe", "Current user does not match.");
+
+        CompletableFuture<Boolean> failed = userModel.logInUserAsync("joe", "4321");
+        attempts.get(attempts.size() - 1).run();
+        assertFalse(failed.join(), "Wrong password should not log the user in.");
+
+        userModel.shutDown();
+    }
+
+}
@@ -0,0 +1,85 @@
+package cypher.enforcers;
+
+import cypher.enforcers.data.entities.CodeEntity;
+import cypher.enforcers.data.implementations.CodeDAOImpl;
+import cypher.enforcers.data.implementations.CodeRepositoryImpl;
+import cypher.enforcers.data.implementations.SQLiteHelper;
+import cypher.enforcers.data.spis.CodeDAO;
+import cypher.enforcers.data.spis.CodeRepository;
+import cypher.enforcers.data.spis.DatabaseService;
+import cypher.enforcers.utilities.CacheStatistics;
+import cypher.enforcers.utilities.LruCache;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CodeCacheTests {
+
+    @Test
+    public void keepCachedCodesUpToDate() {
+        DatabaseService dbService = new SQLiteHelper();
+        dbService.connect("code_cache.db");
+
+        CodeDAO codeDAO = new CodeDAOImpl(dbService);
+        CodeRepository codeRepository = new CodeRepositoryImpl(codeDAO, 2, 1024 * 1024);
+
+        List<CodeEntity> codes = codeRepository.readAll(3);
+        assertSame(codeRepository.readAll(3), codes, "Codes should be read from memory.");
+        assertEquals(codeRepository.getCacheStatistics(), new CacheStatistics(1, 1), "Statistics do not match.");
+
+        CodeEntity updated = new CodeEntity();
+        updated.setId(33);
+        updated.setCode("AAA AAA");
+        assertTrue(codeRepository.update(updated).isPresent(), "Code should be updated.");
+        assertTrue(codeRepository.delete(34).isPresent(), "Code should be deleted.");
+
+        CodeEntity created = new CodeEntity();
+        created.setAccountID(3);
+        created.setCode("BBB BBB");
+        assertTrue(codeRepository.create(created).isPresent(), "Code should be created.");
+
+        codes = codeRepository.readAll(3);
+        List<CodeEntity> saved = codeDAO.getCodes(3);
+        assertEquals(codes.stream().map(CodeEntity::getCode).toList(), saved.stream().map(CodeEntity::getCode).toList(), "Cached codes should match the database.");
+        assertEquals(codes.size(), 16, "Number of codes does not match.");
+        assertEquals(codes.get(0).getCode(), "AAA AAA", "Codes do not match.");
+        assertEquals(codes.get(15).getCode(), "BBB BBB", "Codes do not match.");
+
+        assertEquals(codeRepository.readAll(4).size(), 1, "Number of codes does not match.");
+        codeRepository.deleteAll(4);
+        assertTrue(codeRepository.readAll(4).isEmpty(), "Codes should be deleted.");
+        assertEquals(codeRepository.getCacheStatistics(), new CacheStatistics(3, 2), "Statistics do not match.");
+
+        dbService.disconnect();
+    }
+
+    @Test
+    public void evictLeastRecentlyUsed() {
+        LruCache<Long, String> cache = new LruCache<>(2, 10, value -> value.length());
+
+        cache.put(1L, "aaaa");
+        cache.put(2L, "bbbb");
+        assertEquals(cache.get(1L), "aaaa", "Value should be cached.");
+
+        // Too many entries, so the one used the longest time ago is removed.
+        cache.put(3L, "cc");
+        assertNull(cache.get(2L), "Least recently used value should be removed.");
+        assertEquals(cache.size(), 2, "Number of entries does not match.");
+
+        // Too many bytes.
+        cache.put(4L, "ddddddddd");
+        assertEquals(cache.size(), 1, "Values should be removed to make room.");
+        assertEquals(cache.bytes(), 9, "Size does not match.");
+
+        cache.put(5L, "too big to ever fit");
+        assertNull(cache.get(5L), "Value that can't fit should not be cached.");
+
+        long modifications = cache.modifications();
+        cache.invalidate(4L);
+        assertFalse(cache.putIfUnmodified(4L, "ddddddddd", modifications), "Stale value should not be cached.");
+        assertEquals(cache.getStatistics().hitRate(), 1.0 / 3, "Hit rate does not match.");
+    }
+
+}
@@ -0,0 +1,83 @@
+package cypher.enforcers;
+
+import cypher.enforcers.data.entities.CodeEntity;
+import cypher.enforcers.data.implementations.AuthenticationServiceImpl;
+import cypher.enforcers.data.implementations.CodeDAOImpl;
+import cypher.enforcers.data.implementations.EncryptedCodeDAO;
+import cypher.enforcers.data.implementations.InMemorySQLiteHelper;
+import cypher.enforcers.data.implementations.SessionDAOImpl;
+import cypher.enforcers.data.implementations.SessionRepositoryImpl;
+import cypher.enforcers.data.implementations.UserDAOImpl;
+import cypher.enforcers.data.implementations.UserRepositoryImpl;
+import cypher.enforcers.data.security.CodeCipher;
+import cypher.enforcers.data.security.mappers.UserDTOMapper;
+import cypher.enforcers.data.spis.AuthenticationService;
+import cypher.enforcers.data.spis.CodeDAO;
+import cypher.enforcers.data.spis.DatabaseService;
+import cypher.enforcers.data.spis.ShardRouter;
+import org.junit.jupiter.api.Test;
+
+import java.sql.SQLException;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CodeEncryptionTests {
+
+    @Test
+    public void codesAreEncryptedAtRest() throws SQLException {
+        DatabaseService dbService = new InMemorySQLiteHelper();
+        dbService.connect();
+
+        // Codes stored before they were encrypted.
+        dbService.executeUpdate("INSERT INTO users (id, username, password) VALUES (?, 'joe', ?)", 2L, PasswordHashingTests.LEGACY_PASSWORD);
+        dbService.executeUpdate("INSERT INTO accounts (id, user_id, name, type) VALUES (2, 2, 'Joe', 'GitHub')");
+        dbService.executeUpdate("INSERT INTO codes (id, account_id, code) VALUES (4, 2, '1234'), (5, 2, '1234'), (6, 2, '1234'), (7, 2, '1234')");
+
+        CodeCipher cipher = new CodeCipher(dbService);
+        AuthenticationService authService = createAuthService(dbService, cipher);
+        CodeDAO stored = new CodeDAOImpl(dbService);
+        CodeDAO codeDAO = new EncryptedCodeDAO(stored, cipher);
+
+        assertNull(codeDAO.addCode(new CodeEntity(0, 2, "ABC DEF")), "Nothing should be written without a key.");
+        assertTrue(authService.authenticateUser("joe", "1234"), "Unable to log user in.");
+        assertTrue(cipher.isUnlocked(2), "Key of the user should be held.");
+
+        // Codes from before they were encrypted are read as they are.
+        assertEquals(codeDAO.getCodes(2).size(), 4, "Number of codes does not match.");
+
+        CodeEntity added = codeDAO.addCode(new CodeEntity(0, 2, "ABC DEF"));
+        assertNotNull(added, "Unable to add code.");
+        assertEquals(added.getCode(), "ABC DEF", "Added code should be decrypted.");
+        assertTrue(stored.getCode(added.getId()).getCode().startsWith("$aes-gcm$"), "Code should be encrypted in the database.");
+
+        CodeEntity updated = codeDAO.updateCode(new CodeEntity(4, 2, "GHI JKL"));
+        assertEquals(updated.getCode(), "GHI JKL", "Updated code should be decrypted.");
+        assertNotEquals(stored.getCode(4).getCode(), "GHI JKL", "Updated code should be encrypted in the database.");
+
+        // The key is forgotten on logout, and the same one comes back on login.
+        assertTrue(authService.logUserOut(2), "Unable to log user out.");
+        assertNull(codeDAO.getCodes(2), "Codes should not be read without a key.");
+
+        AuthenticationService restarted = createAuthService(dbService, new CodeCipher(dbService));
+        assertTrue(restarted.getLoggedInUser().isEmpty(), "Session should not be carried on without the key.");
+
+        assertTrue(authService.authenticateUser("joe", "1234"), "Unable to log user in.");
+        List<CodeEntity> codes = codeDAO.getCodes(2);
+        assertTrue(codes.stream().anyMatch(code -> code.getCode().equals("ABC DEF")), "Added code should be read back.");
+        assertTrue(codes.stream().anyMatch(code -> code.getCode().equals("GHI JKL")), "Updated code should be read back.");
+
+        dbService.disconnect();
+    }
+
+    private static AuthenticationService createAuthService(DatabaseService dbService, CodeCipher cipher) {
+        return new AuthenticationServiceImpl(
+                new UserRepositoryImpl(new UserDAOImpl(dbService)),
+                new SessionRepositoryImpl(new SessionDAOImpl(dbService)),
+                new UserDTOMapper(),
+                ShardRouter.NONE,
+                cipher
+        );
+    }
+
+}
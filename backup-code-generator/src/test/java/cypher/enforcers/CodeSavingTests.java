@@ -9,6 +9,7 @@ import cypher.enforcers.data.spis.CodeRepository;
 import cypher.enforcers.data.spis.DatabaseService;
 import org.junit.jupiter.api.Test;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 
@@ -51,6 +52,11 @@ public class CodeSavingTests {
 
         Optional<CodeEntity> optionalCode = codeRepository.update(code);
         assertTrue(optionalCode.isPresent(), "User cannot update code.");
+        assertEquals(optionalCode.get().getCode(), "4EW C0D3", "Updated code should be returned.");
+        assertEquals(optionalCode.get().getId(), 33, "ID should be 33.");
+
+        code.setId(1000);
+        assertTrue(codeRepository.update(code).isEmpty(), "Code that does not exist should not be updated.");
 
         dbService.disconnect();
     }
@@ -65,6 +71,10 @@ public class CodeSavingTests {
 
         Optional<CodeEntity> optionalCode = codeRepository.delete(1);
         assertTrue(optionalCode.isPresent(), "User cannot delete code.");
+        assertEquals(optionalCode.get().getId(), 1, "Wrong code deleted.");
+
+        // The code is gone, so there's nothing left to delete.
+        assertTrue(codeRepository.delete(1).isEmpty(), "Code should already be deleted.");
 
         dbService.disconnect();
     }
@@ -79,6 +89,52 @@ public class CodeSavingTests {
 
         List<CodeEntity> codes = codeRepository.deleteAll(2);
         assertFalse(codes.isEmpty(), "User cannot delete code.");
+        assertTrue(codes.stream().allMatch(code -> code.getAccountID() == 2), "Deleted codes should belong to the account.");
+        assertTrue(codeRepository.readAll(2).isEmpty(), "Codes should be deleted.");
+
+        dbService.disconnect();
+    }
+
+    @Test
+    public void createAllCodes() {
+        DatabaseService dbService = new SQLiteHelper();
+        dbService.connect("code_create_batch.db");
+
+        CodeDAO codeDAO = new CodeDAOImpl(dbService);
+        CodeRepository codeRepository = new CodeRepositoryImpl(codeDAO);
+
+        String[] expected = {"111 111", "222 222", "333 333"};
+        List<CodeEntity> newCodes = new ArrayList<>();
+        for (String s : expected) {
+            CodeEntity c = new CodeEntity();
+            c.setCode(s);
+            c.setAccountID(1);
+            newCodes.add(c);
+        }
+
+        List<CodeEntity> codes = codeRepository.createAll(newCodes);
+        assertEquals(codes.size(), 3, "User cannot create codes.");
+
+        List<CodeEntity> saved = codeRepository.readAll(1);
+        assertEquals(saved.size(), 3, "Number of codes saved does not match.");
+
+        for (int i = 0; i < codes.size(); i++) {
+            assertEquals(codes.get(i).getId(), i + 1, "ID of code " + (i + 1) + " should be " + (i + 1) + ".");
+            assertEquals(codes.get(i).getId(), saved.get(i).getId(), "IDs do not match the saved codes.");
+            assertEquals(saved.get(i).getCode(), expected[i], "Code " + (i + 1) + " should be " + expected[i]);
+        }
+
+        // The account does not exist, so nothing should be saved.
+        CodeEntity invalid = new CodeEntity();
+        invalid.setCode("444 444");
+        invalid.setAccountID(100);
+
+        CodeEntity valid = new CodeEntity();
+        valid.setCode("555 555");
+        valid.setAccountID(1);
+
+        assertTrue(codeRepository.createAll(List.of(valid, invalid)).isEmpty(), "Codes for a missing account should not be created.");
+        assertEquals(codeRepository.readAll(1).size(), 3, "Failed batch should be rolled back.");
 
         dbService.disconnect();
     }
@@ -0,0 +1,102 @@
+package cypher.enforcers;
+
+import cypher.enforcers.data.entities.CodeEntity;
+import cypher.enforcers.data.implementations.AuthenticationServiceImpl;
+import cypher.enforcers.data.implementations.CodeDAOImpl;
+import cypher.enforcers.data.implementations.CodeRepositoryImpl;
+import cypher.enforcers.data.implementations.InMemorySQLiteHelper;
+import cypher.enforcers.data.implementations.SessionDAOImpl;
+import cypher.enforcers.data.implementations.SessionRepositoryImpl;
+import cypher.enforcers.data.implementations.UserDAOImpl;
+import cypher.enforcers.data.implementations.UserRepositoryImpl;
+import cypher.enforcers.data.security.mappers.UserDTOMapper;
+import cypher.enforcers.data.spis.AuthenticationService;
+import cypher.enforcers.data.spis.CodeRepository;
+import cypher.enforcers.data.spis.UserRepository;
+import cypher.enforcers.utilities.sqliteutilities.SchemaMigrator;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class InMemoryDatabaseTests {
+
+    @Test
+    public void emptyDatabaseHasLatestSchema() throws SQLException {
+        InMemorySQLiteHelper dbService = new InMemorySQLiteHelper();
+        dbService.connect();
+
+        assertEquals(SchemaMigrator.currentVersion(dbService.getConnection()), SchemaMigrator.latestVersion(), "Database should be at the latest version.");
+
+        UserRepository userRepository = new UserRepositoryImpl(new UserDAOImpl(dbService));
+        assertTrue(userRepository.read(1).isEmpty(), "Database should have no users.");
+        assertTrue(userRepository.findLoggedInUser().isEmpty(), "Nobody should be logged in.");
+
+        dbService.disconnect();
+    }
+
+    @Test
+    public void snapshotAndRestore() throws SQLException, IOException {
+        Path snapshot = Files.createTempFile("snapshot", ".db");
+
+        try {
+            InMemorySQLiteHelper dbService = new InMemorySQLiteHelper();
+            dbService.connect();
+
+            UserRepository userRepository = new UserRepositoryImpl(new UserDAOImpl(dbService));
+            AuthenticationService authService = new AuthenticationServiceImpl(
+                    userRepository,
+                    new SessionRepositoryImpl(new SessionDAOImpl(dbService)),
+                    new UserDTOMapper()
+            );
+
+            assertTrue(authService.createUser("joe", "1234"), "Unable to create user.");
+            dbService.snapshot(snapshot);
+
+            // Changes after the snapshot are lost once restored.
+            assertTrue(authService.createUser("bob", "5678"), "Unable to create user.");
+            dbService.restore(snapshot);
+            assertTrue(new UserRepositoryImpl(new UserDAOImpl(dbService)).read("bob").isEmpty(), "User should be gone after restoring.");
+            dbService.disconnect();
+
+            // A new database starting from the snapshot.
+            InMemorySQLiteHelper restored = new InMemorySQLiteHelper();
+            restored.connect(snapshot.toString());
+
+            UserRepository restoredUsers = new UserRepositoryImpl(new UserDAOImpl(restored));
+            assertTrue(restoredUsers.read("joe").isPresent(), "User should be in the snapshot.");
+            assertTrue(restoredUsers.read("bob").isEmpty(), "User should not be in the snapshot.");
+
+            restored.disconnect();
+        } finally {
+            Files.deleteIfExists(snapshot);
+        }
+    }
+
+    @Test
+    public void startFromResource() {
+        InMemorySQLiteHelper dbService = new InMemorySQLiteHelper();
+        dbService.connect("code_read.db");
+
+        CodeRepository codeRepository = new CodeRepositoryImpl(new CodeDAOImpl(dbService));
+        List<CodeEntity> codes = codeRepository.readAll(3);
+        assertEquals(codes.size(), 16, "Number of codes does not match.");
+
+        // Changes stay in memory.
+        assertEquals(codeRepository.deleteAll(3).size(), 16, "Unable to delete codes.");
+        dbService.disconnect();
+
+        dbService = new InMemorySQLiteHelper();
+        dbService.connect("code_read.db");
+        codeRepository = new CodeRepositoryImpl(new CodeDAOImpl(dbService));
+        assertEquals(codeRepository.readAll(3).size(), 16, "Codes should not have been deleted.");
+
+        dbService.disconnect();
+    }
+
+}
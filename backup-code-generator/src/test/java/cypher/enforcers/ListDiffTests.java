@@ -0,0 +1,69 @@
+package cypher.enforcers;
+
+import cypher.enforcers.data.security.dtos.Code;
+import cypher.enforcers.utilities.ListDiff;
+import javafx.collections.FXCollections;
+import javafx.collections.ListChangeListener;
+import javafx.collections.ObservableList;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ListDiffTests {
+
+    @Test
+    public void onlyChangedItemsAreTouched() {
+        ObservableList<Code> codes = FXCollections.observableArrayList(
+                new Code(1, "one"), new Code(2, "two"), new Code(3, "three"),
+                new Code(4, "four"), new Code(5, "five")
+        );
+        Code unchanged = codes.get(0);
+
+        List<String> events = new ArrayList<>();
+        codes.addListener((ListChangeListener<Code>) change -> {
+            while (change.next()) {
+                if (change.wasReplaced()) {
+                    events.add("replaced " + change.getFrom());
+                } else if (change.wasAdded()) {
+                    events.add("added " + change.getFrom() + "-" + change.getTo());
+                } else if (change.wasRemoved()) {
+                    events.add("removed " + change.getFrom() + " x" + change.getRemovedSize());
+                }
+            }
+        });
+
+        // Code 2 changed, 3 and 4 were deleted, 6 and 7 were added.
+        List<Code> latest = List.of(
+                new Code(1, "one"), new Code(2, "TWO"), new Code(5, "five"),
+                new Code(6, "six"), new Code(7, "seven")
+        );
+
+        int changes = ListDiff.patch(codes, latest, Code::id);
+
+        assertEquals(codes, latest, "List should match the latest codes.");
+        assertEquals(changes, 5, "Number of changes does not match.");
+        assertEquals(events, List.of("removed 2 x2", "replaced 1", "added 3-5"), "Changes do not match.");
+        assertSame(codes.get(0), unchanged, "Unchanged code should be left alone.");
+
+        // Nothing changed, so nothing should happen.
+        events.clear();
+        assertEquals(ListDiff.patch(codes, List.copyOf(latest), Code::id), 0, "Nothing should have changed.");
+        assertTrue(events.isEmpty(), "No changes should be reported.");
+    }
+
+    @Test
+    public void itemsAreMovedIntoOrder() {
+        List<Code> codes = new ArrayList<>(List.of(new Code(1, "a"), new Code(2, "b"), new Code(3, "c")));
+        List<Code> latest = List.of(new Code(3, "c"), new Code(4, "d"), new Code(1, "a"), new Code(2, "b"));
+
+        ListDiff.patch(codes, latest, Code::id);
+        assertEquals(codes, latest, "List should match the latest codes.");
+
+        ListDiff.patch(codes, List.of(), Code::id);
+        assertTrue(codes.isEmpty(), "Every code should be removed.");
+    }
+
+}
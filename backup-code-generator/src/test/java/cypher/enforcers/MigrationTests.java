@@ -0,0 +1,55 @@
+package cypher.enforcers;
+
+import cypher.enforcers.data.entities.CodeEntity;
+import cypher.enforcers.data.implementations.SQLiteHelper;
+import cypher.enforcers.data.spis.DatabaseService;
+import cypher.enforcers.utilities.sqliteutilities.SchemaMigrator;
+import org.junit.jupiter.api.Test;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MigrationTests {
+
+    @Test
+    public void migrateOnConnect() throws SQLException {
+        DatabaseService dbService = new SQLiteHelper();
+        dbService.connect("migration.db");
+
+        assertEquals(SchemaMigrator.currentVersion(dbService.getConnection()), SchemaMigrator.latestVersion(), "Database should be at the latest version.");
+
+        // Migrating again should not change anything.
+        SchemaMigrator.migrate(dbService.getConnection());
+        assertEquals(SchemaMigrator.currentVersion(dbService.getConnection()), SchemaMigrator.latestVersion(), "Database should be at the latest version.");
+
+        assertTrue(queryPlan(dbService, "SELECT * FROM codes WHERE account_id = 3").contains("USING COVERING INDEX codes_by_account"), "Codes should be loaded from the index.");
+        assertTrue(queryPlan(dbService, "SELECT * FROM accounts WHERE user_id = 1").contains("USING COVERING INDEX accounts_by_user"), "Accounts should be loaded from the index.");
+        assertTrue(queryPlan(dbService, "SELECT * FROM sessions ORDER BY last_seen DESC LIMIT 1").contains("sessions_by_last_seen"), "Latest session should be found from the index.");
+        assertTrue(queryPlan(dbService, "SELECT 1 FROM sessions WHERE user_id = 1").contains("sessions_by_user"), "Sessions of a user should be found from the index.");
+
+        // Codes should still come back in the order they were added.
+        List<CodeEntity> codes = dbService.executeMultiSelect("SELECT * FROM codes WHERE account_id = ?", CodeEntity.class, 3L);
+        for (int i = 0; i < codes.size(); i++) {
+            assertEquals(codes.get(i).getId(), i + 33, "ID of code " + (i + 1) + " should be " + (i + 33) + ".");
+        }
+
+        dbService.disconnect();
+    }
+
+    private static String queryPlan(DatabaseService dbService, String query) throws SQLException {
+        StringBuilder plan = new StringBuilder();
+        try (Statement statement = dbService.getConnection().createStatement();
+             ResultSet resultSet = statement.executeQuery("EXPLAIN QUERY PLAN " + query)) {
+            while (resultSet.next()) {
+                plan.append(resultSet.getString("detail")).append('\n');
+            }
+        }
+
+        return plan.toString();
+    }
+
+}
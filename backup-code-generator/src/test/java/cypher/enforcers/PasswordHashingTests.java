@@ -0,0 +1,140 @@
+package cypher.enforcers;
+
+import cypher.enforcers.data.entities.UserEntity;
+import cypher.enforcers.data.implementations.AuthenticationServiceImpl;
+import cypher.enforcers.data.implementations.InMemorySQLiteHelper;
+import cypher.enforcers.data.implementations.SessionDAOImpl;
+import cypher.enforcers.data.implementations.SessionRepositoryImpl;
+import cypher.enforcers.data.implementations.UserDAOImpl;
+import cypher.enforcers.data.implementations.UserRepositoryImpl;
+import cypher.enforcers.data.security.HashingEngine;
+import cypher.enforcers.data.security.SecurityUtils;
+import cypher.enforcers.data.security.mappers.UserDTOMapper;
+import cypher.enforcers.data.spis.AuthenticationService;
+import cypher.enforcers.data.spis.DatabaseService;
+import cypher.enforcers.data.spis.UserRepository;
+import org.junit.jupiter.api.Test;
+
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.PBEKeySpec;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PasswordHashingTests {
+
+    /** Password "1234" stored in the format used before the current one. */
+    static final String LEGACY_PASSWORD = "tTRgbJppzALDJG/nbe8mqg==06A+/C5NMIvCLkyaRgqe3LRvVoGSJ9fKm8X06EzN7TNN7sb7VaNuMRTLWcBe+7uoaf+W5eF0cMuY7Obp57K4cg==";
+
+    @Test
+    public void hashesAreVersioned() {
+        int iterations = SecurityUtils.getIterations();
+        try {
+            SecurityUtils.setIterations(SecurityUtils.MIN_ITERATIONS);
+            String hash = SecurityUtils.hash("1234");
+
+            assertNotNull(hash, "Unable to hash password.");
+            assertTrue(hash.startsWith("$pbkdf2-sha512$i=" + SecurityUtils.MIN_ITERATIONS + "$"), "Hash should say how it was made.");
+            assertTrue(SecurityUtils.verify(hash, "1234"), "Password should match its hash.");
+            assertFalse(SecurityUtils.verify(hash, "4321"), "Wrong password should not match.");
+            assertFalse(SecurityUtils.needsRehash(hash), "Hash is up to date.");
+
+            // Calibrating to a slightly different number shouldn't
+            // rewrite every password.
+            SecurityUtils.setIterations(SecurityUtils.MIN_ITERATIONS * 6 / 5);
+            assertFalse(SecurityUtils.needsRehash(hash), "Hash with slightly fewer iterations is still up to date.");
+
+            SecurityUtils.setIterations(SecurityUtils.MIN_ITERATIONS * 2);
+            assertTrue(SecurityUtils.verify(hash, "1234"), "Older hashes should still be verified.");
+            assertTrue(SecurityUtils.needsRehash(hash), "Hash with far fewer iterations is stale.");
+
+            SecurityUtils.setIterations(1000);
+            assertTrue(SecurityUtils.needsRehash(SecurityUtils.hash("1234")), "Hash below the minimum is stale.");
+        } finally {
+            SecurityUtils.setIterations(iterations);
+        }
+
+        assertTrue(SecurityUtils.calibrate(Duration.ofMillis(1)) >= SecurityUtils.MIN_ITERATIONS, "Calibration went below the minimum.");
+        SecurityUtils.setIterations(iterations);
+    }
+
+    @Test
+    public void legacyPasswordsAreRehashedOnLogin() throws SQLException {
+        DatabaseService dbService = new InMemorySQLiteHelper();
+        dbService.connect();
+
+        // Password "1234" in the format used before the current one, as
+        // the salt followed by the hash.
+        dbService.executeUpdate("INSERT INTO users (id, username, password) VALUES (?, 'joe', ?)", 2L, LEGACY_PASSWORD);
+
+        UserRepository userRepository = new UserRepositoryImpl(new UserDAOImpl(dbService));
+        AuthenticationService authService = new AuthenticationServiceImpl(
+                userRepository,
+                new SessionRepositoryImpl(new SessionDAOImpl(dbService)),
+                new UserDTOMapper()
+        );
+
+        String legacy = userRepository.read("joe").map(UserEntity::getPassword).orElseThrow();
+        assertTrue(SecurityUtils.needsRehash(legacy), "Legacy hash should be stale.");
+        assertFalse(authService.authenticateUser("joe", "4321"), "Wrong password should not log the user in.");
+        assertEquals(userRepository.read("joe").orElseThrow().getPassword(), legacy, "Failed login should not rehash.");
+
+        assertTrue(authService.authenticateUser("joe", "1234"), "Unable to log user in.");
+
+        String rehashed = userRepository.read("joe").orElseThrow().getPassword();
+        assertTrue(rehashed.startsWith("$pbkdf2-sha512$"), "Password should be in the new format.");
+        assertFalse(SecurityUtils.needsRehash(rehashed), "New hash should be up to date.");
+
+        assertTrue(authService.logUserOut(2), "Unable to log user out.");
+        assertTrue(authService.authenticateUser("joe", "1234"), "Unable to log in with the new hash.");
+        assertEquals(userRepository.read("joe").orElseThrow().getPassword(), rehashed, "Up to date hash should be kept.");
+
+        dbService.disconnect();
+    }
+
+    @Test
+    public void hashesOnManyThreadsAtOnce() throws Exception {
+        HashingEngine engine = new HashingEngine("PBKDF2WithHmacSHA512");
+        byte[] salt = new byte[16];
+        byte[] expected = engine.hash("1234", salt, 1000, 512);
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<byte[]>> hashes = executor.invokeAll(IntStream.range(0, 64)
+                    .<Callable<byte[]>>mapToObj(i -> () -> engine.hash("1234", salt, 1000, 512))
+                    .toList());
+
+            for (Future<byte[]> hash : hashes) {
+                assertTrue(Arrays.equals(hash.get(), expected), "Hashes made at once should all match.");
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void verifiesHashesFromTheKeyFactory() throws Exception {
+        HashingEngine engine = new HashingEngine("PBKDF2WithHmacSHA512");
+        SecretKeyFactory factory = SecretKeyFactory.getInstance("PBKDF2WithHmacSHA512");
+        byte[] salt = "0123456789abcdef".getBytes();
+
+        for (String password : new String[] {"", "1234", "p\u00e4ssw\u00f6rd \u2713", "a much longer password than one block of the hash"}) {
+            for (int keyLength : new int[] {256, 512, 1024}) {
+                byte[] expected = factory.generateSecret(new PBEKeySpec(password.toCharArray(), salt, 3, keyLength)).getEncoded();
+
+                assertArrayEquals(engine.hash(password, salt, 3, keyLength), expected, "Hash does not match for " + password + ".");
+                assertTrue(engine.verify(password.toCharArray(), salt, 3, expected), "Password should match for " + password + ".");
+                assertFalse(engine.verify((password + "!").toCharArray(), salt, 3, expected), "Wrong password should not match.");
+            }
+        }
+    }
+
+}
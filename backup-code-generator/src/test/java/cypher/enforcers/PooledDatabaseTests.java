@@ -0,0 +1,73 @@
+package cypher.enforcers;
+
+import cypher.enforcers.data.entities.CodeEntity;
+import cypher.enforcers.data.implementations.CodeDAOImpl;
+import cypher.enforcers.data.implementations.CodeRepositoryImpl;
+import cypher.enforcers.data.implementations.PooledSQLiteHelper;
+import cypher.enforcers.data.spis.CodeDAO;
+import cypher.enforcers.data.spis.CodeRepository;
+import cypher.enforcers.data.spis.DatabaseService;
+import cypher.enforcers.utilities.sqliteutilities.ConnectionLease;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PooledDatabaseTests {
+
+    @Test
+    public void readWhileWriterIsHeld() throws Exception {
+        DatabaseService dbService = new PooledSQLiteHelper(4);
+        dbService.connect("pool_read.db");
+
+        CodeDAO codeDAO = new CodeDAOImpl(dbService);
+        CodeRepository codeRepository = new CodeRepositoryImpl(codeDAO);
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try (ConnectionLease ignored = dbService.leaseWriter()) {
+            List<Future<List<CodeEntity>>> reads = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                reads.add(executor.submit(() -> codeRepository.readAll(3)));
+            }
+
+            for (Future<List<CodeEntity>> read : reads) {
+                assertEquals(read.get(10, TimeUnit.SECONDS).size(), 16, "Number of codes does not match.");
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        dbService.disconnect();
+    }
+
+    @Test
+    public void readersSeeCommittedWrites() {
+        DatabaseService dbService = new PooledSQLiteHelper(2);
+        dbService.connect("pool_write.db");
+
+        CodeDAO codeDAO = new CodeDAOImpl(dbService);
+        CodeRepository codeRepository = new CodeRepositoryImpl(codeDAO);
+
+        CodeEntity c = new CodeEntity();
+        c.setCode("123 456");
+        c.setAccountID(1);
+
+        Optional<CodeEntity> optionalCode = codeRepository.create(c);
+        assertTrue(optionalCode.isPresent(), "User cannot create code.");
+        assertEquals(optionalCode.get().getId(), 1, "Code ID should be 1.");
+
+        Optional<CodeEntity> readCode = codeRepository.read(1);
+        assertTrue(readCode.isPresent(), "Code is not visible to readers.");
+        assertEquals(readCode.get().getCode(), "123 456", "Codes do not match.");
+
+        dbService.disconnect();
+    }
+
+}
@@ -0,0 +1,61 @@
+package cypher.enforcers;
+
+import cypher.enforcers.utilities.Prefetcher;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PrefetcherTests {
+
+    @Test
+    public void onlyRecentKeysAreLoaded() {
+        List<Long> loaded = new ArrayList<>();
+        Deque<Runnable> tasks = new ArrayDeque<>();
+        Prefetcher<Long> prefetcher = new Prefetcher<>(loaded::add, tasks::add, 2);
+
+        prefetcher.prefetch(1L);
+        prefetcher.prefetch(2L);
+        assertEquals(prefetcher.running(), 2, "Both keys should start loading.");
+
+        // No room to run, so only the two most recent keys wait.
+        prefetcher.prefetch(3L);
+        prefetcher.prefetch(4L);
+        prefetcher.prefetch(5L);
+        prefetcher.prefetch(1L);
+        assertEquals(prefetcher.running(), 2, "Too many keys are loading.");
+        assertEquals(prefetcher.waiting(), 2, "Oldest waiting key should be dropped.");
+
+        prefetcher.cancel(4L);
+        while (!tasks.isEmpty()) {
+            tasks.removeFirst().run();
+        }
+
+        assertEquals(loaded, List.of(1L, 2L, 5L), "Wrong keys were loaded.");
+        assertEquals(prefetcher.running(), 0, "Nothing should be loading.");
+        assertEquals(prefetcher.waiting(), 0, "Nothing should be waiting.");
+    }
+
+    @Test
+    public void failedLoadMakesRoom() {
+        List<Long> loaded = new ArrayList<>();
+        Prefetcher<Long> prefetcher = new Prefetcher<>(key -> {
+            if (key == 1L) {
+                throw new IllegalStateException("Failed to load.");
+            }
+
+            loaded.add(key);
+        }, Runnable::run, 1);
+
+        prefetcher.prefetch(1L);
+        prefetcher.prefetch(2L);
+
+        assertEquals(loaded, List.of(2L), "Second key should still be loaded.");
+        assertEquals(prefetcher.running(), 0, "Nothing should be loading.");
+    }
+
+}
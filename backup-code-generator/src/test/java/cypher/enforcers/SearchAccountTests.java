@@ -10,6 +10,7 @@ import org.junit.jupiter.api.Test;
 
 import static org.junit.jupiter.api.Assertions.*;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.stream.Stream;
@@ -143,4 +144,9 @@ public class SearchAccountTests {
      public List<AccountEntity> deleteAll(long id) {
          return null;
      }
+
+     @Override
+     public List<AccountEntity> deleteAll(Collection<Long> ids) {
+         return null;
+     }
  }
\ No newline at end of file
@@ -0,0 +1,86 @@
+package cypher.enforcers;
+
+import cypher.enforcers.data.entities.SessionEntity;
+import cypher.enforcers.data.implementations.AuthenticationServiceImpl;
+import cypher.enforcers.data.implementations.InMemorySQLiteHelper;
+import cypher.enforcers.data.implementations.SQLiteHelper;
+import cypher.enforcers.data.implementations.SessionDAOImpl;
+import cypher.enforcers.data.implementations.SessionRepositoryImpl;
+import cypher.enforcers.data.implementations.UserDAOImpl;
+import cypher.enforcers.data.implementations.UserRepositoryImpl;
+import cypher.enforcers.data.security.dtos.User;
+import cypher.enforcers.data.security.mappers.UserDTOMapper;
+import cypher.enforcers.data.spis.AuthenticationService;
+import cypher.enforcers.data.spis.DatabaseService;
+import cypher.enforcers.data.spis.SessionRepository;
+import cypher.enforcers.data.spis.UserRepository;
+import org.junit.jupiter.api.Test;
+
+import java.sql.SQLException;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SessionTests {
+
+    @Test
+    public void currentUserKeptInMemory() throws SQLException {
+        long start = System.currentTimeMillis();
+
+        DatabaseService dbService = new SQLiteHelper();
+        dbService.connect("session.db");
+
+        UserRepository userRepository = new UserRepositoryImpl(new UserDAOImpl(dbService));
+        SessionRepository sessionRepository = new SessionRepositoryImpl(new SessionDAOImpl(dbService));
+        AuthenticationService authService = new AuthenticationServiceImpl(userRepository, sessionRepository, new UserDTOMapper());
+
+        // The user that was logged in before sessions existed should
+        // still be logged in.
+        Optional<User> user = authService.getLoggedInUser();
+        assertTrue(user.isPresent(), "User should be logged in.");
+        assertEquals(user.get().username(), "joe", "Usernames don't match.");
+
+        // Loading the user marks their session as used.
+        Optional<SessionEntity> session = sessionRepository.findLatest();
+        assertTrue(session.isPresent(), "Session should exist.");
+        assertEquals(session.get().getUserId(), 2L, "Session belongs to the wrong user.");
+        assertTrue(session.get().getLastSeen() >= start, "Session should have been marked as used.");
+
+        // After the first load, the user comes from memory.
+        dbService.executeUpdate("DELETE FROM sessions WHERE user_id = ?", 2L);
+        user = authService.getLoggedInUser();
+        assertTrue(user.isPresent(), "User should still be logged in.");
+        assertEquals(user.get().id(), 2L, "IDs don't match.");
+
+        assertTrue(authService.authenticateUser("joe", "1234"), "Unable to log user in.");
+        assertTrue(sessionRepository.findLatest().isPresent(), "Logging in should start a session.");
+
+        assertTrue(authService.logUserOut(2), "Unable to log user out.");
+        assertTrue(authService.getLoggedInUser().isEmpty(), "User should be logged out.");
+        assertTrue(sessionRepository.findLatest().isEmpty(), "Logging out should end the session.");
+
+        dbService.disconnect();
+    }
+
+    @Test
+    public void loggingInAgainReplacesSession() throws SQLException {
+        DatabaseService dbService = new InMemorySQLiteHelper();
+        dbService.connect();
+        dbService.executeUpdate("INSERT INTO users (id, username, password) VALUES (?, 'joe', ?)", 2L, PasswordHashingTests.LEGACY_PASSWORD);
+
+        UserRepository userRepository = new UserRepositoryImpl(new UserDAOImpl(dbService));
+        SessionRepository sessionRepository = new SessionRepositoryImpl(new SessionDAOImpl(dbService));
+        AuthenticationService authService = new AuthenticationServiceImpl(userRepository, sessionRepository, new UserDTOMapper());
+
+        for (int i = 0; i < 3; i++) {
+            assertTrue(authService.authenticateUser("joe", "1234"), "Unable to log user in.");
+        }
+
+        SessionEntity session = sessionRepository.findLatest().orElseThrow();
+        assertEquals(dbService.executeMultiSelect("SELECT * FROM sessions", SessionEntity.class).size(), 1, "Only the latest session should be kept.");
+        assertEquals(session.getUserId(), 2L, "Session belongs to the wrong user.");
+
+        dbService.disconnect();
+    }
+
+}
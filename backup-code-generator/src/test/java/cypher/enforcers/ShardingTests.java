@@ -0,0 +1,120 @@
+package cypher.enforcers;
+
+import cypher.enforcers.data.entities.AccountEntity;
+import cypher.enforcers.data.entities.CodeEntity;
+import cypher.enforcers.data.implementations.AccountDAOImpl;
+import cypher.enforcers.data.implementations.AccountRepositoryImpl;
+import cypher.enforcers.data.implementations.AuthenticationServiceImpl;
+import cypher.enforcers.data.implementations.CodeDAOImpl;
+import cypher.enforcers.data.implementations.CodeRepositoryImpl;
+import cypher.enforcers.data.implementations.InMemorySQLiteHelper;
+import cypher.enforcers.data.implementations.SQLiteHelper;
+import cypher.enforcers.data.implementations.SessionDAOImpl;
+import cypher.enforcers.data.implementations.SessionRepositoryImpl;
+import cypher.enforcers.data.implementations.ShardedSQLiteHelper;
+import cypher.enforcers.data.implementations.UserDAOImpl;
+import cypher.enforcers.data.implementations.UserRepositoryImpl;
+import cypher.enforcers.data.security.mappers.UserDTOMapper;
+import cypher.enforcers.data.spis.AccountRepository;
+import cypher.enforcers.data.spis.AuthenticationService;
+import cypher.enforcers.data.spis.CodeRepository;
+import cypher.enforcers.data.spis.DatabaseService;
+import cypher.enforcers.utilities.Utilities;
+import cypher.enforcers.utilities.sqliteutilities.ShardSplitter;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ShardingTests {
+
+    @Test
+    public void splitMovesAccountsIntoShards() throws SQLException {
+        // Only a directory kept in a file can be split, so it's written
+        // out first.
+        InMemorySQLiteHelper source = new InMemorySQLiteHelper();
+        source.connect();
+        addUsers(source);
+        source.snapshot(Path.of(Utilities.getParentDirectory(), "shard_split.db"));
+        source.disconnect();
+
+        ShardedSQLiteHelper dbService = new ShardedSQLiteHelper(new SQLiteHelper());
+        dbService.connect("shard_split.db");
+
+        assertEquals(ShardSplitter.split(dbService), 2L, "Number of accounts moved does not match.");
+        assertNull(dbService.getDirectory().executeMultiSelect("SELECT * FROM accounts", AccountEntity.class), "Directory should have no accounts left.");
+        assertNull(dbService.getDirectory().executeMultiSelect("SELECT * FROM codes", CodeEntity.class), "Directory should have no codes left.");
+        assertTrue(new File(Utilities.getParentDirectory(), "shard_split_user_1.db").exists(), "First user should have a database.");
+        assertTrue(new File(Utilities.getParentDirectory(), "shard_split_user_2.db").exists(), "Second user should have a database.");
+
+        // Running it again has nothing left to move.
+        assertEquals(ShardSplitter.split(dbService), 0L, "Nothing should be moved twice.");
+
+        AuthenticationService authService = createAuthService(dbService);
+        AccountRepository accountRepository = new AccountRepositoryImpl(new AccountDAOImpl(dbService));
+        CodeRepository codeRepository = new CodeRepositoryImpl(new CodeDAOImpl(dbService));
+
+        assertTrue(accountRepository.readAll(2).isEmpty(), "No accounts should be read before logging in.");
+        assertTrue(authService.authenticateUser("joe", "1234"), "Unable to log user in.");
+
+        List<AccountEntity> accounts = accountRepository.readAll(2);
+        assertEquals(accounts.size(), 1, "Number of accounts does not match.");
+        assertEquals(codeRepository.readAll(accounts.get(0).getID()).size(), 4, "Number of codes does not match.");
+        assertTrue(accountRepository.readAll(1).isEmpty(), "Accounts of the other user should not be here.");
+
+        dbService.disconnect();
+    }
+
+    @Test
+    public void newUsersGetTheirOwnShard() throws SQLException {
+        ShardedSQLiteHelper dbService = new ShardedSQLiteHelper(new InMemorySQLiteHelper());
+        dbService.connect();
+        addUsers(dbService.getDirectory());
+
+        AuthenticationService authService = createAuthService(dbService);
+        AccountRepository accountRepository = new AccountRepositoryImpl(new AccountDAOImpl(dbService));
+
+        assertTrue(authService.createUser("bob", "5678"), "Unable to create user.");
+        long bob = authService.getLoggedInUser().orElseThrow().id();
+        assertTrue(new File(Utilities.getParentDirectory(), "database_user_" + bob + ".db").exists(), "User should have a database.");
+
+        AccountEntity account = new AccountEntity();
+        account.setUserId(bob);
+        account.setName("bob");
+        account.setSocialMediaType("Discord");
+        assertTrue(accountRepository.create(account).isPresent(), "Unable to create account.");
+
+        // The account is only in the database of the new user.
+        DatabaseService directory = dbService.getDirectory();
+        assertTrue(authService.logUserOut(bob), "Unable to log user out.");
+        assertNull(dbService.getConnection(), "Logging out should close the database of the user.");
+
+        assertTrue(authService.authenticateUser("joe", "1234"), "Unable to log user in.");
+        assertTrue(new AccountRepositoryImpl(new AccountDAOImpl(dbService)).readAll(bob).isEmpty(), "Other user should not see the account.");
+        assertEquals(new AccountRepositoryImpl(new AccountDAOImpl(directory)).readAll(2).size(), 1, "Accounts that weren't moved should stay in the directory.");
+
+        dbService.disconnect();
+    }
+
+    private static void addUsers(DatabaseService dbService) throws SQLException {
+        dbService.executeUpdate("INSERT INTO users (id, username, password) VALUES (?, 'hannan', ?), (?, 'joe', ?)",
+                1L, PasswordHashingTests.LEGACY_PASSWORD, 2L, PasswordHashingTests.LEGACY_PASSWORD);
+        dbService.executeUpdate("INSERT INTO accounts (id, user_id, name, type) VALUES (1, 1, 'Joe', '1234'), (2, 2, 'Joe', 'GitHub')");
+        dbService.executeUpdate("INSERT INTO codes (account_id, code) VALUES (1, '1234'), (1, '1234'), (1, '1234'), (2, '1234'), (2, '1234'), (2, '1234'), (2, '1234')");
+    }
+
+    private static AuthenticationService createAuthService(ShardedSQLiteHelper dbService) {
+        DatabaseService directory = dbService.getDirectory();
+        return new AuthenticationServiceImpl(
+                new UserRepositoryImpl(new UserDAOImpl(directory)),
+                new SessionRepositoryImpl(new SessionDAOImpl(directory)),
+                new UserDTOMapper(),
+                dbService
+        );
+    }
+
+}
@@ -0,0 +1,39 @@
+package cypher.enforcers;
+
+import cypher.enforcers.data.entities.CodeEntity;
+import cypher.enforcers.data.implementations.CodeDAOImpl;
+import cypher.enforcers.data.implementations.CodeRepositoryImpl;
+import cypher.enforcers.data.implementations.SQLiteHelper;
+import cypher.enforcers.data.spis.CodeDAO;
+import cypher.enforcers.data.spis.CodeRepository;
+import cypher.enforcers.data.spis.DatabaseService;
+import cypher.enforcers.utilities.CacheStatistics;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class StatementCacheTests {
+
+    @Test
+    public void repeatedQueriesHitCache() {
+        DatabaseService dbService = new SQLiteHelper();
+        dbService.connect("code_read.db");
+
+        CodeDAO codeDAO = new CodeDAOImpl(dbService);
+        CodeRepository codeRepository = new CodeRepositoryImpl(codeDAO);
+
+        for (int i = 0; i < 10; i++) {
+            List<CodeEntity> codes = codeRepository.readAll(3);
+            assertEquals(codes.size(), 16, "Number of codes does not match.");
+        }
+
+        CacheStatistics statistics = dbService.getStatementCacheStatistics();
+        assertEquals(statistics.misses(), 1, "Query should only be prepared once.");
+        assertEquals(statistics.hits(), 9, "Query should be reused after the first read.");
+
+        dbService.disconnect();
+    }
+
+}
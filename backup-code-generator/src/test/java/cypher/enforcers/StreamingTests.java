@@ -0,0 +1,95 @@
+package cypher.enforcers;
+
+import cypher.enforcers.data.entities.CodeEntity;
+import cypher.enforcers.data.entities.UserEntity;
+import cypher.enforcers.data.implementations.SQLiteHelper;
+import cypher.enforcers.data.spis.DatabaseService;
+import cypher.enforcers.views.themes.Theme;
+import org.junit.jupiter.api.Test;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class StreamingTests {
+
+    @Test
+    public void streamCodes() throws SQLException {
+        DatabaseService dbService = new SQLiteHelper();
+        dbService.connect("code_read.db");
+
+        try (Stream<CodeEntity> codes = dbService.executeStream("SELECT * FROM codes WHERE account_id = ?", CodeEntity.class, 3L)) {
+            List<Long> ids = codes.map(CodeEntity::getId).toList();
+            assertEquals(ids.size(), 16, "Number of codes does not match.");
+            for (int i = 0; i < ids.size(); i++) {
+                assertEquals(ids.get(i), i + 33, "ID of code " + (i + 1) + " should be " + (i + 33) + ".");
+            }
+        }
+
+        try (Stream<CodeEntity> codes = dbService.executeStream("SELECT * FROM codes WHERE account_id = ?", CodeEntity.class, 100L)) {
+            assertEquals(codes.count(), 0, "Stream should be empty.");
+        }
+
+        // Only part of the stream is read, the rest should be closed with it.
+        try (Stream<CodeEntity> codes = dbService.executeStream("SELECT * FROM codes", CodeEntity.class)) {
+            assertEquals(codes.limit(2).count(), 2, "Stream should be limited.");
+        }
+
+        // The connection should be free once the streams are closed.
+        assertEquals(dbService.executeMultiSelect("SELECT * FROM codes WHERE account_id = ?", CodeEntity.class, 4L).size(), 1);
+
+        dbService.disconnect();
+    }
+
+    @Test
+    public void readRowsInChunks() throws SQLException {
+        DatabaseService dbService = new SQLiteHelper();
+        dbService.connect("code_read.db");
+
+        List<String> codes = new ArrayList<>();
+        long count = dbService.forEachRow("SELECT * FROM codes WHERE account_id = ?", CodeEntity.class, code -> codes.add(code.getCode()), 3L);
+        assertEquals(count, 16, "Number of codes does not match.");
+        assertEquals(codes.get(0), "7294 8105", "First code does not match.");
+
+        List<Integer> sizes = new ArrayList<>();
+        count = dbService.forEachChunk("SELECT * FROM codes WHERE account_id = ?", CodeEntity.class, 5, chunk -> sizes.add(chunk.size()), 3L);
+        assertEquals(count, 16, "Number of codes does not match.");
+        assertEquals(sizes, List.of(5, 5, 5, 1), "Chunks should be no bigger than 5.");
+
+        dbService.disconnect();
+    }
+
+    @Test
+    public void streamUsers() throws SQLException {
+        DatabaseService dbService = new SQLiteHelper();
+        dbService.connect("user_read.db");
+
+        try (Stream<UserEntity> users = dbService.executeStream("SELECT * FROM users", UserEntity.class)) {
+            List<String> usernames = users.map(UserEntity::getUsername).toList();
+            assertEquals(usernames, List.of("hannan", "joe"), "Users should be mapped.");
+        }
+
+        dbService.disconnect();
+    }
+
+    @Test
+    public void mapColumnsInAnyOrder() throws SQLException {
+        DatabaseService dbService = new SQLiteHelper();
+        dbService.connect("code_read.db");
+
+        List<CodeEntity> codes = dbService.executeMultiSelect("SELECT code, account_id, id FROM codes WHERE account_id = ?", CodeEntity.class, 3L);
+        assertEquals(codes.size(), 16, "Number of codes does not match.");
+        assertEquals(codes.get(0).getId(), 33, "ID should be 33.");
+        assertEquals(codes.get(0).getAccountID(), 3, "Account ID should be 3.");
+        assertEquals(codes.get(0).getCode(), "7294 8105", "Codes do not match.");
+
+        assertEquals(dbService.executeSelect("SELECT theme_value FROM users WHERE id = ?", Theme.class, 1L), Theme.LIGHT, "Themes do not match.");
+        assertNull(dbService.executeSelect("SELECT * FROM codes WHERE id = ?", CodeEntity.class, 1000L), "Code should not exist.");
+
+        dbService.disconnect();
+    }
+
+}
@@ -0,0 +1,97 @@
+package cypher.enforcers;
+
+import cypher.enforcers.data.entities.AccountEntity;
+import cypher.enforcers.data.implementations.AccountDAOImpl;
+import cypher.enforcers.data.implementations.InMemorySQLiteHelper;
+import cypher.enforcers.data.spis.AccountDAO;
+import cypher.enforcers.data.spis.DatabaseService;
+import org.junit.jupiter.api.Test;
+
+import java.sql.SQLException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TransactionTests {
+
+    @Test
+    public void nestedWorkRollsBackOnItsOwn() throws SQLException {
+        DatabaseService dbService = new InMemorySQLiteHelper();
+        dbService.connect();
+        addAccounts(dbService);
+
+        AccountDAO accountDAO = new AccountDAOImpl(dbService);
+
+        int depth = dbService.inTransaction(transaction -> {
+            assertNotNull(accountDAO.addAccount(new AccountEntity(0, 1, "kept", "Discord")), "Unable to add account.");
+
+            // Reads made while the transaction runs can see its changes.
+            assertEquals(accountDAO.getAccounts(1).size(), 4, "Account added in the transaction should be visible.");
+
+            SQLException e = assertThrows(SQLException.class, () -> dbService.inTransaction(nested -> {
+                accountDAO.addAccount(new AccountEntity(0, 1, "dropped", "GitHub"));
+                throw new SQLException("Nested work failed.");
+            }), "Nested failure should be thrown.");
+            assertEquals(e.getMessage(), "Nested work failed.", "Wrong error thrown.");
+
+            return transaction.depth();
+        });
+
+        assertEquals(depth, 0, "Savepoints should all be released.");
+        assertEquals(accountDAO.getAccounts(1).stream().map(AccountEntity::getName).filter(name -> !name.equals("kept")).count(), 3L, "Only the outer account should be added.");
+        assertTrue(accountDAO.getAccounts(1).stream().anyMatch(account -> account.getName().equals("kept")), "Outer account should be committed.");
+
+        dbService.disconnect();
+    }
+
+    @Test
+    public void failureRollsBackEverything() throws SQLException {
+        DatabaseService dbService = new InMemorySQLiteHelper();
+        dbService.connect();
+        addAccounts(dbService);
+
+        AccountDAO accountDAO = new AccountDAOImpl(dbService);
+
+        assertThrows(IllegalStateException.class, () -> dbService.inTransaction(transaction -> {
+            accountDAO.removeAccount(1);
+            accountDAO.addAccount(new AccountEntity(0, 2, "new", "Google"));
+            throw new IllegalStateException("Import failed.");
+        }), "Failure should be thrown.");
+
+        assertEquals(accountDAO.getAccounts(1).size(), 3, "Deleted account should be back.");
+        assertEquals(accountDAO.getAccounts(2).size(), 2, "Added account should be gone.");
+
+        // Errors from a single update aren't dropped either.
+        assertThrows(SQLException.class, () -> dbService.executeUpdate("UPDATE accounts SET name = ? WHERE id = ?", "", 1L), "Failed update should be thrown.");
+
+        dbService.disconnect();
+    }
+
+    @Test
+    public void failedQueryInWorkRollsBackEverything() throws SQLException {
+        DatabaseService dbService = new InMemorySQLiteHelper();
+        dbService.connect();
+        addAccounts(dbService);
+
+        AccountDAO accountDAO = new AccountDAOImpl(dbService);
+
+        // No user 3, so the second account breaks the foreign key.
+        assertThrows(SQLException.class, () -> dbService.inTransaction(transaction -> {
+            accountDAO.removeAccount(1);
+            return accountDAO.addAccount(new AccountEntity(0, 3, "new", "Google"));
+        }), "Failed query should be thrown.");
+
+        assertNotNull(accountDAO.getAccount(1), "Deleted account should be back.");
+
+        // Outside a transaction, the DAO still returns null.
+        assertNull(accountDAO.addAccount(new AccountEntity(0, 3, "new", "Google")), "Account should not be added.");
+
+        dbService.disconnect();
+    }
+
+    private static void addAccounts(DatabaseService dbService) throws SQLException {
+        dbService.executeUpdate("INSERT INTO users (id, username, password) VALUES (1, 'hannan', 'x'), (2, 'joe', 'x')");
+        dbService.executeUpdate("INSERT INTO accounts (id, user_id, name, type) VALUES " +
+                "(1, 1, 'Joe', '1234'), (2, 2, 'Joe', 'GitHub'), (3, 1, 'Razor', 'Origin'), (4, 1, 'ACOne', 'Discord'), (5, 2, 'ACTwo', 'Slack')");
+    }
+
+}
@@ -4,11 +4,15 @@ import cypher.enforcers.data.implementations.AuthenticationServiceImpl;
 import cypher.enforcers.data.implementations.SQLiteHelper;
 import cypher.enforcers.data.implementations.UserDAOImpl;
 import cypher.enforcers.data.implementations.UserRepositoryImpl;
+import cypher.enforcers.data.implementations.SessionRepositoryImpl;
+import cypher.enforcers.data.implementations.SessionDAOImpl;
+import cypher.enforcers.data.security.SecurityUtils;
 import cypher.enforcers.data.security.mappers.UserDTOMapper;
 import cypher.enforcers.data.spis.AuthenticationService;
 import cypher.enforcers.data.spis.DatabaseService;
 import cypher.enforcers.data.spis.UserDAO;
 import cypher.enforcers.data.spis.UserRepository;
+import cypher.enforcers.data.spis.SessionRepository;
 import cypher.enforcers.data.entities.UserEntity;
 import cypher.enforcers.views.themes.Theme;
 import org.junit.jupiter.api.Test;
@@ -27,7 +31,8 @@ public class UserLoadingTests {
         UserDAO userDAO = new UserDAOImpl(dbService);
         UserRepository userRepository = new UserRepositoryImpl(userDAO);
         UserDTOMapper mapper = new UserDTOMapper();
-        AuthenticationService authService = new AuthenticationServiceImpl(userRepository, mapper);
+        SessionRepository sessionRepository = new SessionRepositoryImpl(new SessionDAOImpl(dbService));
+        AuthenticationService authService = new AuthenticationServiceImpl(userRepository, sessionRepository, mapper);
 
         assertTrue(authService.checkUsername("joe"), "Username is not taken.");
         assertTrue(authService.checkUsername("haNNan"), "Username is not taken.");
@@ -75,7 +80,8 @@ public class UserLoadingTests {
         UserDAO userDAO = new UserDAOImpl(dbService);
         UserRepository userRepository = new UserRepositoryImpl(userDAO);
         UserDTOMapper mapper = new UserDTOMapper();
-        AuthenticationService authService = new AuthenticationServiceImpl(userRepository, mapper);
+        SessionRepository sessionRepository = new SessionRepositoryImpl(new SessionDAOImpl(dbService));
+        AuthenticationService authService = new AuthenticationServiceImpl(userRepository, sessionRepository, mapper);
 
         assertTrue(authService.authenticateUser("hannan", "12345"), "Failed to login user.");
 
@@ -84,7 +90,8 @@ public class UserLoadingTests {
 
         UserEntity user = optionalUser.get();
         assertEquals(user.getID(), 1, "Id for first user not equal.");
-        assertTrue(user.getPassword().contains("WtlWQL"), "Password does not match.");
+        assertTrue(user.getPassword().startsWith("$pbkdf2-sha512$"), "Password should be hashed again.");
+        assertTrue(SecurityUtils.verify(user.getPassword(), "12345"), "Password does not match.");
 
         dbService.disconnect();
     }
@@ -97,7 +104,8 @@ public class UserLoadingTests {
         UserDAO userDAO = new UserDAOImpl(dbService);
         UserRepository userRepository = new UserRepositoryImpl(userDAO);
         UserDTOMapper mapper = new UserDTOMapper();
-        AuthenticationService authService = new AuthenticationServiceImpl(userRepository, mapper);
+        SessionRepository sessionRepository = new SessionRepositoryImpl(new SessionDAOImpl(dbService));
+        AuthenticationService authService = new AuthenticationServiceImpl(userRepository, sessionRepository, mapper);
 
         assertTrue(authService.authenticateUser("joe", "1234"), "Failed to login user.");
 
@@ -106,7 +114,8 @@ public class UserLoadingTests {
 
         UserEntity user = optionalUser.get();
         assertEquals(user.getID(), 2, "Id for first user not equal.");
-        assertTrue(user.getPassword().contains("tTRgbJ"), "Password does not match.");
+        assertTrue(user.getPassword().startsWith("$pbkdf2-sha512$"), "Password should be hashed again.");
+        assertTrue(SecurityUtils.verify(user.getPassword(), "1234"), "Password does not match.");
         dbService.disconnect();
     }
 
@@ -4,11 +4,14 @@ import cypher.enforcers.data.implementations.AuthenticationServiceImpl;
 import cypher.enforcers.data.implementations.SQLiteHelper;
 import cypher.enforcers.data.implementations.UserDAOImpl;
 import cypher.enforcers.data.implementations.UserRepositoryImpl;
+import cypher.enforcers.data.implementations.SessionRepositoryImpl;
+import cypher.enforcers.data.implementations.SessionDAOImpl;
 import cypher.enforcers.data.security.mappers.UserDTOMapper;
 import cypher.enforcers.data.spis.AuthenticationService;
 import cypher.enforcers.data.spis.DatabaseService;
 import cypher.enforcers.data.spis.UserDAO;
 import cypher.enforcers.data.spis.UserRepository;
+import cypher.enforcers.data.spis.SessionRepository;
 import cypher.enforcers.data.entities.UserEntity;
 import cypher.enforcers.views.themes.Theme;
 import org.junit.jupiter.api.Test;
@@ -31,7 +34,8 @@ public class UserSavingAndLoadingTests {
         UserDAO userDAO = new UserDAOImpl(dbService);
         UserRepository userRepository = new UserRepositoryImpl(userDAO);
         UserDTOMapper mapper = new UserDTOMapper();
-        AuthenticationService authService = new AuthenticationServiceImpl(userRepository, mapper);
+        SessionRepository sessionRepository = new SessionRepositoryImpl(new SessionDAOImpl(dbService));
+        AuthenticationService authService = new AuthenticationServiceImpl(userRepository, sessionRepository, mapper);
 
         // No user should be logged in.
         Optional<UserEntity> optionalUser = userRepository.findLoggedInUser();
@@ -70,7 +74,8 @@ public class UserSavingAndLoadingTests {
         UserDAO userDAO = new UserDAOImpl(dbService);
         UserRepository userRepository = new UserRepositoryImpl(userDAO);
         UserDTOMapper mapper = new UserDTOMapper();
-        AuthenticationService authService = new AuthenticationServiceImpl(userRepository, mapper);
+        SessionRepository sessionRepository = new SessionRepositoryImpl(new SessionDAOImpl(dbService));
+        AuthenticationService authService = new AuthenticationServiceImpl(userRepository, sessionRepository, mapper);
 
         // No user should be logged in.
         Optional<UserEntity> optionalUser = userRepository.findLoggedInUser();
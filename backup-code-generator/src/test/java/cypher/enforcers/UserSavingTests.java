@@ -1,15 +1,21 @@
 package cypher.enforcers;
 
 import cypher.enforcers.data.implementations.AuthenticationServiceImpl;
+import cypher.enforcers.data.implementations.InMemorySQLiteHelper;
 import cypher.enforcers.data.implementations.SQLiteHelper;
 import cypher.enforcers.data.implementations.UserDAOImpl;
 import cypher.enforcers.data.implementations.UserRepositoryImpl;
+import cypher.enforcers.data.implementations.SessionRepositoryImpl;
+import cypher.enforcers.data.implementations.SessionDAOImpl;
 import cypher.enforcers.data.security.dtos.User;
 import cypher.enforcers.data.security.mappers.UserDTOMapper;
 import cypher.enforcers.data.spis.AuthenticationService;
 import cypher.enforcers.data.spis.DatabaseService;
+import cypher.enforcers.data.spis.KeyRing;
+import cypher.enforcers.data.spis.ShardRouter;
 import cypher.enforcers.data.spis.UserDAO;
 import cypher.enforcers.data.spis.UserRepository;
+import cypher.enforcers.data.spis.SessionRepository;
 import cypher.enforcers.views.themes.Theme;
 import org.junit.jupiter.api.Test;
 
@@ -17,6 +23,7 @@ import static org.junit.jupiter.api.Assertions.*;
 
 import java.util.NoSuchElementException;
 import java.util.Optional;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * Tests for using the user-data-related services.
@@ -31,7 +38,8 @@ public class UserSavingTests {
         UserDAO userDAO = new UserDAOImpl(dbService);
         UserRepository userRepository = new UserRepositoryImpl(userDAO);
         UserDTOMapper mapper = new UserDTOMapper();
-        AuthenticationService authService = new AuthenticationServiceImpl(userRepository, mapper);
+        SessionRepository sessionRepository = new SessionRepositoryImpl(new SessionDAOImpl(dbService));
+        AuthenticationService authService = new AuthenticationServiceImpl(userRepository, sessionRepository, mapper);
 
         // No user should be logged in.
         Optional<User> optionalUser = authService.getLoggedInUser();
@@ -56,7 +64,8 @@ public class UserSavingTests {
         UserDAO userDAO = new UserDAOImpl(dbService);
         UserRepository userRepository = new UserRepositoryImpl(userDAO);
         UserDTOMapper mapper = new UserDTOMapper();
-        AuthenticationService authService = new AuthenticationServiceImpl(userRepository, mapper);
+        SessionRepository sessionRepository = new SessionRepositoryImpl(new SessionDAOImpl(dbService));
+        AuthenticationService authService = new AuthenticationServiceImpl(userRepository, sessionRepository, mapper);
 
         // No user should be logged in.
         Optional<User> optionalUser = authService.getLoggedInUser();
@@ -75,4 +84,42 @@ public class UserSavingTests {
         dbService.disconnect();
     }
 
+    @Test
+    public void signUpAgainAfterSessionFails() {
+        InMemorySQLiteHelper dbService = new InMemorySQLiteHelper();
+        dbService.connect();
+
+        UserRepository userRepository = new UserRepositoryImpl(new UserDAOImpl(dbService));
+        SessionRepository sessionRepository = new SessionRepositoryImpl(new SessionDAOImpl(dbService));
+
+        // Refuses to unlock the first key, like a failed write would.
+        AtomicBoolean unlocks = new AtomicBoolean();
+        KeyRing keys = new KeyRing() {
+            @Override
+            public boolean unlock(long userID, String password) {
+                return unlocks.getAndSet(true);
+            }
+
+            @Override
+            public boolean isUnlocked(long userID) {
+                return unlocks.get();
+            }
+
+            @Override
+            public void lock() {
+
+            }
+        };
+
+        AuthenticationService authService = new AuthenticationServiceImpl(
+                userRepository, sessionRepository, new UserDTOMapper(), ShardRouter.NONE, keys);
+
+        assertFalse(authService.createUser("Joe", "1234"), "User should not be created without a session.");
+        assertTrue(userRepository.read("joe").isEmpty(), "User should be removed when their session fails.");
+
+        assertTrue(authService.createUser("Joe", "1234"), "Username should be free to sign up with again.");
+        assertTrue(authService.getLoggedInUser().isPresent(), "User should be logged in.");
+        dbService.disconnect();
+    }
+
 }
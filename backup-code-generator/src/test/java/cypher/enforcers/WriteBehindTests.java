@@ -0,0 +1,195 @@
+package cypher.enforcers;
+
+import cypher.enforcers.data.entities.AccountEntity;
+import cypher.enforcers.data.entities.CodeEntity;
+import cypher.enforcers.data.implementations.AccountDAOImpl;
+import cypher.enforcers.data.implementations.CodeDAOImpl;
+import cypher.enforcers.data.implementations.InMemorySQLiteHelper;
+import cypher.enforcers.data.implementations.SQLiteHelper;
+import cypher.enforcers.data.implementations.WriteBehindAccountDAO;
+import cypher.enforcers.data.implementations.WriteBehindCodeDAO;
+import cypher.enforcers.data.implementations.WriteBehindQueue;
+import cypher.enforcers.data.spis.AccountDAO;
+import cypher.enforcers.data.spis.CodeDAO;
+import cypher.enforcers.data.spis.DatabaseService;
+import org.junit.jupiter.api.Test;
+
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class WriteBehindTests {
+
+    @Test
+    public void mergeChangesToTheSameCode() {
+        DatabaseService dbService = new SQLiteHelper();
+        dbService.connect("write_behind.db");
+
+        // Long enough that the queue is only flushed by the test.
+        WriteBehindQueue queue = new WriteBehindQueue(dbService, TimeUnit.HOURS.toMillis(1));
+        CodeDAO database = new CodeDAOImpl(dbService);
+        CodeDAO codeDAO = new WriteBehindCodeDAO(database, queue);
+
+        CodeEntity missing = new CodeEntity();
+        missing.setId(1000);
+        missing.setCode("ZZZ");
+        assertNull(codeDAO.updateCode(missing), "Missing code should not be updated.");
+        assertNull(codeDAO.removeCode(1000), "Missing code should not be removed.");
+        assertEquals(queue.size(), 0, "Changes to missing codes should not be queued.");
+
+        for (String code : List.of("AAA", "BBB", "CCC")) {
+            CodeEntity c = new CodeEntity();
+            c.setId(33);
+            c.setCode(code);
+            assertEquals(codeDAO.updateCode(c).getCode(), code, "Updated code should be returned.");
+        }
+
+        assertEquals(queue.size(), 1, "Updates to the same code should be merged.");
+        assertEquals(database.getCode(33).getCode(), "7294 8105", "Update should not be written yet.");
+
+        // Deleting a code wins over any update to it.
+        assertEquals(codeDAO.removeCode(34).getId(), 34, "Deleted code should be returned.");
+        CodeEntity deleted = new CodeEntity();
+        deleted.setId(34);
+        deleted.setCode("DDD");
+        assertNull(codeDAO.updateCode(deleted), "Code waiting to be deleted should not be updated.");
+        assertNull(codeDAO.removeCode(34), "Code should not be deleted twice.");
+
+        CodeEntity updated = new CodeEntity();
+        updated.setId(35);
+        updated.setCode("EEE");
+        codeDAO.updateCode(updated);
+        codeDAO.removeCode(35);
+
+        assertEquals(queue.size(), 3, "Number of pending changes does not match.");
+
+        List<CodeEntity> codes = codeDAO.getCodes(3);
+        assertEquals(queue.size(), 0, "Reading should write the pending changes.");
+        assertEquals(codes.size(), 14, "Number of codes does not match.");
+        assertEquals(codes.get(0).getCode(), "CCC", "Only the last update should be written.");
+        assertTrue(codes.stream().noneMatch(c -> c.getId() == 34 || c.getId() == 35), "Codes should be deleted.");
+
+        queue.shutDown();
+        dbService.disconnect();
+    }
+
+    @Test
+    public void writePendingChangesOnShutDown() {
+        DatabaseService dbService = new SQLiteHelper();
+        dbService.connect("write_behind_exit.db");
+
+        WriteBehindQueue queue = new WriteBehindQueue(dbService, TimeUnit.HOURS.toMillis(1));
+        CodeDAO codeDAO = new WriteBehindCodeDAO(new CodeDAOImpl(dbService), queue);
+        AccountDAO accountDAO = new WriteBehindAccountDAO(new AccountDAOImpl(dbService), queue);
+
+        CodeEntity c = new CodeEntity();
+        c.setId(49);
+        c.setCode("FFF FFF");
+        codeDAO.updateCode(c);
+
+        // New accounts are written along with the pending changes.
+        AccountEntity account = new AccountEntity();
+        account.setUserId(1);
+        account.setName("Five");
+        account.setSocialMediaType("Discord");
+        AccountEntity created = accountDAO.addAccount(account);
+        assertNotNull(created, "Account should be created.");
+        assertEquals(created.getID(), 5, "Account ID should be 5.");
+        assertEquals(queue.size(), 0, "Adding an account should write the pending changes.");
+
+        codeDAO.removeCode(33);
+        queue.shutDown();
+        dbService.disconnect();
+
+        // Connect again to check what actually made it to the file.
+        dbService = new SQLiteHelper();
+        dbService.connect("write_behind_exit.db");
+        CodeDAO database = new CodeDAOImpl(dbService);
+
+        assertEquals(database.getCode(49).getCode(), "FFF FFF", "Update should be written.");
+        assertNull(database.getCode(33), "Code should be deleted on shut down.");
+
+        dbService.disconnect();
+    }
+
+    @Test
+    public void keepChangesThatFailToBeWritten() throws SQLException {
+        DatabaseService dbService = new InMemorySQLiteHelper();
+        dbService.connect();
+        dbService.executeUpdate("INSERT INTO users (id, username, password) VALUES (1, 'joe', '1234')");
+        dbService.executeUpdate("INSERT INTO accounts (id, user_id, name, type) VALUES (1, 1, 'Joe', 'GitHub')");
+        dbService.executeUpdate("INSERT INTO codes (id, account_id, code) VALUES (33, 1, '1234'), (34, 1, '5678')");
+
+        WriteBehindQueue queue = new WriteBehindQueue(dbService, TimeUnit.HOURS.toMillis(1));
+        CodeDAO database = new CodeDAOImpl(dbService);
+
+        AtomicInteger failures = new AtomicInteger();
+        queue.setOnFailure(e -> failures.incrementAndGet());
+
+        String update = "UPDATE codes SET code = ? WHERE id = ?";
+        CompletableFuture<Void> first = queue.update("codes/33", "UPDATE missing SET code = ? WHERE id = ?", "AAA", 33L);
+        CompletableFuture<Void> other = queue.update("codes/34", update, "CCC", 34L);
+        CompletableFuture<Void> broken = queue.append("INSERT INTO missing VALUES (?)", 1);
+
+        assertThrows(SQLException.class, queue::flush, "Writing to a missing table should fail.");
+        assertEquals(queue.size(), 2, "Changes that failed should stay in the queue.");
+        assertFalse(first.isDone(), "Change should not be completed while it's still queued.");
+        assertTrue(other.isDone() && !other.isCompletedExceptionally(), "Other changes should be written on their own.");
+        assertEquals(database.getCode(34).getCode(), "CCC", "Other changes should not be held back.");
+
+        // A newer change to the same code wins over the one that failed.
+        queue.update("codes/33", update, "BBB", 33L);
+        assertEquals(queue.size(), 2, "Newer change should be merged with the one that failed.");
+
+        assertThrows(SQLException.class, queue::flush, "Writing to a missing table should fail.");
+        assertEquals(queue.size(), 1, "Only the broken change should be left.");
+        assertEquals(database.getCode(33).getCode(), "BBB", "Only the newest change should be written.");
+        assertTrue(first.isDone() && !first.isCompletedExceptionally(), "Replaced change should complete with the newer one.");
+
+        for (int i = 2; i < WriteBehindQueue.MAX_ATTEMPTS; i++) {
+            assertThrows(SQLException.class, queue::flush, "Writing to a missing table should fail.");
+        }
+
+        assertTrue(broken.isCompletedExceptionally(), "Change should be dropped after too many attempts.");
+        assertEquals(failures.get(), 1, "Listener should be told once the change is dropped.");
+        assertEquals(queue.size(), 0, "Dropped change should leave the queue.");
+
+        queue.shutDown();
+        dbService.disconnect();
+    }
+
+    @Test
+    public void retryFailedChangesOnShutDown() throws SQLException {
+        DatabaseService dbService = new InMemorySQLiteHelper();
+        dbService.connect();
+        dbService.executeUpdate("INSERT INTO users (id, username, password) VALUES (1, 'joe', '1234')");
+        dbService.executeUpdate("INSERT INTO accounts (id, user_id, name, type) VALUES (1, 1, 'Joe', 'GitHub')");
+        dbService.executeUpdate("INSERT INTO codes (id, account_id, code) VALUES (33, 1, '1234')");
+
+        WriteBehindQueue queue = new WriteBehindQueue(dbService, TimeUnit.HOURS.toMillis(1));
+        AtomicInteger failures = new AtomicInteger();
+        queue.setOnFailure(e -> failures.incrementAndGet());
+
+        // Fails until the table is created, like a busy database would.
+        CompletableFuture<Void> retried = queue.append("INSERT INTO later VALUES (?)", 1);
+        assertThrows(SQLException.class, queue::flush, "Writing to a missing table should fail.");
+        dbService.executeUpdate("CREATE TABLE later (value INT)");
+
+        CompletableFuture<Void> broken = queue.append("INSERT INTO missing VALUES (?)", 1);
+        CompletableFuture<Void> update = queue.update("codes/33", "UPDATE codes SET code = ? WHERE id = ?", "AAA", 33L);
+        queue.shutDown();
+
+        assertTrue(retried.isDone() && !retried.isCompletedExceptionally(), "Change that failed before should be written.");
+        assertTrue(update.isDone() && !update.isCompletedExceptionally(), "Change should be written on shut down.");
+        assertTrue(broken.isCompletedExceptionally(), "Broken change should be dropped after too many attempts.");
+        assertEquals(failures.get(), 1, "Listener should be told once the change is dropped.");
+        assertEquals(new CodeDAOImpl(dbService).getCode(33).getCode(), "AAA", "Update should be written.");
+
+        dbService.disconnect();
+    }
+
+}
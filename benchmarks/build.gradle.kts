@@ -0,0 +1,77 @@
+/*
+ * Benchmarks for the data layer of the backup code generator, written
+ * with JMH (Java Microbenchmark Harness).
+ *
+ * Run all of them with:
+ *     ./gradlew :benchmarks:jmh
+ *
+ * Or pass any JMH options, such as a filter and the parameters to use:
+ *     ./gradlew :benchmarks:jmh -PjmhArgs="CodeDAOBenchmark -p codes=1000"
+ */
+
+plugins {
+    java
+
+    // The data layer uses utilities that depend on JavaFX, so it
+    // needs to be on the classpath when the benchmarks run.
+    id("org.openjfx.javafxplugin") version "0.1.0"
+}
+
+repositories {
+    // Use Maven Central for resolving dependencies.
+    mavenCentral()
+}
+
+val jmhVersion = "1.37"
+
+dependencies {
+    // The code being benchmarked.
+    implementation(project(":backup-code-generator"))
+
+    // JMH, and the annotation processor that generates the
+    // benchmark code from the @Benchmark annotations.
+    implementation("org.openjdk.jmh:jmh-core:$jmhVersion")
+    annotationProcessor("org.openjdk.jmh:jmh-generator-annprocess:$jmhVersion")
+
+    // SQLite support, needed to create the databases being benchmarked.
+    implementation("org.xerial:sqlite-jdbc:3.45.0.0") {
+        exclude("org.slf4j", "slf4j-api")
+    }
+}
+
+java {
+    // Use the same Java version as the application.
+    toolchain {
+        languageVersion = JavaLanguageVersion.of(21)
+        vendor = JvmVendorSpec.ADOPTIUM // To use OpenJDK.
+    }
+}
+
+javafx {
+    version = "21"
+    modules = listOf("javafx.controls", "javafx.fxml")
+}
+
+// Task to run the benchmarks.
+tasks.register<JavaExec>("jmh") {
+    group = "verification"
+    description = "Runs the JMH benchmarks."
+
+    mainClass = "org.openjdk.jmh.Main"
+    classpath = sourceSets.main.get().runtimeClasspath
+
+    // The generated databases are created in here.
+    val workDir = layout.buildDirectory.dir("jmh")
+    workingDir = workDir.get().asFile
+    doFirst {
+        workDir.get().asFile.mkdirs()
+    }
+
+    val jmhArgs = providers.gradleProperty("jmhArgs")
+    if (jmhArgs.isPresent) {
+        args = jmhArgs.get().split(" ").filter { it.isNotBlank() }
+    }
+
+    // Results are saved so runs before and after a change can be compared.
+    args("-rf", "json", "-rff", layout.buildDirectory.file("jmh/results.json").get().asFile.path)
+}
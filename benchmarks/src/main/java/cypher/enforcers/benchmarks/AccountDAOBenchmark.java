@@ -0,0 +1,144 @@
+package cypher.enforcers.benchmarks;
+
+import cypher.enforcers.data.entities.AccountEntity;
+import cypher.enforcers.data.implementations.AccountDAOImpl;
+import cypher.enforcers.data.implementations.CodeDAOImpl;
+import cypher.enforcers.data.spis.AccountDAO;
+import cypher.enforcers.data.spis.CodeDAO;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ Benchmarks for the account data access object, going through the SQLite
+ helper to a generated database. Deleting accounts also deletes their
+ codes, so the size of the database is expected to matter there.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AccountDAOBenchmark {
+
+    /** Number of accounts removed each time all accounts are deleted. */
+    private static final int ACCOUNTS_TO_DELETE = 10;
+
+    /** Number of codes each of those accounts has. */
+    private static final int CODES_PER_ACCOUNT = 10;
+
+    /** Number of codes in the generated database. */
+    @Param({"1000", "100000", "1000000"})
+    public int codes;
+
+    /** The generated database. */
+    private BenchmarkDatabase database;
+
+    /** The account data access object being benchmarked. */
+    private AccountDAO accountDAO;
+
+    /** To add codes to the accounts being deleted. */
+    private CodeDAO codeDAO;
+
+    /**
+     * Generate the database.
+     *
+     * @throws IOException If the database could not be created.
+     */
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        database = BenchmarkDatabase.create("accounts-" + codes + ".db", codes);
+        accountDAO = new AccountDAOImpl(database.getService());
+        codeDAO = new CodeDAOImpl(database.getService());
+    }
+
+    /**
+     * Disconnect from the database.
+     */
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        database.close();
+    }
+
+    /**
+     * Accounts waiting to be deleted by the next invocation.
+     */
+    @State(Scope.Thread)
+    public static class AccountsToDelete {
+
+        /**
+         * Add the accounts, with a few codes each, to the user that's
+         * free to be changed.
+         *
+         * @param benchmark The benchmark with the database.
+         */
+        @Setup(Level.Invocation)
+        public void fill(AccountDAOBenchmark benchmark) {
+            for (int i = 0; i < ACCOUNTS_TO_DELETE; i++) {
+                AccountEntity account = benchmark.accountDAO.addAccount(
+                        newAccount(benchmark.database.getScratchUserID(), "Delete " + i)
+                );
+                benchmark.codeDAO.addCodes(BenchmarkDatabase.generateCodes(account.getID(), CODES_PER_ACCOUNT));
+            }
+        }
+    }
+
+    /**
+     * Create an account that hasn't been saved yet.
+     *
+     * @param userID ID of the user that owns the account.
+     * @param name Name of the account.
+     * @return The account.
+     */
+    private static AccountEntity newAccount(long userID, String name) {
+        AccountEntity account = new AccountEntity();
+        account.setUserId(userID);
+        account.setName(name);
+        account.setSocialMediaType("GitHub");
+        return account;
+    }
+
+    /**
+     * Read every account for the user that owns the codes.
+     *
+     * @return The accounts.
+     */
+    @Benchmark
+    public List<AccountEntity> readAll() {
+        return accountDAO.getAccounts(database.getUserID());
+    }
+
+    /**
+     * Read one account by its ID.
+     *
+     * @return The account.
+     */
+    @Benchmark
+    public AccountEntity readOne() {
+        return accountDAO.getAccount(database.getAccountID(0));
+    }
+
+    /**
+     * Add one account.
+     *
+     * @return The account that was added.
+     */
+    @Benchmark
+    public AccountEntity insert() {
+        return accountDAO.addAccount(newAccount(database.getScratchUserID(), "Insert"));
+    }
+
+    /**
+     * Delete every account for a user, along with their codes.
+     *
+     * @param accountsToDelete Makes sure there are accounts to delete.
+     * @return The accounts that were deleted.
+     */
+    @Benchmark
+    public List<AccountEntity> deleteAll(AccountsToDelete accountsToDelete) {
+        return accountDAO.clearAllAccounts(database.getScratchUserID());
+    }
+}
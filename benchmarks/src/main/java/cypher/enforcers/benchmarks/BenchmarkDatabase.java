@@ -0,0 +1,252 @@
+package cypher.enforcers.benchmarks;
+
+import cypher.enforcers.data.entities.AccountEntity;
+import cypher.enforcers.data.entities.CodeEntity;
+import cypher.enforcers.data.entities.UserEntity;
+import cypher.enforcers.data.implementations.AccountDAOImpl;
+import cypher.enforcers.data.implementations.CodeDAOImpl;
+import cypher.enforcers.data.implementations.SQLiteHelper;
+import cypher.enforcers.data.implementations.SessionDAOImpl;
+import cypher.enforcers.data.implementations.SessionRepositoryImpl;
+import cypher.enforcers.data.implementations.UserDAOImpl;
+import cypher.enforcers.data.spis.AccountDAO;
+import cypher.enforcers.data.spis.CodeDAO;
+import cypher.enforcers.data.spis.DatabaseService;
+import cypher.enforcers.data.spis.UserDAO;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ A database generated for a benchmark. It starts from the empty database
+ bundled with the application and is filled with one logged-in user,
+ whose codes are split evenly between a fixed number of accounts.
+ <br>
+ A second user and an extra account are also created, so benchmarks
+ that add or remove data don't change the data being read.
+ */
+public class BenchmarkDatabase implements AutoCloseable {
+
+    /** Number of accounts the codes are split between. */
+    public static final int ACCOUNTS = 10;
+
+    /** Number of codes inserted at once while filling the database. */
+    private static final int CHUNK = 10_000;
+
+    /** The empty database bundled with the application. */
+    private static final String TEMPLATE = "/cypher/enforcers/database/database.db";
+
+    /** Service connected to the database. */
+    private final DatabaseService service;
+
+    /** ID of the user that owns the codes. */
+    private final long userID;
+
+    /** ID of the user that's free to be changed. */
+    private final long scratchUserID;
+
+    /** IDs of the accounts that own the codes. */
+    private final List<Long> accountIDs;
+
+    /** ID of the account that's free to be changed. */
+    private final long scratchAccountID;
+
+    /**
+     * Create a new benchmark database.
+     *
+     * @param service Service connected to the database.
+     * @param userID ID of the user that owns the codes.
+     * @param scratchUserID ID of the user that's free to be changed.
+     * @param accountIDs IDs of the accounts that own the codes.
+     * @param scratchAccountID ID of the account that's free to be changed.
+     */
+    private BenchmarkDatabase(DatabaseService service, long userID, long scratchUserID,
+                              List<Long> accountIDs, long scratchAccountID) {
+        this.service = service;
+        this.userID = userID;
+        this.scratchUserID = scratchUserID;
+        this.accountIDs = accountIDs;
+        this.scratchAccountID = scratchAccountID;
+    }
+
+    /**
+     * Generate a new database in the working directory, replacing any
+     * database with the same name.
+     *
+     * @param name Name of the database file.
+     * @param codes Number of codes to fill the database with.
+     * @return The database, already connected.
+     * @throws IOException If the database could not be created.
+     */
+    public static BenchmarkDatabase create(String name, int codes) throws IOException {
+        for (String suffix : List.of("", "-wal", "-shm")) {
+            Files.deleteIfExists(Path.of(name + suffix));
+        }
+
+        try (InputStream template = Objects.requireNonNull(BenchmarkDatabase.class.getResourceAsStream(TEMPLATE))) {
+            Files.copy(template, Path.of(name));
+        }
+
+        DatabaseService service = new SQLiteHelper();
+        service.connect(name);
+        if (service.getConnection() == null) {
+            throw new IOException("Could not connect to " + name + ".");
+        }
+
+        UserDAO userDAO = new UserDAOImpl(service);
+        AccountDAO accountDAO = new AccountDAOImpl(service);
+        CodeDAO codeDAO = new CodeDAOImpl(service);
+
+        long userID = registerUser(userDAO, "benchmark").getID();
+        long scratchUserID = registerUser(userDAO, "scratch").getID();
+
+        // The user that owns the codes is the one that's logged in.
+        if (new SessionRepositoryImpl(new SessionDAOImpl(service)).create(userID).isEmpty()) {
+            throw new IOException("Could not log in the benchmark user.");
+        }
+
+        List<Long> accountIDs = new ArrayList<>(ACCOUNTS);
+        for (int i = 0; i < ACCOUNTS; i++) {
+            accountIDs.add(addAccount(accountDAO, userID, "Account " + i).getID());
+        }
+
+        long scratchAccountID = addAccount(accountDAO, userID, "Scratch").getID();
+
+        // Each account's codes are added together, like they would be
+        // when importing them from a file.
+        int perAccount = codes / ACCOUNTS;
+        for (int i = 0; i < ACCOUNTS; i++) {
+            int count = i == ACCOUNTS - 1 ? codes - perAccount * (ACCOUNTS - 1) : perAccount;
+            for (int start = 0; start < count; start += CHUNK) {
+                List<CodeEntity> chunk = generateCodes(accountIDs.get(i), Math.min(CHUNK, count - start));
+                if (codeDAO.addCodes(chunk) == null) {
+                    throw new IOException("Could not fill " + name + " with codes.");
+                }
+            }
+        }
+
+        return new BenchmarkDatabase(service, userID, scratchUserID, accountIDs, scratchAccountID);
+    }
+
+    /**
+     * Generate codes for an account that haven't been saved yet.
+     *
+     * @param accountID ID of the account.
+     * @param amount Number of codes.
+     * @return The codes.
+     */
+    public static List<CodeEntity> generateCodes(long accountID, int amount) {
+        List<CodeEntity> codes = new ArrayList<>(amount);
+        for (int i = 0; i < amount; i++) {
+            CodeEntity code = new CodeEntity();
+            code.setAccountID(accountID);
+            code.setCode(String.format("%04d %04d", i % 10_000, (i * 7919) % 10_000));
+            codes.add(code);
+        }
+
+        return codes;
+    }
+
+    /**
+     * Register a user that's used by the benchmarks.
+     *
+     * @param userDAO To add the user.
+     * @param username Name of the user.
+     * @return The user.
+     * @throws IOException If the user could not be added.
+     */
+    private static UserEntity registerUser(UserDAO userDAO, String username) throws IOException {
+        UserEntity user = new UserEntity();
+        user.setUsername(username);
+        user.setPassword("not a real password");
+
+        UserEntity registered = userDAO.registerUser(user);
+        if (registered == null) {
+            throw new IOException("Could not register " + username + ".");
+        }
+
+        return registered;
+    }
+
+    /**
+     * Add an account that's used by the benchmarks.
+     *
+     * @param accountDAO To add the account.
+     * @param userID ID of the user that owns the account.
+     * @param name Name of the account.
+     * @return The account.
+     * @throws IOException If the account could not be added.
+     */
+    private static AccountEntity addAccount(AccountDAO accountDAO, long userID, String name) throws IOException {
+        AccountEntity account = new AccountEntity();
+        account.setUserId(userID);
+        account.setName(name);
+        account.setSocialMediaType("Google");
+
+        AccountEntity added = accountDAO.addAccount(account);
+        if (added == null) {
+            throw new IOException("Could not add account " + name + ".");
+        }
+
+        return added;
+    }
+
+    /**
+     * Get the service connected to the database.
+     *
+     * @return The service.
+     */
+    public DatabaseService getService() {
+        return service;
+    }
+
+    /**
+     * Get the ID of the user that owns the codes.
+     *
+     * @return The ID.
+     */
+    public long getUserID() {
+        return userID;
+    }
+
+    /**
+     * Get the ID of the user that's free to be changed.
+     *
+     * @return The ID.
+     */
+    public long getScratchUserID() {
+        return scratchUserID;
+    }
+
+    /**
+     * Get the ID of an account that owns codes.
+     *
+     * @param index Which account, from 0 up to {@link #ACCOUNTS}.
+     * @return The ID.
+     */
+    public long getAccountID(int index) {
+        return accountIDs.get(index);
+    }
+
+    /**
+     * Get the ID of the account that's free to be changed.
+     *
+     * @return The ID.
+     */
+    public long getScratchAccountID() {
+        return scratchAccountID;
+    }
+
+    /**
+     * Disconnect from the database.
+     */
+    @Override
+    public void close() {
+        service.disconnect();
+    }
+}
@@ -0,0 +1,120 @@
+package cypher.enforcers.benchmarks;
+
+import cypher.enforcers.data.security.CodeCipher;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import javax.crypto.Cipher;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ Benchmarks for decrypting every code of an account with AES-GCM, the
+ way the code cipher does. Creating a Cipher for each code is compared
+ to keeping one and only setting the key and IV for each code, which is
+ what the code cipher does. The codes are encrypted in memory, so
+ reading them from the database isn't part of the numbers.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CodeCipherBenchmark {
+
+    /** Length of the IVs, in bytes. */
+    private static final int IV_LENGTH = 12;
+
+    /** Length of the authentication tags, in bits. */
+    private static final int TAG_LENGTH = 128;
+
+    /** Number of codes decrypted each time. */
+    @Param({"16", "1000"})
+    public int codes;
+
+    /** The key the codes are encrypted with. */
+    private SecretKey key;
+
+    /** The encrypted codes, each the IV followed by the encrypted code. */
+    private byte[][] encrypted;
+
+    /** The Cipher kept between codes. */
+    private Cipher reused;
+
+    /**
+     * Encrypt the codes.
+     *
+     * @throws GeneralSecurityException If the codes could not be
+     * encrypted.
+     */
+    @Setup(Level.Trial)
+    public void setUp() throws GeneralSecurityException {
+        SecureRandom random = new SecureRandom();
+
+        byte[] raw = new byte[32];
+        random.nextBytes(raw);
+        key = new SecretKeySpec(raw, "AES");
+
+        reused = Cipher.getInstance(CodeCipher.TRANSFORMATION);
+
+        encrypted = new byte[codes][];
+        for (int i = 0; i < codes; i++) {
+            byte[] iv = new byte[IV_LENGTH];
+            random.nextBytes(iv);
+
+            Cipher cipher = Cipher.getInstance(CodeCipher.TRANSFORMATION);
+            cipher.init(Cipher.ENCRYPT_MODE, key, new GCMParameterSpec(TAG_LENGTH, iv));
+            byte[] code = cipher.doFinal(String.format("%04d %04d", i, codes - i).getBytes(StandardCharsets.UTF_8));
+
+            encrypted[i] = new byte[IV_LENGTH + code.length];
+            System.arraycopy(iv, 0, encrypted[i], 0, IV_LENGTH);
+            System.arraycopy(code, 0, encrypted[i], IV_LENGTH, code.length);
+        }
+    }
+
+    /**
+     * Decrypt a code with a Cipher.
+     *
+     * @param cipher The Cipher.
+     * @param data The IV followed by the encrypted code.
+     * @return The code.
+     * @throws GeneralSecurityException If the code could not be
+     * decrypted.
+     */
+    private String decrypt(Cipher cipher, byte[] data) throws GeneralSecurityException {
+        cipher.init(Cipher.DECRYPT_MODE, key, new GCMParameterSpec(TAG_LENGTH, data, 0, IV_LENGTH));
+        return new String(cipher.doFinal(data, IV_LENGTH, data.length - IV_LENGTH), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Decrypt every code, creating a new Cipher for each one.
+     *
+     * @param blackhole Consumes the codes.
+     * @throws GeneralSecurityException If a code could not be decrypted.
+     */
+    @Benchmark
+    public void cipherPerCode(Blackhole blackhole) throws GeneralSecurityException {
+        for (byte[] data : encrypted) {
+            blackhole.consume(decrypt(Cipher.getInstance(CodeCipher.TRANSFORMATION), data));
+        }
+    }
+
+    /**
+     * Decrypt every code with the same Cipher.
+     *
+     * @param blackhole Consumes the codes.
+     * @throws GeneralSecurityException If a code could not be decrypted.
+     */
+    @Benchmark
+    public void reusedCipher(Blackhole blackhole) throws GeneralSecurityException {
+        for (byte[] data : encrypted) {
+            blackhole.consume(decrypt(reused, data));
+        }
+    }
+}
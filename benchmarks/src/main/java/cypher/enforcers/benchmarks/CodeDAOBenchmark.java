@@ -0,0 +1,129 @@
+package cypher.enforcers.benchmarks;
+
+import cypher.enforcers.data.entities.CodeEntity;
+import cypher.enforcers.data.implementations.CodeDAOImpl;
+import cypher.enforcers.data.spis.CodeDAO;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ Benchmarks for the code data access object, going through the SQLite
+ helper to a generated database. The codes are split between
+ {@link BenchmarkDatabase#ACCOUNTS} accounts, so reading all the codes
+ for an account reads a tenth of the codes in the database.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CodeDAOBenchmark {
+
+    /** Number of codes removed each time all codes are deleted. */
+    private static final int CODES_TO_DELETE = 100;
+
+    /** Number of codes in the generated database. */
+    @Param({"1000", "100000", "1000000"})
+    public int codes;
+
+    /** The generated database. */
+    private BenchmarkDatabase database;
+
+    /** The code data access object being benchmarked. */
+    private CodeDAO codeDAO;
+
+    /**
+     * Generate the database.
+     *
+     * @throws IOException If the database could not be created.
+     */
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        database = BenchmarkDatabase.create("codes-" + codes + ".db", codes);
+        codeDAO = new CodeDAOImpl(database.getService());
+    }
+
+    /**
+     * Disconnect from the database.
+     */
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        database.close();
+    }
+
+    /**
+     * Codes waiting to be deleted by the next invocation.
+     */
+    @State(Scope.Thread)
+    public static class CodesToDelete {
+
+        /**
+         * Add the codes to the account that's free to be changed.
+         *
+         * @param benchmark The benchmark with the database.
+         */
+        @Setup(Level.Invocation)
+        public void fill(CodeDAOBenchmark benchmark) {
+            long id = benchmark.database.getScratchAccountID();
+            benchmark.codeDAO.addCodes(BenchmarkDatabase.generateCodes(id, CODES_TO_DELETE));
+        }
+    }
+
+    /**
+     * Read every code for one account.
+     *
+     * @return The codes.
+     */
+    @Benchmark
+    public List<CodeEntity> readAll() {
+        return codeDAO.getCodes(database.getAccountID(0));
+    }
+
+    /**
+     * Read one code by its ID.
+     *
+     * @return The code.
+     */
+    @Benchmark
+    public CodeEntity readOne() {
+        return codeDAO.getCode(1);
+    }
+
+    /**
+     * Add one code.
+     *
+     * @return The code that was added.
+     */
+    @Benchmark
+    public CodeEntity insert() {
+        CodeEntity code = new CodeEntity();
+        code.setAccountID(database.getScratchAccountID());
+        code.setCode("1234 5678");
+        return codeDAO.addCode(code);
+    }
+
+    /**
+     * Add a batch of codes, like an import from a file.
+     *
+     * @return The codes that were added.
+     */
+    @Benchmark
+    public List<CodeEntity> insertBatch() {
+        return codeDAO.addCodes(BenchmarkDatabase.generateCodes(database.getScratchAccountID(), 10));
+    }
+
+    /**
+     * Delete every code for an account.
+     *
+     * @param codesToDelete Makes sure there are codes to delete.
+     * @return The codes that were deleted.
+     */
+    @Benchmark
+    public List<CodeEntity> deleteAll(CodesToDelete codesToDelete) {
+        return codeDAO.clearAllCodes(database.getScratchAccountID());
+    }
+}
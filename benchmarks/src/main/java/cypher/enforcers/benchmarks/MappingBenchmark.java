@@ -0,0 +1,200 @@
+package cypher.enforcers.benchmarks;
+
+import cypher.enforcers.data.entities.CodeEntity;
+import cypher.enforcers.data.entities.UserEntity;
+import cypher.enforcers.utilities.sqliteutilities.ArgumentSetters;
+import cypher.enforcers.utilities.sqliteutilities.Retrievers;
+import cypher.enforcers.utilities.sqliteutilities.TriConsumer;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+/**
+ Benchmarks for how rows are mapped to objects by the retrievers, and
+ how objects are set as arguments by the argument setters. Each is
+ compared to doing the same thing by hand, so the difference is the cost
+ of the mapping itself. The rows come from an in-memory database so
+ disk access isn't part of the numbers.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MappingBenchmark {
+
+    /** Number of rows mapped each time. */
+    @Param({"1000", "100000"})
+    public int rows;
+
+    /** Connection to the in-memory database. */
+    private Connection connection;
+
+    /** Selects every code. */
+    private PreparedStatement selectCodes;
+
+    /** Selects every user. */
+    private PreparedStatement selectUsers;
+
+    /** Inserts a code, only used to set arguments. */
+    private PreparedStatement insertCode;
+
+    /** The code being set as an argument. */
+    private CodeEntity code;
+
+    /**
+     * Create and fill the in-memory database.
+     *
+     * @throws SQLException If the database could not be created.
+     */
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException {
+        connection = DriverManager.getConnection("jdbc:sqlite::memory:");
+
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE codes (id INTEGER PRIMARY KEY, account_id INT NOT NULL, code TEXT NOT NULL)");
+            statement.execute("CREATE TABLE users (id INTEGER PRIMARY KEY, username TEXT NOT NULL, password TEXT NOT NULL, "
+                    + "theme_value INT NOT NULL DEFAULT 0, logged_in INT NOT NULL DEFAULT 1)");
+        }
+
+        connection.setAutoCommit(false);
+        try (PreparedStatement codes = connection.prepareStatement("INSERT INTO codes (account_id, code) VALUES (?, ?)");
+             PreparedStatement users = connection.prepareStatement("INSERT INTO users (username, password) VALUES (?, ?)")) {
+            for (CodeEntity generated : BenchmarkDatabase.generateCodes(1, rows)) {
+                codes.setLong(1, generated.getAccountID());
+                codes.setString(2, generated.getCode());
+                codes.addBatch();
+
+                users.setString(1, "user" + generated.getCode());
+                users.setString(2, "not a real password");
+                users.addBatch();
+            }
+
+            codes.executeBatch();
+            users.executeBatch();
+        }
+        connection.commit();
+
+        selectCodes = connection.prepareStatement("SELECT * FROM codes");
+        selectUsers = connection.prepareStatement("SELECT * FROM users");
+        insertCode = connection.prepareStatement("INSERT INTO codes (account_id, code) VALUES (?, ?)");
+
+        code = BenchmarkDatabase.generateCodes(1, 1).get(0);
+    }
+
+    /**
+     * Close the in-memory database.
+     *
+     * @throws SQLException If the database could not be closed.
+     */
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException {
+        connection.close();
+    }
+
+    /**
+     * Map every code with the retriever.
+     *
+     * @param blackhole Keeps the codes from being optimized away.
+     * @throws SQLException If the codes could not be read.
+     */
+    @Benchmark
+    public void retrieveCodes(Blackhole blackhole) throws SQLException {
+        Function<ResultSet, CodeEntity> retriever = Retrievers.get(CodeEntity.class);
+        try (ResultSet resultSet = selectCodes.executeQuery()) {
+            while (resultSet.next()) {
+                blackhole.consume(retriever.apply(resultSet));
+            }
+        }
+    }
+
+    /**
+     * Map every code by hand, for comparison.
+     *
+     * @param blackhole Keeps the codes from being optimized away.
+     * @throws SQLException If the codes could not be read.
+     */
+    @Benchmark
+    public void retrieveCodesByHand(Blackhole blackhole) throws SQLException {
+        try (ResultSet resultSet = selectCodes.executeQuery()) {
+            while (resultSet.next()) {
+                CodeEntity mapped = new CodeEntity();
+                mapped.setId(resultSet.getLong(1));
+                mapped.setAccountID(resultSet.getLong(2));
+                mapped.setCode(resultSet.getString(3));
+                blackhole.consume(mapped);
+            }
+        }
+    }
+
+    /**
+     * Map every user with the retriever.
+     *
+     * @param blackhole Keeps the users from being optimized away.
+     * @throws SQLException If the users could not be read.
+     */
+    @Benchmark
+    public void retrieveUsers(Blackhole blackhole) throws SQLException {
+        Function<ResultSet, UserEntity> retriever = Retrievers.get(UserEntity.class);
+        try (ResultSet resultSet = selectUsers.executeQuery()) {
+            while (resultSet.next()) {
+                blackhole.consume(retriever.apply(resultSet));
+            }
+        }
+    }
+
+    /**
+     * Set a code as the arguments of a statement with the argument
+     * setter for the whole object.
+     *
+     * @return The statement, so the work isn't optimized away.
+     */
+    @Benchmark
+    @SuppressWarnings("unchecked")
+    public PreparedStatement setCodeObject() {
+        BiConsumer<PreparedStatement, CodeEntity> setter =
+                (BiConsumer<PreparedStatement, CodeEntity>) ArgumentSetters.getObjectSetter(CodeEntity.class);
+        setter.accept(insertCode, code);
+        return insertCode;
+    }
+
+    /**
+     * Set a code as the arguments of a statement with the argument
+     * setters for each value, like the update queries do.
+     *
+     * @return The statement, so the work isn't optimized away.
+     */
+    @Benchmark
+    public PreparedStatement setCodeValues() {
+        Object[] values = {code.getAccountID(), code.getCode()};
+        for (int i = 0; i < values.length; i++) {
+            TriConsumer<PreparedStatement, Integer, Object> setter = ArgumentSetters.getSetter(values[i].getClass());
+            setter.accept(insertCode, i + 1, values[i]);
+        }
+
+        return insertCode;
+    }
+
+    /**
+     * Set a code as the arguments of a statement by hand, for comparison.
+     *
+     * @return The statement, so the work isn't optimized away.
+     * @throws SQLException If the arguments could not be set.
+     */
+    @Benchmark
+    public PreparedStatement setCodeByHand() throws SQLException {
+        insertCode.setLong(1, code.getAccountID());
+        insertCode.setString(2, code.getCode());
+        return insertCode;
+    }
+}
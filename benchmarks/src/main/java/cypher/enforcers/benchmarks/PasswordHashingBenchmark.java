@@ -0,0 +1,134 @@
+package cypher.enforcers.benchmarks;
+
+import cypher.enforcers.data.security.HashingEngine;
+import org.openjdk.jmh.annotations.*;
+
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.PBEKeySpec;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ Benchmarks for how many passwords can be hashed each second as more
+ threads hash at once. The hashing engine gives each thread a key
+ factory of its own, while the shared strategy is what it replaced: one
+ key factory that every thread has to take turns with. Each benchmark
+ method runs on a different number of threads, so the scaling can be
+ read straight from the results.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PasswordHashingBenchmark {
+
+    /** Algorithm being used to hash passwords. */
+    private static final String ALGORITHM = "PBKDF2WithHmacSHA512";
+
+    /** Length of the hashes, in bits. */
+    private static final int KEY_LENGTH = 512;
+
+    /** How the key factories are shared between threads. */
+    @Param({"engine", "shared"})
+    public String strategy;
+
+    /** Number of iterations each password is hashed with. */
+    @Param({"10000"})
+    public int iterations;
+
+    /** The engine, with a key factory for each thread. */
+    private HashingEngine engine;
+
+    /** The one key factory every thread takes turns with. */
+    private SecretKeyFactory shared;
+
+    /** The salt the passwords are hashed with. */
+    private byte[] salt;
+
+    /**
+     * Create the engine and the shared key factory.
+     *
+     * @throws GeneralSecurityException If the algorithm isn't available.
+     */
+    @Setup(Level.Trial)
+    public void setUp() throws GeneralSecurityException {
+        engine = new HashingEngine(ALGORITHM);
+        shared = SecretKeyFactory.getInstance(ALGORITHM);
+
+        salt = new byte[16];
+        new SecureRandom().nextBytes(salt);
+    }
+
+    /**
+     * Hash a password with the strategy being measured.
+     *
+     * @return The hash.
+     * @throws GeneralSecurityException If the password could not be
+     * hashed.
+     */
+    private byte[] hash() throws GeneralSecurityException {
+        if (strategy.equals("engine")) {
+            return engine.hash("correct horse battery staple", salt, iterations, KEY_LENGTH);
+        }
+
+        PBEKeySpec key = new PBEKeySpec("correct horse battery staple".toCharArray(), salt, iterations, KEY_LENGTH);
+        synchronized (shared) {
+            return shared.generateSecret(key).getEncoded();
+        }
+    }
+
+    /**
+     * Hash passwords on one thread.
+     *
+     * @return The hash.
+     * @throws GeneralSecurityException If the password could not be
+     * hashed.
+     */
+    @Benchmark
+    @Threads(1)
+    public byte[] threads1() throws GeneralSecurityException {
+        return hash();
+    }
+
+    /**
+     * Hash passwords on two threads.
+     *
+     * @return The hash.
+     * @throws GeneralSecurityException If the password could not be
+     * hashed.
+     */
+    @Benchmark
+    @Threads(2)
+    public byte[] threads2() throws GeneralSecurityException {
+        return hash();
+    }
+
+    /**
+     * Hash passwords on four threads.
+     *
+     * @return The hash.
+     * @throws GeneralSecurityException If the password could not be
+     * hashed.
+     */
+    @Benchmark
+    @Threads(4)
+    public byte[] threads4() throws GeneralSecurityException {
+        return hash();
+    }
+
+    /**
+     * Hash passwords on eight threads.
+     *
+     * @return The hash.
+     * @throws GeneralSecurityException If the password could not be
+     * hashed.
+     */
+    @Benchmark
+    @Threads(8)
+    public byte[] threads8() throws GeneralSecurityException {
+        return hash();
+    }
+}
@@ -0,0 +1,103 @@
+package cypher.enforcers.benchmarks;
+
+import cypher.enforcers.data.entities.UserEntity;
+import cypher.enforcers.data.implementations.UserDAOImpl;
+import cypher.enforcers.data.spis.UserDAO;
+import cypher.enforcers.views.themes.Theme;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ Benchmarks for the user data access object, going through the SQLite
+ helper to a generated database. Users can't be deleted, so the write
+ benchmark registers a new user each time.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class UserDAOBenchmark {
+
+    /** Number of codes in the generated database. */
+    @Param({"1000", "100000", "1000000"})
+    public int codes;
+
+    /** The generated database. */
+    private BenchmarkDatabase database;
+
+    /** The user data access object being benchmarked. */
+    private UserDAO userDAO;
+
+    /** Makes each new username unique. */
+    private long registered;
+
+    /**
+     * Generate the database.
+     *
+     * @throws IOException If the database could not be created.
+     */
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        database = BenchmarkDatabase.create("users-" + codes + ".db", codes);
+        userDAO = new UserDAOImpl(database.getService());
+    }
+
+    /**
+     * Disconnect from the database.
+     */
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        database.close();
+    }
+
+    /**
+     * Find a user by their username.
+     *
+     * @return The user.
+     */
+    @Benchmark
+    public UserEntity readByName() {
+        return userDAO.getUserByName("benchmark");
+    }
+
+    /**
+     * Find the user that's logged in.
+     *
+     * @return The user.
+     */
+    @Benchmark
+    public UserEntity readLoggedIn() {
+        return userDAO.getLoggedInUser();
+    }
+
+    /**
+     * Register a new user.
+     *
+     * @return The user that was registered.
+     */
+    @Benchmark
+    public UserEntity insert() {
+        UserEntity user = new UserEntity();
+        user.setUsername("user" + registered++);
+        user.setPassword("not a real password");
+        return userDAO.registerUser(user);
+    }
+
+    /**
+     * Update the theme of a user.
+     *
+     * @return The user that was updated.
+     */
+    @Benchmark
+    public UserEntity update() {
+        UserEntity user = new UserEntity();
+        user.setID(database.getScratchUserID());
+        user.setTheme(Theme.DARK);
+        user.setLoggedIn(true);
+        return userDAO.updateUser(user);
+    }
+}
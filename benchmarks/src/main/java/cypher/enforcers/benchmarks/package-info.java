@@ -0,0 +1,5 @@
+/**
+ * This package contains the JMH benchmarks for the data layer, such as
+ * the data access objects and how rows are mapped to and from objects.
+ */
+package cypher.enforcers.benchmarks;
@@ -12,3 +12,4 @@ plugins {
 
 rootProject.name = "Cypher-Enforcers"
 include("backup-code-generator")
+include("benchmarks")